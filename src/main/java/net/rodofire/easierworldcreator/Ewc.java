@@ -1,10 +1,15 @@
 package net.rodofire.easierworldcreator;
 
 import net.fabricmc.api.DedicatedServerModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriteExecutor;
 import net.rodofire.easierworldcreator.command.ModCommands;
 import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
 import net.rodofire.easierworldcreator.maths.FastMaths;
+import net.rodofire.easierworldcreator.shape.block.placer.WGShapeIndex;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
 import net.rodofire.easierworldcreator.util.file.EwcFolderData;
+import net.rodofire.easierworldcreator.util.file.region.RegionStorage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +37,15 @@ public class Ewc implements DedicatedServerModInitializer {
         FastMaths.registerMaths();
         EwcFolderData.initFiles();
         ModCommands.registerCommands();
+        EwcExecutor.start();
+        PieceWriteExecutor.start();
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> WGShapeIndex.load());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            PieceWriteExecutor.flush();
+            WGShapeIndex.save();
+            RegionStorage.closeAll();
+            EwcExecutor.shutdown();
+        });
 
         LOGGER.info("Starting Easierworldcreator");
     }
@@ -4,47 +4,92 @@ import net.minecraft.block.BlockState;
 import net.minecraft.nbt.NbtCompound;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class BlockDataKey {
-    private BlockState state;
-    private NbtCompound tag;
+/**
+ * <p>Immutable pair of a {@link BlockState} and of an optional {@link NbtCompound}, used as a key by the managers.
+ * <p>The hash is computed once when the key is created, since hashing a {@link NbtCompound} goes through the whole tree.
+ * The keys without tag are interned: there is a single key for every state, so they are compared by identity.
+ * The keys with a tag are interned per manager using a {@link BlockDataPalette}.
+ * <p>The tag is copied when the key is created, and the tag returned by {@link #getTag()} must not be modified,
+ * otherwise the cached hash wouldn't match the tag anymore.
+ */
+public final class BlockDataKey {
+    private static final Map<BlockState, BlockDataKey> STATES = new ConcurrentHashMap<>();
 
-    public BlockDataKey(BlockState state) {
-        this(state, null);
-    }
+    private final BlockState state;
+    private final NbtCompound tag;
+    private final int hash;
 
-    public BlockDataKey(BlockState state, @Nullable NbtCompound tag) {
+    private BlockDataKey(BlockState state, @Nullable NbtCompound tag) {
         this.state = state;
         this.tag = tag;
+        this.hash = Objects.hash(state, tag);
     }
-    public BlockState getState() {
-        return state;
+
+    /**
+     * @param state the state of the key
+     * @return the interned key of the state
+     */
+    public static BlockDataKey of(BlockState state) {
+        BlockDataKey key = STATES.get(state);
+        if (key != null)
+            return key;
+        return STATES.computeIfAbsent(state, s -> new BlockDataKey(s, null));
     }
 
-    public void setState(BlockState state) {
-        this.state = state;
+    /**
+     * @param state the state of the key
+     * @param tag   the tag of the key, can be null. It is copied, so it can still be modified by the caller
+     * @return the interned key of the state if there is no tag, a new key otherwise
+     */
+    public static BlockDataKey of(BlockState state, @Nullable NbtCompound tag) {
+        if (tag == null)
+            return of(state);
+        return new BlockDataKey(state, tag.copy());
+    }
+
+    public BlockState getState() {
+        return state;
     }
 
+    /**
+     * @return the tag of the key, it is shared and must not be modified. Use {@link NbtCompound#copy()} to modify it
+     */
     public NbtCompound getTag() {
         return tag;
     }
 
-    public void setTag(NbtCompound tag) {
-        this.tag = tag;
+    /**
+     * @return a key with the same tag and another state
+     */
+    public BlockDataKey withState(BlockState state) {
+        if (this.tag == null)
+            return of(state);
+        //the tag was already copied and is never modified
+        return new BlockDataKey(state, this.tag);
+    }
+
+    /**
+     * @return a key with the same state and another tag
+     */
+    public BlockDataKey withTag(@Nullable NbtCompound tag) {
+        return of(this.state, tag);
     }
 
     @Override
     public boolean equals(Object obj) {
         if (this == obj) return true;
-        if (obj == null || getClass() != obj.getClass()) return false;
-        BlockDataKey that = (BlockDataKey) obj;
-        return Objects.equals(state, that.state) &&
-                Objects.equals(tag, that.tag);
+        if (!(obj instanceof BlockDataKey that)) return false;
+        //the keys without tag are interned, they are only equal to themselves
+        if (this.tag == null || that.tag == null || this.hash != that.hash) return false;
+        return this.state == that.state && this.tag.equals(that.tag);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(state, tag);
+        return hash;
     }
 }
@@ -0,0 +1,76 @@
+package net.rodofire.easierworldcreator.blockdata;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Palette giving an int id to every {@link BlockDataKey} of a manager.
+ * <p>The ids are given in the order the keys are added, starting at 0, so they can be used as the index of a list.
+ * Since the hash of the keys is cached, adding or finding a key never hashes its tag.
+ * The first key added is kept, so the equal keys added after it are replaced by the same instance.
+ */
+public class BlockDataPalette {
+    private final List<BlockDataKey> keys;
+    private final Object2IntOpenHashMap<BlockDataKey> ids;
+
+    public BlockDataPalette() {
+        this(16);
+    }
+
+    public BlockDataPalette(int capacity) {
+        this.keys = new ArrayList<>(capacity);
+        this.ids = new Object2IntOpenHashMap<>(capacity);
+        this.ids.defaultReturnValue(-1);
+    }
+
+    /**
+     * add the key if it isn't present, using a single lookup
+     *
+     * @param key the key to add
+     * @return the id of the key
+     */
+    public int put(BlockDataKey key) {
+        int id = ids.putIfAbsent(key, keys.size());
+        if (id != -1)
+            return id;
+        keys.add(key);
+        return keys.size() - 1;
+    }
+
+    /**
+     * @return the id of the key, -1 if it isn't present
+     */
+    public int getId(BlockDataKey key) {
+        return ids.getInt(key);
+    }
+
+    /**
+     * @return the key related to the id
+     */
+    public BlockDataKey get(int id) {
+        return keys.get(id);
+    }
+
+    public boolean contains(BlockDataKey key) {
+        return ids.containsKey(key);
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    /**
+     * @return the keys ordered by id, the list can't be modified
+     */
+    public List<BlockDataKey> getKeys() {
+        return Collections.unmodifiableList(keys);
+    }
+
+    public void clear() {
+        keys.clear();
+        ids.clear();
+    }
+}
@@ -0,0 +1,91 @@
+package net.rodofire.easierworldcreator.blockdata;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.EmptyBlockView;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * <p>Compiled version of a placement rule.
+ * <p>The rule is evaluated once for every state of the registry, and the result is stored in a bitset indexed by the raw id of the state,
+ * see {@link Block#getRawIdFromState(BlockState)}.
+ * Verifying if a state can be replaced is then a single bit test, instead of looking for the block in a set and testing if the state is air.
+ * <p>Compiling a rule iterates over every state, so the rules are cached and shared: two rules with the same parameters give the same object.
+ * The rule is immutable and can be shared between threads.
+ */
+public class CompiledPlacementRule {
+    private static final Map<Key, CompiledPlacementRule> CACHE = new ConcurrentHashMap<>();
+
+    private final long[] bits;
+    /**
+     * used for the states registered after the compilation
+     */
+    private final Predicate<BlockState> rule;
+
+    private CompiledPlacementRule(Predicate<BlockState> rule) {
+        this.rule = rule;
+        this.bits = new long[(Block.STATE_IDS.size() + 63) >>> 6];
+        for (BlockState state : Block.STATE_IDS) {
+            if (rule.test(state)) {
+                int id = Block.getRawIdFromState(state);
+                bits[id >>> 6] |= 1L << id;
+            }
+        }
+    }
+
+    /**
+     * get the rule used by {@link StructurePlacementRuleManager}
+     *
+     * @param force            if the blocks can be replaced
+     * @param overriddenBlocks the blocks that deviate from {@code force}
+     * @return the compiled rule
+     */
+    public static CompiledPlacementRule of(boolean force, Set<Block> overriddenBlocks) {
+        return CACHE.computeIfAbsent(new Key(false, force, Set.copyOf(overriddenBlocks)), key -> new CompiledPlacementRule(state -> {
+            if (key.force()) {
+                return !key.blocks().contains(state.getBlock());
+            }
+            return state.isAir() || key.blocks().contains(state.getBlock());
+        }));
+    }
+
+    /**
+     * <p>get the rule used to verify the blocks of a structure.
+     * <p>The unbreakable blocks are never replaced. The others are replaced if {@code force} is true.
+     * If not, only air and the blocks to force can be replaced.
+     *
+     * @param force         if the blocks can be replaced
+     * @param blocksToForce the blocks that can be replaced when {@code force} is false, bedrock if null
+     * @return the compiled rule
+     */
+    public static CompiledPlacementRule ofVerification(boolean force, @Nullable Set<Block> blocksToForce) {
+        Set<Block> blocks = blocksToForce == null ? Set.of(Blocks.BEDROCK) : Set.copyOf(blocksToForce);
+        return CACHE.computeIfAbsent(new Key(true, force, blocks), key -> new CompiledPlacementRule(state -> {
+            //the hardness of a state doesn't depend on the world, except for some modded blocks
+            if (state.getHardness(EmptyBlockView.INSTANCE, BlockPos.ORIGIN) < 0)
+                return false;
+            return key.force() || state.isAir() || key.blocks().contains(state.getBlock());
+        }));
+    }
+
+    /**
+     * @param state the state currently in the world
+     * @return true if the state can be replaced
+     */
+    public boolean canPlace(BlockState state) {
+        int id = Block.getRawIdFromState(state);
+        if (id < 0 || (id >>> 6) >= bits.length)
+            return rule.test(state);
+        return (bits[id >>> 6] & (1L << id)) != 0;
+    }
+
+    private record Key(boolean verification, boolean force, Set<Block> blocks) {
+    }
+}
@@ -33,6 +33,11 @@ public class StructurePlacementRuleManager {
      */
     private Set<Block> overriddenBlocks = new HashSet<>();
 
+    /**
+     * compiled version of the rule, reset every time the rule is modified
+     */
+    private CompiledPlacementRule compiled;
+
     public StructurePlacementRuleManager() {
     }
 
@@ -65,26 +70,32 @@ public class StructurePlacementRuleManager {
     }
 
     public void setOverriddenBlocks(Set<Block> overriddenBlocks) {
+        this.compiled = null;
         this.overriddenBlocks = new HashSet<>(overriddenBlocks);
     }
 
     public void setOverriddenTags(Set<TagKey<Block>> overriddenTags) {
+        this.compiled = null;
         this.overriddenBlocks = TagUtil.BlockTags.convertBlockTagToBlockSet(overriddenTags);
     }
 
     public void addOverrideBlock(Block block) {
+        this.compiled = null;
         overriddenBlocks.add(block);
     }
 
     public void addTagKey(TagKey<Block> tagKey) {
+        this.compiled = null;
         this.overriddenBlocks.addAll(TagUtil.BlockTags.convertBlockTagToBlockSet(tagKey));
     }
 
     public void addOverrideBlocks(Set<Block> overriddenBlocks) {
+        this.compiled = null;
         this.overriddenBlocks.addAll(overriddenBlocks);
     }
 
     public void addTagKeys(Set<TagKey<Block>> tagKeys) {
+        this.compiled = null;
         this.overriddenBlocks.addAll(TagUtil.BlockTags.convertBlockTagToBlockSet(tagKeys));
     }
 
@@ -93,6 +104,7 @@ public class StructurePlacementRuleManager {
     }
 
     public void setForce(boolean force) {
+        this.compiled = null;
         this.force = force;
     }
 
@@ -107,10 +119,23 @@ public class StructurePlacementRuleManager {
     }
 
     public boolean canPlace(BlockState state) {
-        if (force) {
-            return !overriddenBlocks.contains(state.getBlock());
+        return compile().canPlace(state);
+    }
+
+    /**
+     * <p>compile the rule into a bitset indexed by the raw id of the states, see {@link CompiledPlacementRule}.
+     * <p>The rule is compiled once and recompiled after a modification.
+     * Blocks added directly to the set returned by {@link #getOverriddenBlocks()} are not taken into account once the rule was compiled.
+     *
+     * @return the compiled rule
+     */
+    public CompiledPlacementRule compile() {
+        CompiledPlacementRule rule = this.compiled;
+        if (rule == null) {
+            rule = CompiledPlacementRule.of(force, overriddenBlocks);
+            this.compiled = rule;
         }
-        return state.isAir() || overriddenBlocks.contains(state.getBlock());
+        return rule;
     }
 
 
@@ -7,17 +7,16 @@ import net.minecraft.block.BlockState;
 import net.minecraft.block.entity.BlockEntity;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.registry.DynamicRegistryManager;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.StructureWorldAccess;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
-import net.rodofire.easierworldcreator.util.map.ObjectShortLinkHashBiMap;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.List;
 
 public class WorldStateCollector {
-    ObjectShortLinkHashBiMap<BlockDataKey> data = new ObjectShortLinkHashBiMap<>();
+    BlockDataPalette data = new BlockDataPalette();
     Long2ShortOpenHashMap posLink = new Long2ShortOpenHashMap();
 
     public WorldStateCollector() {
@@ -29,7 +28,7 @@ public class WorldStateCollector {
         posLink.defaultReturnValue((short) -1);
     }
 
-    public <T extends AbstractLongCollection> WorldStateCollector collect(ServerWorld world, T posList) {
+    public <T extends AbstractLongCollection> WorldStateCollector collect(StructureWorldAccess world, T posList) {
         for (long pos : posList) {
             if (posLink.containsKey(pos))
                 continue;
@@ -37,12 +36,12 @@ public class WorldStateCollector {
             BlockPos decodedPos = LongPosHelper.decodeBlockPos(pos);
             BlockDataKey data = getDataKey(world, decodedPos);
 
-            this.posLink.put(pos, this.data.put(data));
+            this.posLink.put(pos, (short) this.data.put(data));
         }
         return this;
     }
 
-    public <T extends Collection<BlockPos>> WorldStateCollector collect(ServerWorld world, T posList) {
+    public <T extends Collection<BlockPos>> WorldStateCollector collect(StructureWorldAccess world, T posList) {
         for (BlockPos decodedPos : posList) {
 
             long pos = LongPosHelper.encodeBlockPos(decodedPos);
@@ -51,24 +50,23 @@ public class WorldStateCollector {
 
             BlockDataKey data = getDataKey(world, decodedPos);
 
-            this.posLink.put(pos, this.data.put(data));
+            this.posLink.put(pos, (short) this.data.put(data));
         }
         return this;
     }
 
-    private static @NotNull BlockDataKey getDataKey(ServerWorld world, BlockPos decodedPos) {
+    private static @NotNull BlockDataKey getDataKey(StructureWorldAccess world, BlockPos decodedPos) {
         BlockState state = world.getBlockState(decodedPos);
 
-        BlockDataKey data = new BlockDataKey(state);
-
         //get NbtTag of the block
         BlockEntity entity = world.getBlockEntity(decodedPos);
         if (entity != null) {
             DynamicRegistryManager registry = world.getRegistryManager();
             NbtCompound currentNbt = entity.createNbtWithIdentifyingData(registry);
-            data.setTag(currentNbt);
+            return BlockDataKey.of(state, currentNbt);
         }
-        return data;
+        //the keys without tag are interned, nothing is allocated
+        return BlockDataKey.of(state);
     }
 
     public BlockState getState(long pos) {
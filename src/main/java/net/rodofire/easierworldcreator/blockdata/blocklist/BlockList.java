@@ -15,6 +15,7 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.StructureWorldAccess;
 import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.CompiledPlacementRule;
 import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
 import net.rodofire.easierworldcreator.util.BlockPlaceUtil;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
@@ -67,7 +68,7 @@ public class BlockList {
      */
     public BlockList(BlockState state, NbtCompound tag, List<BlockPos> posList) {
         addAllPos(posList);
-        this.dataKey = new BlockDataKey(state, tag);
+        this.dataKey = BlockDataKey.of(state, tag);
     }
 
     /**
@@ -88,7 +89,7 @@ public class BlockList {
      */
     public BlockList(BlockState state, NbtCompound tag, LongArrayList posList) {
         addAllPos(posList);
-        this.dataKey = new BlockDataKey(state, tag);
+        this.dataKey = BlockDataKey.of(state, tag);
     }
 
     /**
@@ -217,11 +218,11 @@ public class BlockList {
     }
 
     public BlockPos getFirstPos() {
-        return LongPosHelper.decodeBlockPos(this.posList.getFirst());
+        return LongPosHelper.decodeBlockPos(this.posList.getLong(0));
     }
 
     public BlockPos getLastPos() {
-        return LongPosHelper.decodeBlockPos(this.posList.getLast());
+        return LongPosHelper.decodeBlockPos(this.posList.getLong(this.posList.size() - 1));
     }
 
     public BlockPos getRandomPos() {
@@ -237,11 +238,11 @@ public class BlockList {
     }
 
     public long getFirstLongPos() {
-        return this.posList.getFirst();
+        return this.posList.getLong(0);
     }
 
     public long getLastLongPos() {
-        return this.posList.getLast();
+        return this.posList.getLong(this.posList.size() - 1);
     }
 
     public long getRandomLongPos() {
@@ -274,12 +275,15 @@ public class BlockList {
         return this;
     }
 
+    /**
+     * @return the tag of the block data, it is shared with the key and must not be modified, see {@link BlockDataKey#getTag()}
+     */
     public Optional<NbtCompound> getTag() {
         return Optional.ofNullable(dataKey.getTag());
     }
 
     public void setTag(NbtCompound tag) {
-        this.dataKey.setTag(tag);
+        this.dataKey = this.dataKey.withTag(tag);
     }
 
     /**
@@ -308,7 +312,7 @@ public class BlockList {
     }
 
     public void setState(BlockState state) {
-        this.dataKey.setState(state);
+        this.dataKey = this.dataKey.withState(state);
     }
 
     public BlockDataKey getBlockData() {
@@ -320,11 +324,11 @@ public class BlockList {
     }
 
     public boolean placeLast(StructureWorldAccess world) {
-        return place(world, this.posList.getLast());
+        return place(world, this.posList.getLong(this.posList.size() - 1));
     }
 
     public boolean placeFirst(StructureWorldAccess world) {
-        return place(world, this.posList.getFirst());
+        return place(world, this.posList.getLong(0));
     }
 
     public boolean place(StructureWorldAccess world, int index) {
@@ -333,8 +337,9 @@ public class BlockList {
 
     public boolean placeAll(StructureWorldAccess worldAccess, int flag) {
         boolean placed = true;
-        for (long pos : this.posList) {
-            if (!place(worldAccess, pos, flag)) {
+        //indexed loop, iterating over the list would box every pos
+        for (int i = 0; i < this.posList.size(); i++) {
+            if (!place(worldAccess, this.posList.getLong(i), flag)) {
                 placed = false;
             }
         }
@@ -342,11 +347,11 @@ public class BlockList {
     }
 
     public boolean placeLast(StructureWorldAccess world, int flag) {
-        return place(world, this.posList.getLast(), flag);
+        return place(world, this.posList.getLong(this.posList.size() - 1), flag);
     }
 
     public boolean placeFirst(StructureWorldAccess world, int flag) {
-        return place(world, this.posList.getFirst(), flag);
+        return place(world, this.posList.getLong(0), flag);
     }
 
     public boolean place(StructureWorldAccess world, int index, int flag) {
@@ -355,8 +360,8 @@ public class BlockList {
 
     public boolean placeAll(StructureWorldAccess worldAccess) {
         boolean placed = true;
-        for (long pos : this.posList) {
-            if (!place(worldAccess, pos) && placed) {
+        for (int i = 0; i < this.posList.size(); i++) {
+            if (!place(worldAccess, this.posList.getLong(i)) && placed) {
                 placed = false;
             }
         }
@@ -364,7 +369,7 @@ public class BlockList {
     }
 
     public boolean placeLastNDelete(StructureWorldAccess world) {
-        return place(world, this.posList.removeLast());
+        return place(world, this.posList.removeLong(this.posList.size() - 1));
     }
 
     /**
@@ -403,20 +408,25 @@ public class BlockList {
         if (!init)
             init(world);
 
+        BlockPos.Mutable mutable = LongPosHelper.decodeMutable(pos);
         boolean placed;
-        if ((placed = place(world, pos, Block.FORCE_STATE)) && markDirty) {
-            chunkManager.markForUpdate(LongPosHelper.decodeBlockPos(pos));
+        if ((placed = place(world, mutable, Block.FORCE_STATE)) && markDirty) {
+            chunkManager.markForUpdate(mutable);
         }
         return placed;
     }
 
     private boolean place(StructureWorldAccess world, long pos, int flags) {
-        BlockPos pos1 = LongPosHelper.decodeBlockPos(pos);
-        BlockState state = world.getBlockState(pos1);
-        if (this.ruler != null) {
-            return BlockPlaceUtil.place(world, pos1, dataKey, this.ruler, flags);
-        }
-        return state.isAir() && BlockPlaceUtil.place(world, pos1, dataKey, null, flags);
+        return place(world, LongPosHelper.decodeMutable(pos), flags);
+    }
+
+    /**
+     * the state of the world is only read once, and verified using the compiled ruler.
+     * The pos is the mutable pos of the thread, so nothing is allocated
+     */
+    private boolean place(StructureWorldAccess world, BlockPos pos, int flags) {
+        CompiledPlacementRule rule = this.ruler == null ? null : this.ruler.compile();
+        return BlockPlaceUtil.place(world, pos, world.getBlockState(pos), dataKey, rule, flags);
     }
 
     public JsonObject toJson(ChunkPos chunkPos) {
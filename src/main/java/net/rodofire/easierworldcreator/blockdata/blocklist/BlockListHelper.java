@@ -11,12 +11,17 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.StringNbtReader;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.StructureWorldAccess;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceReader;
 import net.rodofire.easierworldcreator.blockdata.sorter.BlockSorter;
 import net.rodofire.easierworldcreator.util.BlockStateUtil;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
 import net.rodofire.easierworldcreator.util.file.FileUtil;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.regex.Matcher;
@@ -86,6 +91,32 @@ public class BlockListHelper {
         }
     }
 
+    /**
+     * method to read a multi-chunk piece, whatever its format.
+     * Binary pieces are read using {@link PieceReader}, JSON pieces are read using {@link #fromJsonPath(StructureWorldAccess, Path)}
+     *
+     * @param world the world used to get the registry entries
+     * @param path  the path of the piece
+     * @return the manager related to the piece, or null if the piece cannot be read
+     */
+    public static BlockListManager fromPath(StructureWorldAccess world, Path path) {
+        if (path.toString().endsWith(PieceFormat.EXTENSION)) {
+            return fromPiecePath(world, path);
+        }
+        return fromJsonPath(world, path);
+    }
+
+    public static BlockListManager fromPiecePath(StructureWorldAccess world, Path path) {
+        if (!Files.exists(path))
+            return null;
+        try (PieceReader reader = new PieceReader(Files.newInputStream(path), world)) {
+            return reader.readAll();
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to read multi-chunk piece {}", path, e);
+            return null;
+        }
+    }
+
     public static BlockListManager fromJsonPath(StructureWorldAccess world, Path path) {
         String fileName = path.getParent().getFileName().toString();
         Pattern pattern = Pattern.compile("chunk_(-?\\d+)_(-?\\d+)$");
@@ -117,11 +148,10 @@ public class BlockListHelper {
         Gson gson = new Gson();
 
         for (JsonElement jsonElement : jsonArray) {
-            BlockList blockList = new BlockList();
             JsonObject jsonObject = jsonElement.getAsJsonObject();
             BlockState state = BlockStateUtil.parseBlockState(worldAccess, jsonObject.get("state").getAsString());
 
-            blockList.setState(state);
+            BlockList blockList = new BlockList(state, new LongArrayList());
 
 
             if (jsonObject.has("force")) {
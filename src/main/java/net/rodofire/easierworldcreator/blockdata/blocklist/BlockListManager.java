@@ -4,18 +4,25 @@ import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.objects.Object2ShortOpenHashMap;
 import net.minecraft.block.BlockState;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.Ewc;
 import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.BlockDataPalette;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceStorage;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriter;
 import net.rodofire.easierworldcreator.blockdata.sorter.BlockSorter;
+import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
 import net.rodofire.easierworldcreator.util.file.EwcFolderData;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -45,11 +52,10 @@ public class BlockListManager {
      * <p>
      * Using short as a link allow us to save two bytes of data for each {@link BlockState}. Since that it is highly unprobable that more than 32 000 {@link BlockState} are used, shorts are enough.
      * <p>
+     * The id of a {@link BlockDataKey} in the palette is the index of the related {@link BlockList}.
      * </p>
      */
-    protected List<BlockDataKey> stateIndexes = new ArrayList<>();
-
-    protected Object2ShortOpenHashMap<BlockDataKey> blockDataMap = new Object2ShortOpenHashMap<>();
+    protected BlockDataPalette blockDataPalette = new BlockDataPalette();
 
     /**
      * init a comparator
@@ -58,8 +64,7 @@ public class BlockListManager {
      */
     public BlockListManager(BlockListManager comparator) {
         this.blockLists = comparator.blockLists;
-        this.stateIndexes = comparator.stateIndexes;
-        this.blockDataMap = comparator.blockDataMap;
+        this.blockDataPalette = comparator.blockDataPalette;
     }
 
     /**
@@ -103,7 +108,7 @@ public class BlockListManager {
     }
 
     public BlockState getState(int index) {
-        return stateIndexes.get(index).getState();
+        return blockDataPalette.get(index).getState();
     }
 
     public short size() {
@@ -125,7 +130,7 @@ public class BlockListManager {
     }
 
     public int stateSize(){
-        return stateIndexes.size();
+        return blockDataPalette.size();
     }
 
     /**
@@ -137,15 +142,16 @@ public class BlockListManager {
      * @return the modified instance of the manager
      */
     public BlockListManager put(BlockState state, NbtCompound tag, LongArrayList pos) {
-        BlockDataKey blockData = new BlockDataKey(state, tag);
-        if (this.blockDataMap.containsKey(blockData)) {
-            short index = this.blockDataMap.getShort(blockData);
+        BlockDataKey blockData = BlockDataKey.of(state, tag);
+        int index = this.blockDataPalette.put(blockData);
+        if (index < this.blockLists.size()) {
             this.blockLists.get(index).addAllPos(pos);
             return this;
         }
-        short index = size();
-        this.blockDataMap.put(blockData, index);
-        this.blockLists.add(new BlockList(state, tag, pos));
+        BlockList blockList = new BlockList(state, tag, pos);
+        //the key of the palette is shared with the list
+        blockList.setBlockData(this.blockDataPalette.get(index));
+        this.blockLists.add(blockList);
         return this;
     }
 
@@ -192,18 +198,11 @@ public class BlockListManager {
     }
 
     public BlockListManager put(BlockList blockList) {
-        BlockState state = blockList.getState();
-        NbtCompound tag = blockList.getTag().isPresent() ? blockList.getTag().get() : null;
-        BlockDataKey blockData = new BlockDataKey(state, tag);
-
-        if (this.blockDataMap.containsKey(blockData)) {
-            short index = this.blockDataMap.getShort(blockData);
+        int index = this.blockDataPalette.put(blockList.getBlockData());
+        if (index < this.blockLists.size()) {
             this.blockLists.get(index).addAllPos(blockList.getPosList());
             return this;
         }
-        short index = size();
-        this.blockDataMap.put(blockData, index);
-        this.stateIndexes.add(blockData);
         this.blockLists.add(blockList);
         return this;
     }
@@ -235,8 +234,7 @@ public class BlockListManager {
 
     public void clear() {
         this.blockLists.clear();
-        this.stateIndexes.clear();
-        this.blockDataMap.clear();
+        this.blockDataPalette.clear();
     }
 
     public boolean placeAll(StructureWorldAccess worldAccess) {
@@ -261,6 +259,29 @@ public class BlockListManager {
         return placed;
     }
 
+    /**
+     * <p>Place every block by writing directly into the chunk sections, see {@link SectionPlacer}.
+     * <p>The blocks are verified like {@link #placeAll(StructureWorldAccess)},
+     * but the chunk of each section is only fetched once and each section is only locked once.
+     * Unlike {@link #placeAll(StructureWorldAccess)}, {@code onBlockAdded()} is not called on the placed blocks,
+     * except the ones having a block entity or a tag.
+     *
+     * @param worldAccess the world where the blocks will be placed
+     * @return true if every block was placed
+     */
+    public boolean placeAllFast(StructureWorldAccess worldAccess) {
+        return SectionPlacer.place(worldAccess, this.blockLists);
+    }
+
+    /**
+     * same as {@link #placeAllFast(StructureWorldAccess)}, the manager being cleared after
+     */
+    public boolean placeAllNDeleteFast(StructureWorldAccess worldAccess) {
+        boolean placed = placeAllFast(worldAccess);
+        clear();
+        return placed;
+    }
+
     public boolean placeAll(StructureWorldAccess worldAccess, int flag) {
         boolean placed = true;
         System.out.println("size: " + this.blockLists.size());
@@ -291,7 +312,7 @@ public class BlockListManager {
     public JsonArray toJson(ChunkPos chunkPos, ChunkPos offset) {
         JsonArray jsonArray = new JsonArray();
 
-        ForkJoinPool pool = new ForkJoinPool(Math.min(blockLists.size(), Runtime.getRuntime().availableProcessors() / 2));
+        ForkJoinPool pool = EwcExecutor.get();
         List<CompletableFuture<JsonObject>> futures = new ArrayList<>();
 
         // Création des CompletableFutures pour chaque BlockList
@@ -320,6 +341,35 @@ public class BlockListManager {
         placeJson(chunkPos, new ChunkPos(0, 0), "custom_feature_" + Random.create().nextLong());
     }
 
+    public void placePiece(ChunkPos chunkPos) {
+        placePiece(chunkPos, new ChunkPos(0, 0), "custom_feature_" + Random.create().nextLong());
+    }
+
+    /**
+     * save the manager as a multi-chunk piece using the binary format described in {@link PieceFormat}.
+     * The piece is stored inside the region files of {@link PieceStorage}.
+     * <p>If {@link EwcConfig#getReadableMultiChunkFiles()} is enabled, the piece will be saved as JSON instead,
+     * allowing easier debugging.
+     *
+     * @param chunkPos the chunkpos of the manager. Positions will be written relative to this chunk
+     * @param offset   the offset to move the blockPos
+     * @param name     the name of the piece
+     */
+    public void placePiece(ChunkPos chunkPos, ChunkPos offset, String name) {
+        if (EwcConfig.getReadableMultiChunkFiles()) {
+            placeJson(chunkPos, offset, name);
+            return;
+        }
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (PieceWriter writer = new PieceWriter(stream, chunkPos, offset)) {
+            writer.write(this);
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to save multi-chunk piece {} of chunk {}", name, chunkPos, e);
+            return;
+        }
+        PieceStorage.put(new ChunkPos(chunkPos.x + offset.x, chunkPos.z + offset.z), name, stream.toByteArray());
+    }
+
     /**
      * convert the manager into a Json file
      *
@@ -65,6 +65,19 @@ public class DividedBlockListManager {
         return this;
     }
 
+    /**
+     * put every chunk of the other manager
+     *
+     * @param other the manager to put, its {@code BlockList} are reused
+     * @return the resulted manager
+     */
+    public DividedBlockListManager put(DividedBlockListManager other) {
+        for (Map.Entry<ChunkPos, BlockListManager> entry : other.managers.entrySet()) {
+            putWithoutVerification(entry.getKey(), entry.getValue());
+        }
+        return this;
+    }
+
     public DividedBlockListManager put(BlockState state, NbtCompound tag, LongArrayList pos) {
         for (long po : pos) {
             put(state, tag, po);
@@ -116,7 +129,7 @@ public class DividedBlockListManager {
      * Only use this method in a controlled environment.
      */
     public DividedBlockListManager putWithoutVerification(BlockState state, NbtCompound tag, LongArrayList pos) {
-        managers.computeIfAbsent(LongPosHelper.getChunkPos(pos.getFirst()), (k) -> new BlockListManager()).put(state, tag, pos);
+        managers.computeIfAbsent(LongPosHelper.getChunkPos(pos.getLong(0)), (k) -> new BlockListManager()).put(state, tag, pos);
         return this;
     }
 
@@ -168,10 +181,13 @@ public class DividedBlockListManager {
         return managers.keySet();
     }
 
+    /**
+     * place every chunk, see {@link BlockListManager#placeAllFast(StructureWorldAccess)}
+     */
     public boolean placeAll(StructureWorldAccess world) {
         boolean place = true;
         for (BlockListManager manager : managers.values()) {
-            if (!manager.placeAll(world)) {
+            if (!manager.placeAllFast(world)) {
                 place = false;
             }
         }
@@ -179,12 +195,7 @@ public class DividedBlockListManager {
     }
 
     public boolean placeAllNDelete(StructureWorldAccess world) {
-        boolean place = true;
-        for (BlockListManager manager : managers.values()) {
-            if (!manager.placeAll(world)) {
-                place = false;
-            }
-        }
+        boolean place = placeAll(world);
         clear();
         return place;
     }
@@ -217,6 +228,21 @@ public class DividedBlockListManager {
         }
     }
 
+    /**
+     * save every chunk of the manager as a multi-chunk piece using the binary format
+     *
+     * @param name the name of the pieces
+     */
+    public void placePiece(String name) {
+        placePiece(name, new ChunkPos(0, 0));
+    }
+
+    public void placePiece(String name, ChunkPos offset) {
+        for (Map.Entry<ChunkPos, BlockListManager> entry : managers.entrySet()) {
+            entry.getValue().placePiece(entry.getKey(), offset, name);
+        }
+    }
+
     public void putWithoutVerification(BlockListManager manager) {
         ChunkPos pos = LongPosHelper.getChunkPos(manager.getFirstBlockList().getFirstLongPos());
         manager.blockLists.forEach(blockList -> this.putWithoutVerification(pos, blockList));
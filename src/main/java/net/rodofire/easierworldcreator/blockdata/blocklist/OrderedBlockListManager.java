@@ -2,7 +2,6 @@ package net.rodofire.easierworldcreator.blockdata.blocklist;
 
 import it.unimi.dsi.fastutil.ints.Int2ShortOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
-import it.unimi.dsi.fastutil.objects.Object2ShortOpenHashMap;
 import it.unimi.dsi.fastutil.shorts.Short2ReferenceOpenHashMap;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -15,11 +14,11 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.StructureWorldAccess;
 import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.BlockDataPalette;
 import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
 import net.rodofire.easierworldcreator.util.BlockPlaceUtil;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -40,10 +39,9 @@ import java.util.Optional;
 public class OrderedBlockListManager {
 
     /**
-     * blockData objects
+     * blockData objects, the id of a blockData being its index
      */
-    List<BlockDataKey> state = new ArrayList<>();
-    Object2ShortOpenHashMap<BlockDataKey> blockDataMap = new Object2ShortOpenHashMap<>();
+    BlockDataPalette state = new BlockDataPalette();
 
     Short2ReferenceOpenHashMap<StructurePlacementRuleManager> ruler = new Short2ReferenceOpenHashMap<>();
 
@@ -95,15 +93,7 @@ public class OrderedBlockListManager {
             //we don't use put() to avoid temporary objects allocations.
             // These are done to avoid rehash done when adding into the data,
             // which is not required here thanks to the initialization
-            BlockDataKey blockData = blockList.getBlockData();
-
-            if (!this.blockDataMap.containsKey(blockData)) {
-                short index = (short) this.blockDataMap.size();
-                this.blockDataMap.put(blockData, index);
-                this.state.add(blockData);
-            }
-
-            short index = this.blockDataMap.getShort(blockData);
+            short index = (short) this.state.put(blockList.getBlockData());
             int normalizedIndex = posSize();
             LongArrayList posList = blockList.getPosList();
 
@@ -242,20 +232,20 @@ public class OrderedBlockListManager {
      * Retrieves the first BlockPos in the position map.
      *
      * @return the first BlockPos
-     * @throws java.util.NoSuchElementException if the position map is empty
+     * @throws IndexOutOfBoundsException if the position map is empty
      */
     public long getFirstBlockPos() {
-        return posListOptimized.getFirst();
+        return posListOptimized.getLong(0);
     }
 
     /**
      * Retrieves the last BlockPos in the position map.
      *
      * @return the last BlockPos
-     * @throws java.util.NoSuchElementException if the position map is empty
+     * @throws IndexOutOfBoundsException if the position map is empty
      */
     public long getLastBlockPos() {
-        return posListOptimized.getLast();
+        return posListOptimized.getLong(posListOptimized.size() - 1);
     }
 
     /**
@@ -345,15 +335,15 @@ public class OrderedBlockListManager {
      * @return the first BlockState
      */
     public BlockState getFirstBlockState() {
-        return this.state.getFirst().getState();
+        return this.state.get(0).getState();
     }
 
     public BlockDataKey getFirst() {
-        return this.state.getFirst();
+        return this.state.get(0);
     }
 
     public NbtCompound getFirstCompound() {
-        return this.state.getFirst().getTag();
+        return this.state.get(0).getTag();
     }
 
     /**
@@ -362,15 +352,15 @@ public class OrderedBlockListManager {
      * @return the last BlockState
      */
     public BlockState getLastBlockState() {
-        return this.state.getLast().getState();
+        return this.state.get(this.state.size() - 1).getState();
     }
 
     public BlockDataKey getLast() {
-        return this.state.getLast();
+        return this.state.get(this.state.size() - 1);
     }
 
     public NbtCompound getLastCompound() {
-        return this.state.getLast().getTag();
+        return this.state.get(this.state.size() - 1).getTag();
     }
 
     public void setPosList(LongArrayList posList) {
@@ -383,13 +373,8 @@ public class OrderedBlockListManager {
 
 
     public void put(OrderedBlockListManager comparator) {
-        for (BlockDataKey blockData : comparator.state) {
-            if (!this.blockDataMap.containsKey(blockData)) {
-                short index = (short) this.blockDataMap.size();
-                this.blockDataMap.put(blockData, index);
-                this.state.add(blockData);
-            }
-            short index = this.blockDataMap.getShort(blockData);
+        for (BlockDataKey blockData : comparator.state.getKeys()) {
+            short index = (short) this.state.put(blockData);
 
             for (long pos : comparator.posListOptimized) {
                 //long pos = comparator.posListOptimized.getLong(idx);
@@ -401,17 +386,15 @@ public class OrderedBlockListManager {
     }
 
     public OrderedBlockListManager put(BlockList blockList) {
-        return put(blockList.getState(), blockList.getTag().orElse(null), blockList.getPosList());
+        return put(blockList.getBlockData(), blockList.getPosList());
     }
 
     public OrderedBlockListManager put(BlockState state, NbtCompound tag, LongArrayList posList) {
-        BlockDataKey blockData = new BlockDataKey(state, tag);
-        if (!this.blockDataMap.containsKey(blockData)) {
-            short index = (short) this.blockDataMap.size();
-            this.blockDataMap.put(blockData, index);
-            this.state.add(blockData);
-        }
-        short index = this.blockDataMap.getShort(blockData);
+        return put(BlockDataKey.of(state, tag), posList);
+    }
+
+    public OrderedBlockListManager put(BlockDataKey blockData, LongArrayList posList) {
+        short index = (short) this.state.put(blockData);
 
         Int2ShortOpenHashMap tempStateLinkMap = new Int2ShortOpenHashMap(posList.size());
 
@@ -489,7 +472,7 @@ public class OrderedBlockListManager {
             if (!place(worldAccess, i)) {
                 placed = false;
             } else if (markdirty) {
-                chunkManager.markForUpdate(LongPosHelper.decodeBlockPos(this.posListOptimized.getLong(i)));
+                chunkManager.markForUpdate(LongPosHelper.decodeMutable(this.posListOptimized.getLong(i)));
             }
         }
         return placed;
@@ -497,7 +480,8 @@ public class OrderedBlockListManager {
 
     public boolean placeLastNDelete(StructureWorldAccess world) {
         boolean placed = place(world, posSize() - 1);
-        this.posListOptimized.removeLast();
+        //removeLast() would box the removed pos
+        this.posListOptimized.removeLong(this.posListOptimized.size() - 1);
         return placed;
     }
 
@@ -520,18 +504,20 @@ public class OrderedBlockListManager {
 
         boolean placed;
         if ((placed = place(world, index, Block.FORCE_STATE)) && markDirty) {
-            chunkManager.markForUpdate(LongPosHelper.decodeBlockPos(this.posListOptimized.getLong(index)));
+            chunkManager.markForUpdate(LongPosHelper.decodeMutable(this.posListOptimized.getLong(index)));
         }
         return placed;
     }
 
+    /**
+     * the pos is decoded in the mutable pos of the thread, so nothing is allocated for each block
+     */
     public boolean place(StructureWorldAccess world, int index, int flag) {
-        BlockPos pos = LongPosHelper.decodeBlockPos(this.posListOptimized.getLong(index));
+        BlockPos pos = LongPosHelper.decodeMutable(this.posListOptimized.getLong(index));
         BlockState worldState = world.getBlockState(pos);
 
-        BlockDataKey data = getFromPosIndex(index);
-        Optional<StructurePlacementRuleManager> rule = getPlacementRuleFromPosIndex(index);
-        return worldState.isAir() && BlockPlaceUtil.place(world, pos, data, null, flag);
+        short id = this.posStateLink.get(index);
+        return BlockPlaceUtil.place(world, pos, worldState, this.state.get(id), this.ruler.get(id), flag);
     }
 
     public void init(StructureWorldAccess world) {
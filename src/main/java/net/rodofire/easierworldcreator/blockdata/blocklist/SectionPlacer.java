@@ -0,0 +1,226 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerChunkManager;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.StructureWorldAccess;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.light.ChunkLightProvider;
+import net.minecraft.world.poi.PointOfInterestTypes;
+import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.util.BlockPlaceUtil;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Place {@link BlockList}s by writing directly into the {@link ChunkSection}s instead of calling {@code world.setBlockState()} for every block.
+ * <p>The pos are grouped by section, and the sections of a chunk are placed one after the other:
+ * the chunk is only fetched once, and each section is locked once for all its blocks.
+ * The heightmaps are updated while writing, and when placing in a {@link ServerWorld},
+ * the light and the clients are updated after the section was written.
+ * <p>Like {@link Block#FORCE_STATE}, used by {@link BlockList}, no neighbour is updated.
+ * {@code onBlockAdded()} and {@code onStateReplaced()} are also not called,
+ * except for the blocks having a block entity or a tag, the points of interest, the fluids and the blocks to post-process,
+ * which are placed using the normal way.
+ */
+class SectionPlacer {
+    /**
+     * place every pos of the block lists
+     *
+     * @param world      the world where the blocks will be placed
+     * @param blockLists the block lists to place
+     * @return true if every block was placed
+     */
+    static boolean place(StructureWorldAccess world, List<BlockList> blockLists) {
+        Long2ObjectOpenHashMap<SectionBatch> sections = new Long2ObjectOpenHashMap<>();
+        for (int i = 0; i < blockLists.size(); i++) {
+            LongArrayList posList = blockLists.get(i).getPosList();
+            for (int j = 0; j < posList.size(); j++) {
+                long pos = posList.getLong(j);
+                long section = ChunkSectionPos.asLong(LongPosHelper.decodeX(pos) >> 4, LongPosHelper.decodeY(pos) >> 4, LongPosHelper.decodeZ(pos) >> 4);
+                sections.computeIfAbsent(section, key -> new SectionBatch()).add(pos, i);
+            }
+        }
+
+        //sorting the sections puts the sections of a same chunk one after the other
+        long[] keys = sections.keySet().toLongArray();
+        Arrays.sort(keys);
+
+        ServerWorld serverWorld = world instanceof ServerWorld server ? server : null;
+        boolean placed = true;
+        Chunk chunk = null;
+        long chunkKey = 0;
+        for (long key : keys) {
+            int chunkX = ChunkSectionPos.unpackX(key);
+            int chunkZ = ChunkSectionPos.unpackZ(key);
+            long currentChunk = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+            if (chunk == null || currentChunk != chunkKey) {
+                chunk = canWrite(world, serverWorld, chunkX, chunkZ) ? world.getChunk(chunkX, chunkZ) : null;
+                chunkKey = currentChunk;
+            }
+
+            SectionBatch batch = sections.get(key);
+            if (chunk == null) {
+                //outside the region, the normal way handles it like before
+                placed &= batch.placeEach(world, serverWorld, blockLists);
+                continue;
+            }
+            placed &= placeSection(world, serverWorld, chunk, ChunkSectionPos.unpackY(key), batch, blockLists);
+        }
+        return placed;
+    }
+
+    private static boolean placeSection(StructureWorldAccess world, ServerWorld serverWorld, Chunk chunk, int sectionY, SectionBatch batch, List<BlockList> blockLists) {
+        int sectionIndex = chunk.sectionCoordToIndex(sectionY);
+        if (sectionIndex < 0 || sectionIndex >= chunk.getSectionArray().length)
+            return false;
+
+        ChunkSection section = chunk.getSection(sectionIndex);
+        boolean wasEmpty = section.isEmpty();
+        boolean placed = true;
+        //pos needing the normal way, placed after the section is unlocked
+        SectionBatch deferred = new SectionBatch();
+        //pos to send to the clients and whose light may change
+        LongArrayList changed = serverWorld != null ? new LongArrayList() : null;
+        LongArrayList light = new LongArrayList();
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+        boolean written = false;
+
+        section.lock();
+        try {
+            for (int i = 0; i < batch.positions.size(); i++) {
+                long pos = batch.positions.getLong(i);
+                BlockList blockList = blockLists.get(batch.lists.getInt(i));
+                BlockDataKey data = blockList.getBlockData();
+                BlockState state = data.getState();
+                int x = LongPosHelper.decodeX(pos);
+                int y = LongPosHelper.decodeY(pos);
+                int z = LongPosHelper.decodeZ(pos);
+
+                BlockState oldState = section.getBlockState(x & 15, y & 15, z & 15);
+                //the block is already there, like ProtoChunk.setBlockState(), this is not a failure
+                if (oldState == state)
+                    continue;
+                if (!canReplace(blockList.getRuler(), oldState)) {
+                    placed = false;
+                    continue;
+                }
+                if (needsWorld(world, data, oldState, state, mutable.set(x, y, z))) {
+                    deferred.add(pos, batch.lists.getInt(i));
+                    continue;
+                }
+
+                section.setBlockState(x & 15, y & 15, z & 15, state, false);
+                written = true;
+                for (Map.Entry<Heightmap.Type, Heightmap> heightmap : chunk.getHeightmaps()) {
+                    heightmap.getValue().trackUpdate(x & 15, y, z & 15, state);
+                }
+                if (changed != null) {
+                    changed.add(pos);
+                    if (ChunkLightProvider.needsLightUpdate(chunk, mutable.set(x, y, z), oldState, state))
+                        light.add(pos);
+                }
+            }
+        } finally {
+            section.unlock();
+        }
+
+        if (!deferred.positions.isEmpty()) {
+            placed &= deferred.placeEach(world, serverWorld, blockLists);
+        }
+        if (!written)
+            return placed;
+
+        chunk.setNeedsSaving(true);
+        if (serverWorld == null)
+            return placed;
+        ServerChunkManager chunkManager = serverWorld.getChunkManager();
+        if (wasEmpty != section.isEmpty()) {
+            chunkManager.getLightingProvider().setSectionStatus(ChunkSectionPos.from(chunk.getPos(), sectionY), section.isEmpty());
+        }
+        for (int i = 0; i < changed.size(); i++) {
+            chunkManager.markForUpdate(LongPosHelper.decodeBlockPos(changed.getLong(i), mutable));
+        }
+        //same as WorldChunk.setBlockState(), the sky light sources are refreshed before the light is checked
+        for (int i = 0; i < light.size(); i++) {
+            long pos = light.getLong(i);
+            int x = LongPosHelper.decodeX(pos);
+            int y = LongPosHelper.decodeY(pos);
+            int z = LongPosHelper.decodeZ(pos);
+            chunk.getChunkSkyLight().isSkyLightAccessible(chunk, x & 15, y, z & 15);
+            chunkManager.getLightingProvider().checkBlock(new BlockPos(x, y, z));
+        }
+        return placed;
+    }
+
+    /**
+     * during the world gen, the world is a region of chunks in which only the center chunks can be modified
+     */
+    private static boolean canWrite(StructureWorldAccess world, ServerWorld serverWorld, int chunkX, int chunkZ) {
+        if (serverWorld != null)
+            return true;
+        return world.isChunkLoaded(chunkX, chunkZ) && world.isValidForSetBlock(new BlockPos(chunkX << 4, 0, chunkZ << 4));
+    }
+
+    /**
+     * the blocks that {@code setBlockState()} does more than write:
+     * <p>- the blocks having a block entity or a tag
+     * <p>- the points of interest, registered by {@code world.onBlockChanged()}
+     * <p>- the fluids and the blocks to post-process, like fences and walls, marked by the {@code ChunkRegion}
+     */
+    private static boolean needsWorld(StructureWorldAccess world, BlockDataKey data, BlockState oldState, BlockState state, BlockPos pos) {
+        return data.getTag() != null || state.hasBlockEntity() || oldState.hasBlockEntity()
+                || PointOfInterestTypes.isPointOfInterest(state) || PointOfInterestTypes.isPointOfInterest(oldState)
+                || !state.getFluidState().isEmpty() || state.shouldPostProcess(world, pos);
+    }
+
+    /**
+     * same verification as {@link BlockPlaceUtil#place(StructureWorldAccess, BlockPos, BlockDataKey, StructurePlacementRuleManager, int)}
+     */
+    private static boolean canReplace(StructurePlacementRuleManager ruler, BlockState oldState) {
+        return (ruler != null && ruler.canPlace(oldState)) || oldState.isAir();
+    }
+
+    /**
+     * pos of a section, with the index of the block list of each pos
+     */
+    private static class SectionBatch {
+        private final LongArrayList positions = new LongArrayList();
+        private final IntArrayList lists = new IntArrayList();
+
+        void add(long pos, int list) {
+            positions.add(pos);
+            lists.add(list);
+        }
+
+        /**
+         * place the pos one by one using the world
+         */
+        boolean placeEach(StructureWorldAccess world, ServerWorld serverWorld, List<BlockList> blockLists) {
+            boolean placed = true;
+            for (int i = 0; i < positions.size(); i++) {
+                BlockList blockList = blockLists.get(lists.getInt(i));
+                BlockPos pos = LongPosHelper.decodeBlockPos(positions.getLong(i));
+                if (BlockPlaceUtil.place(world, pos, blockList.getBlockData(), blockList.getRuler(), Block.FORCE_STATE)) {
+                    if (serverWorld != null)
+                        serverWorld.getChunkManager().markForUpdate(pos);
+                } else {
+                    placed = false;
+                }
+            }
+            return placed;
+        }
+    }
+}
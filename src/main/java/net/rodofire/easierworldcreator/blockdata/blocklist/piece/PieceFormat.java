@@ -0,0 +1,112 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist.piece;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Constants and shared helpers of the binary piece format used to save multi-chunk features.
+ * <p>A piece file is structured the following way:
+ * <ul>
+ *     <li>a header: {@link #MAGIC}, {@link #VERSION}, and the chunk the positions are relative to</li>
+ *     <li>a list of palette entries, each one preceded by {@link #ENTRY_MARKER}.
+ *     An entry contains the {@code BlockState}, the optional {@code NbtCompound},
+ *     the placement rules and the positions related to it</li>
+ *     <li>the {@link #END_MARKER}</li>
+ * </ul>
+ * <p>Positions are stored relative to the chunk, sorted and delta-packed into var-longs.
+ * Since that positions of the same state are most of the time next to each other,
+ * most of the positions only take one byte, compared to the dozen of bytes used by the JSON format.
+ */
+public final class PieceFormat {
+    /**
+     * "EWCP" in ASCII
+     */
+    public static final int MAGIC = 0x45574350;
+    public static final byte VERSION = 1;
+    public static final String EXTENSION = ".ewcp";
+    public static final String JSON_EXTENSION = ".json";
+
+    static final byte END_MARKER = 0;
+    static final byte ENTRY_MARKER = 1;
+
+    static final byte FLAG_TAG = 1;
+    static final byte FLAG_RULER = 1 << 1;
+    static final byte FLAG_FORCE = 1 << 2;
+
+    /**
+     * relative x and z are stored on 11 bits, going from -1024 to 1023 blocks relative to the chunk.
+     */
+    static final int XZ_BITS = 11;
+    static final int XZ_OFFSET = 1 << (XZ_BITS - 1);
+    static final long XZ_MASK = (1L << XZ_BITS) - 1;
+    static final int Y_OFFSET = 2048;
+
+    private PieceFormat() {
+    }
+
+    /**
+     * method to know if a path is related to a piece, whatever its format
+     *
+     * @param fileName the name of the file
+     * @return true if the file can be read as a piece
+     */
+    public static boolean isPiece(String fileName) {
+        return fileName.endsWith(EXTENSION) || fileName.endsWith(JSON_EXTENSION);
+    }
+
+    /**
+     * Pack the relative coordinates of a block.
+     * y is put on the high bits, then z, then x so that sorting keys keeps rows contiguous,
+     * resulting in small deltas.
+     */
+    static long pack(int relX, int y, int relZ) {
+        if (relX < -XZ_OFFSET || relX >= XZ_OFFSET || relZ < -XZ_OFFSET || relZ >= XZ_OFFSET) {
+            throw new IllegalArgumentException("pos out of range: [" + relX + ", " + y + ", " + relZ + "]");
+        }
+        return ((long) (y + Y_OFFSET) << (2 * XZ_BITS)) | ((long) (relZ + XZ_OFFSET) << XZ_BITS) | (relX + XZ_OFFSET);
+    }
+
+    static int unpackX(long key) {
+        return (int) (key & XZ_MASK) - XZ_OFFSET;
+    }
+
+    static int unpackZ(long key) {
+        return (int) ((key >> XZ_BITS) & XZ_MASK) - XZ_OFFSET;
+    }
+
+    static int unpackY(long key) {
+        return (int) (key >> (2 * XZ_BITS)) - Y_OFFSET;
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        return (int) readVarLong(in);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift >= 64) {
+                throw new IOException("VarLong too big");
+            }
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
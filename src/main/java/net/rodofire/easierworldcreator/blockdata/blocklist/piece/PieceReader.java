@@ -0,0 +1,137 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist.piece;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.RegistryEntryLookup;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Streaming reader of the binary piece format described in {@link PieceFormat}.
+ * <p>Entries can be read one by one using {@link #next()}, or all at once using {@link #readAll()}.
+ */
+public class PieceReader implements Closeable {
+    private final DataInputStream in;
+    private final RegistryEntryLookup<Block> blockLookup;
+    private final ChunkPos chunkPos;
+    private final int chunkMinX;
+    private final int chunkMinZ;
+    private boolean ended = false;
+
+    /**
+     * init a piece reader. The header is read and verified at the creation of the object
+     *
+     * @param stream the stream of the piece
+     * @param world  the world used to get the registry entries
+     * @throws IOException if the stream is not a piece or if the version is not supported
+     */
+    public PieceReader(InputStream stream, StructureWorldAccess world) throws IOException {
+        this.in = new DataInputStream(stream instanceof BufferedInputStream ? stream : new BufferedInputStream(stream));
+        this.blockLookup = world.createCommandRegistryWrapper(RegistryKeys.BLOCK);
+
+        if (in.readInt() != PieceFormat.MAGIC) {
+            throw new IOException("not an ewc piece");
+        }
+        byte version = in.readByte();
+        if (version < 1 || version > PieceFormat.VERSION) {
+            throw new IOException("unsupported piece version: " + version);
+        }
+        this.chunkPos = new ChunkPos(in.readInt(), in.readInt());
+        this.chunkMinX = chunkPos.x << 4;
+        this.chunkMinZ = chunkPos.z << 4;
+    }
+
+    /**
+     * @return the chunk where the piece is supposed to be placed
+     */
+    public ChunkPos getChunkPos() {
+        return chunkPos;
+    }
+
+    /**
+     * read the next palette entry of the piece
+     *
+     * @return the BlockList related to the entry, or null if every entry was read
+     * @throws IOException if an I/O error occurs
+     */
+    public BlockList next() throws IOException {
+        if (ended)
+            return null;
+        if (in.readByte() != PieceFormat.ENTRY_MARKER) {
+            ended = true;
+            return null;
+        }
+
+        byte flags = in.readByte();
+        BlockState state = NbtHelper.toBlockState(blockLookup, NbtIo.readCompound(in));
+        NbtCompound tag = (flags & PieceFormat.FLAG_TAG) != 0 ? NbtIo.readCompound(in) : null;
+
+        StructurePlacementRuleManager ruler = null;
+        if ((flags & PieceFormat.FLAG_RULER) != 0) {
+            int size = PieceFormat.readVarInt(in);
+            Set<Block> overriddenBlocks = new HashSet<>(size);
+            for (int i = 0; i < size; i++) {
+                overriddenBlocks.add(Registries.BLOCK.get(Identifier.of(in.readUTF())));
+            }
+            ruler = new StructurePlacementRuleManager((flags & PieceFormat.FLAG_FORCE) != 0, overriddenBlocks);
+        }
+
+        BlockList blockList = new BlockList(state, tag, readPositions());
+        blockList.setRuler(ruler);
+        return blockList;
+    }
+
+    private LongArrayList readPositions() throws IOException {
+        int size = PieceFormat.readVarInt(in);
+        LongArrayList posList = new LongArrayList(size);
+        long key = 0;
+        for (int i = 0; i < size; i++) {
+            key += PieceFormat.readVarLong(in);
+            posList.add(LongPosHelper.encodeBlockPos(
+                    PieceFormat.unpackX(key) + chunkMinX,
+                    PieceFormat.unpackY(key),
+                    PieceFormat.unpackZ(key) + chunkMinZ
+            ));
+        }
+        return posList;
+    }
+
+    /**
+     * read every entry left in the piece
+     *
+     * @return the manager containing all the entries
+     * @throws IOException if an I/O error occurs
+     */
+    public BlockListManager readAll() throws IOException {
+        BlockListManager manager = new BlockListManager();
+        BlockList blockList;
+        while ((blockList = next()) != null) {
+            manager.put(blockList);
+        }
+        return manager;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,210 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist.piece;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListHelper;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.util.file.EwcFolderData;
+import net.rodofire.easierworldcreator.util.file.FileUtil;
+import net.rodofire.easierworldcreator.util.file.region.RegionStorage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Class to save and load the pieces of multi-chunk features inside {@link RegionStorage#PIECES}.
+ * <p>Every piece related to a chunk is stored in the same entry of the region, as a sequence of records:
+ * for each piece its name, its length and the piece encoded with {@link PieceWriter}.
+ * <p>Saving a piece only appends its record to the entry using {@link RegionStorage#append(ChunkPos, byte[])},
+ * without reading or rewriting the other pieces.
+ * If a name is present several times, the last record is the one used.
+ * The pieces of a chunk should be taken together using {@link #takeAll(StructureWorldAccess, ChunkPos)}, which decodes the entry once.
+ * <p>Pieces that were saved in the legacy {@code chunk_x_z} directories are still read when they exist.
+ */
+public class PieceStorage {
+    /**
+     * save a piece. If a piece with the same name already exists in the chunk, it will be replaced
+     *
+     * @param chunkPos the chunk where the piece will be placed
+     * @param name     the name of the piece
+     * @param piece    the piece encoded with {@link PieceWriter}
+     */
+    public static void put(ChunkPos chunkPos, String name, byte[] piece) {
+        RegionStorage.PIECES.append(chunkPos, record(name, piece));
+    }
+
+    /**
+     * @param chunkPos the chunk of the pieces
+     * @return true if the chunk has pieces saved in the region storage
+     */
+    public static boolean has(ChunkPos chunkPos) {
+        return RegionStorage.PIECES.has(chunkPos);
+    }
+
+    /**
+     * @param chunkPos the chunk of the pieces
+     * @return the name of every piece saved in the region storage related to the chunk
+     */
+    public static String[] getNames(ChunkPos chunkPos) {
+        if (!has(chunkPos))
+            return new String[0];
+        return decode(RegionStorage.PIECES.read(chunkPos)).keySet().toArray(new String[0]);
+    }
+
+    /**
+     * remove a piece from the region storage
+     *
+     * @param chunkPos the chunk of the piece
+     * @param name     the name of the piece
+     * @return the removed piece, or null if it didn't exist
+     */
+    public static byte[] remove(ChunkPos chunkPos, String name) {
+        if (!has(chunkPos))
+            return null;
+        byte[][] removed = new byte[1][];
+        RegionStorage.PIECES.update(chunkPos, data -> {
+            Map<String, byte[]> pieces = decode(data);
+            removed[0] = pieces.remove(name);
+            return pieces.isEmpty() ? null : encode(pieces);
+        });
+        return removed[0];
+    }
+
+    /**
+     * remove a piece and convert it into a {@link BlockListManager}.
+     * If the piece is still being written by the {@link PieceWriteExecutor}, the method waits until it is available.
+     * If the piece isn't in the region storage, the legacy file will be read and deleted, if it exists and {@link EwcFolderData#hasLegacyPieces()}.
+     *
+     * @param world    the world used to decode the states
+     * @param chunkPos the chunk of the piece
+     * @param name     the name of the piece
+     * @return the manager of the piece, or null if the piece doesn't exist
+     */
+    public static BlockListManager take(StructureWorldAccess world, ChunkPos chunkPos, String name) {
+        PieceWriteExecutor.await(chunkPos, name);
+        byte[] piece = remove(chunkPos, name);
+        if (piece != null) {
+            try (PieceReader reader = new PieceReader(new ByteArrayInputStream(piece), world)) {
+                return reader.readAll();
+            } catch (IOException e) {
+                Ewc.LOGGER.error("failed to read multi-chunk piece {} of chunk {}", name, chunkPos, e);
+                return null;
+            }
+        }
+
+        if (!EwcFolderData.hasLegacyPieces())
+            return null;
+        Path path = EwcFolderData.getPiecePath(chunkPos, name);
+        if (!Files.exists(path))
+            return null;
+        BlockListManager manager = BlockListHelper.fromPath(world, path);
+        FileUtil.removeFile(path);
+        return manager;
+    }
+
+    /**
+     * remove every piece of a chunk and convert them into {@link BlockListManager}.
+     * The pieces still being written by the {@link PieceWriteExecutor} are awaited, and the entry of the chunk is only read and decoded once.
+     * The legacy files aren't read.
+     *
+     * @param world    the world used to decode the states
+     * @param chunkPos the chunk of the pieces
+     * @return the managers of the pieces by name, in the order they were saved
+     */
+    public static Map<String, BlockListManager> takeAll(StructureWorldAccess world, ChunkPos chunkPos) {
+        PieceWriteExecutor.awaitAll(chunkPos);
+        return readAll(world, chunkPos, removeAll(chunkPos));
+    }
+
+    /**
+     * remove the entry of a chunk from the region storage, without awaiting the pieces being written nor decoding them.
+     * Only the region is accessed, making it short enough to be done while holding the lock of the chunk.
+     *
+     * @param chunkPos the chunk of the pieces
+     * @return the removed entry, to give to {@link #readAll(StructureWorldAccess, ChunkPos, byte[])}, or null if the chunk has no piece
+     */
+    public static byte[] removeAll(ChunkPos chunkPos) {
+        if (!has(chunkPos))
+            return null;
+        byte[][] removed = new byte[1][];
+        RegionStorage.PIECES.update(chunkPos, data -> {
+            removed[0] = data;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * convert an entry removed with {@link #removeAll(ChunkPos)} into {@link BlockListManager}
+     *
+     * @param world    the world used to decode the states
+     * @param chunkPos the chunk of the pieces
+     * @param data     the removed entry, can be null
+     * @return the managers of the pieces by name, in the order they were saved
+     */
+    public static Map<String, BlockListManager> readAll(StructureWorldAccess world, ChunkPos chunkPos, byte[] data) {
+        Map<String, BlockListManager> managers = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : decode(data).entrySet()) {
+            try (PieceReader reader = new PieceReader(new ByteArrayInputStream(entry.getValue()), world)) {
+                managers.put(entry.getKey(), reader.readAll());
+            } catch (IOException e) {
+                Ewc.LOGGER.error("failed to read multi-chunk piece {} of chunk {}", entry.getKey(), chunkPos, e);
+            }
+        }
+        return managers;
+    }
+
+    private static byte[] record(String name, byte[] piece) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream(piece.length + name.length() + 6);
+        try (DataOutputStream out = new DataOutputStream(stream)) {
+            writeRecord(out, name, piece);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.toByteArray();
+    }
+
+    private static void writeRecord(DataOutputStream out, String name, byte[] piece) throws IOException {
+        out.writeUTF(name);
+        out.writeInt(piece.length);
+        out.write(piece);
+    }
+
+    private static Map<String, byte[]> decode(byte[] data) {
+        Map<String, byte[]> pieces = new LinkedHashMap<>();
+        if (data == null)
+            return pieces;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            while (in.available() > 0) {
+                String name = in.readUTF();
+                byte[] piece = new byte[in.readInt()];
+                in.readFully(piece);
+                pieces.put(name, piece);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return pieces;
+    }
+
+    private static byte[] encode(Map<String, byte[]> pieces) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(stream)) {
+            for (Map.Entry<String, byte[]> entry : pieces.entrySet()) {
+                writeRecord(out, entry.getKey(), entry.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,222 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist.piece;
+
+import net.minecraft.util.math.ChunkPos;
+import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Bounded write-behind executor used to save the pieces of multi-chunk features without blocking the world-gen threads.
+ * <p>When a piece is registered, a "piece available" future is registered for its chunk and its name.
+ * The chunk generation only awaits this future if it actually needs the piece, using {@link #await(ChunkPos, String)}
+ * or {@link #awaitAll(ChunkPos)}.
+ * <p>The queue is bounded: when too many pieces are waiting to be written, the thread executing the piece writes it itself.
+ * This slows down the generation of the features instead of keeping an unbounded amount of pieces in memory.
+ * <p>That's why registering a piece and executing it are two steps: {@link #register(ChunkPos, String, Runnable)} is cheap
+ * and can be done while holding a lock, while {@link #execute(PendingWrite)} may compute and write the piece on the calling thread,
+ * and must be called once every lock is released.
+ * <p>The number of writing threads is defined by {@link EwcConfig#getPieceWriterThreads()}.
+ */
+public class PieceWriteExecutor {
+    private static final int QUEUE_SIZE = 64;
+    private static volatile ThreadPoolExecutor executor;
+
+    /**
+     * pieces that are being written, by chunk and by name
+     */
+    private static final Map<Long, Map<String, CompletableFuture<Void>>> PENDING = new ConcurrentHashMap<>();
+
+    /**
+     * start the writers using the number of threads defined in the config. Nothing is done if they are already started
+     */
+    public static void start() {
+        start(EwcConfig.getPieceWriterThreads());
+    }
+
+    /**
+     * start the writers. Nothing is done if they are already started
+     *
+     * @param threads the number of writing threads. If 0, a quarter of the number of processors is used
+     */
+    public static synchronized void start(int threads) {
+        if (executor != null)
+            return;
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+        }
+        executor = createExecutor(threads);
+    }
+
+    /**
+     * @return the executor, started with the default number of threads if {@link #start()} wasn't called
+     */
+    private static ThreadPoolExecutor getExecutor() {
+        ThreadPoolExecutor current = executor;
+        if (current == null) {
+            start(0);
+            current = executor;
+        }
+        return current;
+    }
+
+    private static ThreadPoolExecutor createExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "ewc-piece-writer-" + count.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                //backpressure: the caller writes the piece when the queue is full
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * register and execute a piece to be written.
+     * Since the piece may be written by the calling thread, this must not be called while holding a lock,
+     * use {@link #register(ChunkPos, String, Runnable)} under the lock and {@link #execute(PendingWrite)} after instead.
+     *
+     * @param chunkPos the chunk where the piece will be placed
+     * @param name     the name of the piece
+     * @param write    the task writing the piece
+     * @return the future completed when the piece is available
+     */
+    public static CompletableFuture<Void> submit(ChunkPos chunkPos, String name, Runnable write) {
+        PendingWrite pending = register(chunkPos, name, write);
+        execute(pending);
+        return pending.future;
+    }
+
+    /**
+     * register a piece as being written, without writing it.
+     * From now on, {@link #await(ChunkPos, String)} and {@link #awaitAll(ChunkPos)} wait for the piece.
+     * The returned write must always be given to {@link #execute(PendingWrite)}, or the piece will be awaited forever.
+     *
+     * @param chunkPos the chunk where the piece will be placed
+     * @param name     the name of the piece
+     * @param write    the task writing the piece
+     * @return the write to execute
+     */
+    public static PendingWrite register(ChunkPos chunkPos, String name, Runnable write) {
+        PendingWrite pending = new PendingWrite(chunkPos, name, write);
+        //registered inside compute() so that a writer removing the last piece of the chunk can't orphan the map
+        PENDING.compute(pending.key, (k, pieces) -> {
+            pieces = pieces == null ? new ConcurrentHashMap<>() : pieces;
+            pieces.put(name, pending.future);
+            return pieces;
+        });
+        return pending;
+    }
+
+    /**
+     * write a registered piece in the background.
+     * When the queue is full, the piece is written by the calling thread, meaning that this must not be called while holding a lock.
+     *
+     * @param pending the write returned by {@link #register(ChunkPos, String, Runnable)}
+     */
+    public static void execute(PendingWrite pending) {
+        getExecutor().execute(pending::run);
+    }
+
+    /**
+     * @param chunkPos the chunk of the pieces
+     * @return true if a piece of the chunk is registered and not written yet
+     */
+    public static boolean isPending(ChunkPos chunkPos) {
+        return PENDING.containsKey(chunkPos.toLong());
+    }
+
+    /**
+     * wait until the piece is written. Returns immediately if the piece isn't being written
+     *
+     * @param chunkPos the chunk of the piece
+     * @param name     the name of the piece
+     */
+    public static void await(ChunkPos chunkPos, String name) {
+        Map<String, CompletableFuture<Void>> pieces = PENDING.get(chunkPos.toLong());
+        if (pieces == null)
+            return;
+        CompletableFuture<Void> future = pieces.get(name);
+        if (future != null) {
+            future.join();
+        }
+    }
+
+    /**
+     * wait until every piece related to the chunk is written
+     *
+     * @param chunkPos the chunk of the pieces
+     */
+    public static void awaitAll(ChunkPos chunkPos) {
+        Map<String, CompletableFuture<Void>> pieces = PENDING.get(chunkPos.toLong());
+        if (pieces == null)
+            return;
+        CompletableFuture.allOf(pieces.values().toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * wait until every submitted piece is written
+     */
+    public static void flush() {
+        for (Map<String, CompletableFuture<Void>> pieces : PENDING.values()) {
+            CompletableFuture.allOf(pieces.values().toArray(new CompletableFuture[0])).join();
+        }
+    }
+
+    /**
+     * @return the number of pieces waiting to be written
+     */
+    public static int getQueueSize() {
+        ThreadPoolExecutor current = executor;
+        return current == null ? 0 : current.getQueue().size();
+    }
+
+    /**
+     * a piece registered but not written yet
+     */
+    public static final class PendingWrite {
+        private final ChunkPos chunkPos;
+        private final long key;
+        private final String name;
+        private final Runnable write;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private PendingWrite(ChunkPos chunkPos, String name, Runnable write) {
+            this.chunkPos = chunkPos;
+            this.key = chunkPos.toLong();
+            this.name = name;
+            this.write = write;
+        }
+
+        /**
+         * @return the future completed when the piece is available
+         */
+        public CompletableFuture<Void> getFuture() {
+            return future;
+        }
+
+        private void run() {
+            try {
+                write.run();
+            } catch (Exception e) {
+                Ewc.LOGGER.error("failed to write multi-chunk piece {} of chunk {}", name, chunkPos, e);
+            } finally {
+                PENDING.computeIfPresent(key, (k, pieces) -> {
+                    pieces.remove(name, future);
+                    return pieces.isEmpty() ? null : pieces;
+                });
+                future.complete(null);
+            }
+        }
+    }
+}
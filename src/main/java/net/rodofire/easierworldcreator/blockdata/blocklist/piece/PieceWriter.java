@@ -0,0 +1,140 @@
+package net.rodofire.easierworldcreator.blockdata.blocklist.piece;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.block.Block;
+import net.minecraft.nbt.NbtHelper;
+import net.minecraft.nbt.NbtIo;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.ChunkPos;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Streaming writer of the binary piece format described in {@link PieceFormat}.
+ * <p>BlockLists are written one after the other, meaning that the whole piece never needs to be converted in memory
+ * like it was the case with the JSON format.
+ * <pre>{@code
+ * try (PieceWriter writer = new PieceWriter(Files.newOutputStream(path), chunkPos, offset)) {
+ *     writer.write(manager);
+ * }
+ * }</pre>
+ */
+public class PieceWriter implements Closeable {
+    private final DataOutputStream out;
+    private final int originX;
+    private final int originZ;
+    private boolean closed = false;
+
+    /**
+     * init a piece writer
+     *
+     * @param stream   the stream where the piece will be written
+     * @param chunkPos the chunkPos of the piece. Positions will be written relative to this chunk
+     * @param offset   the offset applied to the piece when it will be read
+     * @throws IOException if the header cannot be written
+     */
+    public PieceWriter(OutputStream stream, ChunkPos chunkPos, ChunkPos offset) throws IOException {
+        this.out = new DataOutputStream(stream instanceof BufferedOutputStream ? stream : new BufferedOutputStream(stream));
+        this.originX = chunkPos.x << 4;
+        this.originZ = chunkPos.z << 4;
+
+        out.writeInt(PieceFormat.MAGIC);
+        out.writeByte(PieceFormat.VERSION);
+        out.writeInt(chunkPos.x + offset.x);
+        out.writeInt(chunkPos.z + offset.z);
+    }
+
+    public PieceWriter(OutputStream stream, ChunkPos chunkPos) throws IOException {
+        this(stream, chunkPos, new ChunkPos(0, 0));
+    }
+
+    public PieceWriter write(BlockListManager manager) throws IOException {
+        for (BlockList blockList : manager.getAllBlockList()) {
+            write(blockList);
+        }
+        return this;
+    }
+
+    /**
+     * write a palette entry and all the positions related to it
+     *
+     * @param blockList the blockList to write
+     * @return the instance of the writer
+     * @throws IOException if an I/O error occurs
+     */
+    public PieceWriter write(BlockList blockList) throws IOException {
+        if (blockList.size() == 0) {
+            return this;
+        }
+        out.writeByte(PieceFormat.ENTRY_MARKER);
+
+        StructurePlacementRuleManager ruler = blockList.getRuler();
+        byte flags = 0;
+        if (blockList.getTag().isPresent()) flags |= PieceFormat.FLAG_TAG;
+        if (ruler != null) {
+            flags |= PieceFormat.FLAG_RULER;
+            if (ruler.isForce()) flags |= PieceFormat.FLAG_FORCE;
+        }
+        out.writeByte(flags);
+
+        NbtIo.write(NbtHelper.fromBlockState(blockList.getState()), out);
+        if (blockList.getTag().isPresent()) {
+            NbtIo.write(blockList.getTag().get(), out);
+        }
+        if (ruler != null) {
+            PieceFormat.writeVarInt(out, ruler.getOverriddenBlocks().size());
+            for (Block block : ruler.getOverriddenBlocks()) {
+                out.writeUTF(Registries.BLOCK.getId(block).toString());
+            }
+        }
+
+        writePositions(blockList.getPosList());
+        return this;
+    }
+
+    private void writePositions(LongArrayList posList) throws IOException {
+        int size = posList.size();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long pos = posList.getLong(i);
+            keys[i] = PieceFormat.pack(
+                    LongPosHelper.decodeX(pos) - originX,
+                    LongPosHelper.decodeY(pos),
+                    LongPosHelper.decodeZ(pos) - originZ
+            );
+        }
+        Arrays.sort(keys);
+
+        PieceFormat.writeVarInt(out, size);
+        long previous = 0;
+        for (long key : keys) {
+            PieceFormat.writeVarLong(out, key - previous);
+            previous = key;
+        }
+    }
+
+    /**
+     * write the end marker and close the underlying stream
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            out.writeByte(PieceFormat.END_MARKER);
+            out.flush();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -26,6 +26,10 @@ public class BlockLayer {
 
     private StructurePlacementRuleManager ruler;
     private LayerPlacer placer;
+    /**
+     * compiled lazily, reset every time the states or the chances change
+     */
+    private BlockPalette palette;
 
     /**
      * init the BlockLayer
@@ -241,6 +245,22 @@ public class BlockLayer {
         return state;
     }
 
+    /**
+     * <p>Method used to get the {@link BlockPalette} of the layer, which chooses the states using their chances
+     * without creating the list of {@link #getBlockStates()}.
+     * <p>The palette is compiled once and kept until the states of the layer change.
+     *
+     * @return the palette of the layer
+     */
+    public BlockPalette getPalette() {
+        BlockPalette palette = this.palette;
+        if (palette == null) {
+            palette = new BlockPalette(this.blockStates, this.chances);
+            this.palette = palette;
+        }
+        return palette;
+    }
+
     /**
      * method to get the blockState as well as his chance
      *
@@ -260,6 +280,7 @@ public class BlockLayer {
      * @param blocks change the BlockStates of a layer
      */
     public void setBlockStates(List<BlockState> blocks) {
+        this.palette = null;
         this.blockStates = new ArrayList<>(blocks);
         chances = new ArrayList<>();
         for (int i = 0; i < blocks.size(); i++) {
@@ -273,6 +294,7 @@ public class BlockLayer {
      * @param state BlockState to be added
      */
     public void addBlockState(BlockState state) {
+        this.palette = null;
         this.blockStates.add(state);
         this.chances.add((short) 1);
     }
@@ -283,6 +305,7 @@ public class BlockLayer {
      * @param states List of BlockState to be added
      */
     public void addBlockStates(List<BlockState> states) {
+        this.palette = null;
         this.blockStates.addAll(states);
         for (int i = 0; i < states.size(); i++) {
             this.chances.add((short) 1);
@@ -296,6 +319,7 @@ public class BlockLayer {
      * @param chance the chance of a blockState being chosen
      */
     public void addBlockState(BlockState state, short chance) {
+        this.palette = null;
         this.blockStates.add(state);
         this.chances.add(chance);
     }
@@ -308,6 +332,7 @@ public class BlockLayer {
      * @throws IndexOutOfBoundsException in the case, the chance list has a size inferior to the BlockStates chance.
      */
     public void addBlockStates(List<BlockState> states, List<Short> chances) {
+        this.palette = null;
         this.blockStates.addAll(states);
         for (int i = 0; i < states.size(); i++) {
             this.chances.add(chances.get(i));
@@ -320,6 +345,7 @@ public class BlockLayer {
      * @param state list of BlockStates that will be removed
      */
     public void removeBlockState(List<BlockState> state) {
+        this.palette = null;
         for (BlockState blockState : state) {
             this.chances.remove(this.blockStates.indexOf(blockState));
         }
@@ -332,6 +358,7 @@ public class BlockLayer {
      * @param state BlockState that will be removed
      */
     public void removeBlockState(BlockState state) {
+        this.palette = null;
         this.chances.remove(this.blockStates.indexOf(state));
         this.blockStates.remove(state);
     }
@@ -342,6 +369,7 @@ public class BlockLayer {
      * @param index remove the BlockState at the index
      */
     public void removeBlockState(int index) {
+        this.palette = null;
         this.chances.remove(index);
         this.blockStates.remove(index);
     }
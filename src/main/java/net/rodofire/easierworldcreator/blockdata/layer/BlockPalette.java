@@ -0,0 +1,133 @@
+package net.rodofire.easierworldcreator.blockdata.layer;
+
+import net.minecraft.block.BlockState;
+import net.rodofire.easierworldcreator.util.BlockPlaceUtil;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * <p>Compiled version of the states of a {@link BlockLayer} and of their chances.
+ * <p>Each state covers a range of weights, whose length is its chance:
+ * with the states {@code [stone, dirt]} and the chances {@code [3, 1]}, the weights 0, 1 and 2 give stone and the weight 3 gives dirt.
+ * It is the same as the list returned by {@link BlockLayer#getBlockStates()} where each state is repeated n times,
+ * without creating the list.
+ * <p>A guide table gives for every bucket of weights the first state of the bucket,
+ * so finding the state of a weight only needs a few comparisons, whatever the number of states.
+ * <p>The palette is immutable and can be shared between threads.
+ */
+public class BlockPalette {
+    private static final int MAX_BUCKETS = 1024;
+
+    private final BlockState[] states;
+    /**
+     * the first weight of the next state, the last one being the total weight
+     */
+    private final int[] ends;
+    private final int totalWeight;
+    private final int[] guide;
+
+    /**
+     * compile the palette
+     *
+     * @param states  the states of the palette
+     * @param chances the chance of the related state, the states with a chance inferior or equal to 0 are never chosen
+     * @throws IllegalArgumentException if no state can be chosen
+     */
+    public BlockPalette(List<BlockState> states, List<Short> chances) {
+        int size = 0;
+        int total = 0;
+        for (int i = 0; i < states.size(); i++) {
+            if (chances.get(i) > 0) {
+                size++;
+                total += chances.get(i);
+            }
+        }
+        if (size == 0)
+            throw new IllegalArgumentException("a palette needs at least one state with a positive chance");
+
+        this.states = new BlockState[size];
+        this.ends = new int[size];
+        int index = 0;
+        int end = 0;
+        for (int i = 0; i < states.size(); i++) {
+            short chance = chances.get(i);
+            if (chance <= 0)
+                continue;
+            end += chance;
+            this.states[index] = states.get(i);
+            this.ends[index] = end;
+            index++;
+        }
+        this.totalWeight = total;
+
+        this.guide = new int[Math.min(total, MAX_BUCKETS)];
+        int state = 0;
+        for (int bucket = 0; bucket < guide.length; bucket++) {
+            int firstWeight = (int) ((long) bucket * total / guide.length);
+            while (ends[state] <= firstWeight) {
+                state++;
+            }
+            guide[bucket] = state;
+        }
+    }
+
+    /**
+     * @return the number of states that can be chosen
+     */
+    public int size() {
+        return states.length;
+    }
+
+    /**
+     * @return the sum of the chances
+     */
+    public int getTotalWeight() {
+        return totalWeight;
+    }
+
+    public BlockState getFirst() {
+        return states[0];
+    }
+
+    /**
+     * @param weight the weight, between 0 and {@link #getTotalWeight()} - 1
+     * @return the state covering the weight
+     */
+    public BlockState get(int weight) {
+        int state = guide[(int) ((long) weight * guide.length / totalWeight)];
+        while (ends[state] <= weight) {
+            state++;
+        }
+        return states[state];
+    }
+
+    /**
+     * @return a random state, using the chances
+     */
+    public BlockState getRandom() {
+        if (states.length == 1)
+            return states[0];
+        return get(ThreadLocalRandom.current().nextInt(totalWeight));
+    }
+
+    /**
+     * the noise is divided into ranges proportional to the chances, so that close values give the same state
+     *
+     * @param noise the value of the noise, between -1 and 1
+     * @return the state related to the noise
+     */
+    public BlockState getWithNoise(double noise) {
+        int weight = (int) Math.floor((noise + 1) * totalWeight / 2.0);
+        return get(Math.clamp(weight, 0, totalWeight - 1));
+    }
+
+    /**
+     * @return the state related to the hash of the seed and the pos, see {@link BlockPlaceUtil#getHashIndex(int, long, int, int, int)}
+     */
+    public BlockState getWithHash(long seed, int x, int y, int z) {
+        if (states.length == 1)
+            return states[0];
+        return get(BlockPlaceUtil.getHashIndex(totalWeight, seed, x, y, z));
+    }
+}
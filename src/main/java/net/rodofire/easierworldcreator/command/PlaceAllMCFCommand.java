@@ -12,9 +12,12 @@ import net.minecraft.text.Text;
 import net.minecraft.util.math.ChunkPos;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListHelper;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceStorage;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriteExecutor;
 import net.rodofire.easierworldcreator.util.ChunkUtil;
 import net.rodofire.easierworldcreator.util.file.EwcFolderData;
 import net.rodofire.easierworldcreator.util.file.FileUtil;
+import net.rodofire.easierworldcreator.util.file.region.RegionStorage;
 
 import java.io.IOException;
 import java.nio.file.Files;
@@ -35,6 +38,16 @@ public class PlaceAllMCFCommand {
     public static int run(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
         Path path = EwcFolderData.getStructuresDirectory();
         if (context.getSource().hasPermissionLevel(2)) {
+            PieceWriteExecutor.flush();
+            for (ChunkPos chunkPos : RegionStorage.PIECES.getChunks()) {
+                if (!ChunkUtil.isFeaturesGenerated(context.getSource().getWorld(), chunkPos)) {
+                    continue;
+                }
+                for (BlockListManager manager : PieceStorage.takeAll(context.getSource().getWorld(), chunkPos).values()) {
+                    manager.placeAllNDelete(context.getSource().getWorld());
+                }
+            }
+
             try (Stream<Path> paths = Files.list(path)) {
                 paths.forEach(filePath -> {
                     String fileName = filePath.getFileName().toString();
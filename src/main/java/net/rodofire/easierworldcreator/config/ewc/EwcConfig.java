@@ -25,6 +25,15 @@ public class EwcConfig {
         SERVER_CATEGORY.addBoolean(new BooleanConfigObject(true, "chat_warns"));
         SERVER_CATEGORY.addBoolean(new BooleanConfigObject(true, "log_warns"));
         SERVER_CATEGORY.addBoolean(new BooleanConfigObject(true, "log_performance_info"));
+        SERVER_CATEGORY.addBoolean(new BooleanConfigObject(false, "readable_multi_chunk_files"));
+
+        IntegerConfigObject workerThreads = new IntegerConfigObject(0, 0, 64, "worker_threads");
+        workerThreads.requireRestart = true;
+        SERVER_CATEGORY.addInt(workerThreads);
+
+        IntegerConfigObject pieceWriterThreads = new IntegerConfigObject(0, 0, 16, "piece_writer_threads");
+        pieceWriterThreads.requireRestart = true;
+        SERVER_CATEGORY.addInt(pieceWriterThreads);
 
         /*IntegerConfigObject integerConfigObject = new IntegerConfigObject(1, 1, 4, "features_chunk_distance", "define how much chunks can be acced by feature generation");
         integerConfigObject.requireRestart = true;
@@ -60,6 +69,24 @@ public class EwcConfig {
         return MOD_CONFIG.getCategory(SERVER).getBools().get("log_performance_info").getActualValue();
     }
 
+    public static boolean getReadableMultiChunkFiles() {
+        return MOD_CONFIG.getCategory(SERVER).getBools().get("readable_multi_chunk_files").getActualValue();
+    }
+
+    /**
+     * @return the number of threads used by the mod. 0 means that the number is determined by the number of processors
+     */
+    public static int getWorkerThreads() {
+        return MOD_CONFIG.getCategory(SERVER).getInts().get("worker_threads").getActualValue();
+    }
+
+    /**
+     * @return the number of threads writing the multi-chunk pieces. 0 means that a quarter of the processors is used
+     */
+    public static int getPieceWriterThreads() {
+        return MOD_CONFIG.getCategory(SERVER).getInts().get("piece_writer_threads").getActualValue();
+    }
+
     public static int getFeaturesChunkDistance() {
         /*if (MOD_CONFIG.isConfigProtected())
             return distance;
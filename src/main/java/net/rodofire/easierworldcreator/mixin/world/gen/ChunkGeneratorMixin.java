@@ -10,10 +10,15 @@ import net.minecraft.world.gen.chunk.ChunkGenerator;
 import net.minecraft.world.gen.feature.PlacedFeature;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListHelper;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceStorage;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriteExecutor;
+import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
 import net.rodofire.easierworldcreator.shape.block.placer.WGShapeHandler;
 import net.rodofire.easierworldcreator.shape.block.placer.WGShapePlacerManager;
 import net.rodofire.easierworldcreator.util.file.EwcFolderData;
 import net.rodofire.easierworldcreator.util.file.FileUtil;
+import net.rodofire.easierworldcreator.world.chunk.ChunkLocks;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Unique;
 import org.spongepowered.asm.mixin.injection.At;
@@ -23,8 +28,10 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Stream;
 
 /**
@@ -32,56 +39,58 @@ import java.util.stream.Stream;
  */
 @Mixin(ChunkGenerator.class)
 public abstract class ChunkGeneratorMixin {
+    /**
+     * The chunk generator is shared between the worker threads generating the chunks,
+     * the state related to the chunk being generated must then be kept per thread.
+     */
     @Unique
-    WGShapePlacerManager[] placerManagers;
+    private static final ThreadLocal<WGShapePlacerManager[]> PLACER_MANAGERS = ThreadLocal.withInitial(() -> new WGShapePlacerManager[0]);
 
     @Unique
-    PlacedFeature old;
+    private static final ThreadLocal<PlacedFeature> OLD_FEATURE = new ThreadLocal<>();
 
     /**
      * We initialize the placer manager that will define how each piece should be placed
      */
     @Inject(method = "generateFeatures", at = @At(value = "HEAD"))
     private void initShapeHandler(StructureWorldAccess world, Chunk chunk, StructureAccessor structureAccessor, CallbackInfo ci) {
-        Set<WGShapePlacerManager> shapePlacer = new HashSet<>();
+        List<WGShapePlacerManager> shapePlacer = new ArrayList<>();
         for (int i = -1; i <= 1; i++) {
             for (int j = -1; j <= 1; j++) {
                 ChunkPos pos = new ChunkPos(chunk.getPos().x + i, chunk.getPos().z + j);
-                shapePlacer.add(WGShapeHandler.decodeInformation(pos));
+                WGShapePlacerManager placerManager = WGShapeHandler.decodeInformation(pos);
+                if (placerManager != null) {
+                    shapePlacer.add(placerManager);
+                }
             }
         }
 
-        placerManagers = shapePlacer.toArray(new WGShapePlacerManager[0]);
+        PLACER_MANAGERS.set(shapePlacer.toArray(new WGShapePlacerManager[0]));
+        OLD_FEATURE.remove();
     }
 
 
     @Inject(method = "generateFeatures", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/gen/StructureAccessor;shouldGenerateStructures()Z"))
     private void onGenerationStep(StructureWorldAccess world, Chunk chunk, StructureAccessor structureAccessor, CallbackInfo ci, @Local(ordinal = 2) int k) {
-        for (WGShapePlacerManager placerManager : placerManagers) {
-            if (placerManager == null) return;
-
-            if (k >= GenerationStep.Feature.values().length) {
-                return;
-            }
-
-            Path[] paths = placerManager.getToPlace(GenerationStep.Feature.values()[k]);
-            for (Path path : paths) {
-                world.setCurrentlyGeneratingStructureName(() -> "\n\t-ewc multi-chunk feature generating: \n\t\t- " + path.getFileName() + "\n\t\t - step : generation step");
-                BlockListManager manager = BlockListHelper.fromJsonPath(world, path);
+        if (k >= GenerationStep.Feature.values().length) {
+            return;
+        }
+        for (WGShapePlacerManager placerManager : PLACER_MANAGERS.get()) {
+            String[] names = placerManager.getToPlace(GenerationStep.Feature.values()[k]);
+            for (String name : names) {
+                world.setCurrentlyGeneratingStructureName(() -> "\n\t-ewc multi-chunk feature generating: \n\t\t- " + name + "\n\t\t - step : generation step");
+                BlockListManager manager = PieceStorage.take(world, placerManager.getChunkPos(), name);
                 if (manager == null) continue;
-                manager.placeAllNDelete(world);
-                FileUtil.removeFile(path);
+                manager.placeAllNDeleteFast(world);
             }
         }
     }
 
 
     /**
-     * <p>The method verifies
-     * if there are some files under {@code [save name]/generated/easierworldcreator/structures/chunk_[chunk.x]_[chunk.z].}
-     * <p>If yes, for every file, it will get every BlockList of the JSON file.
-     * Then it will place every block of the BlockList and will then remove the file.
-     * When everything is done, it will remove the chunk folder
+     * <p>The method gets the pieces that should be placed after the previous feature or before the current one.
+     * <p>For every piece, it will get every BlockList of the piece from the {@link PieceStorage}.
+     * Then it will place every block of the BlockList and the piece will be removed from the storage.
      * <p>Else, it will continue the normal generation.
      *
      * @param world             the world of the chunk
@@ -91,21 +100,19 @@ public abstract class ChunkGeneratorMixin {
      */
     @Inject(method = "generateFeatures", at = @At(value = "INVOKE", target = "Lnet/minecraft/world/StructureWorldAccess;setCurrentlyGeneratingStructureName(Ljava/util/function/Supplier;)V", ordinal = 1))
     private void onFeatureGenerated(StructureWorldAccess world, Chunk chunk, StructureAccessor structureAccessor, CallbackInfo ci, @Local PlacedFeature placedFeature) {
-        for (WGShapePlacerManager placerManager : placerManagers) {
-            if (placerManager == null) return;
-            Path[] paths = placerManager.getToPlace(old, placedFeature);
-            for (Path path : paths) {
-                world.setCurrentlyGeneratingStructureName(() -> "\n\t-ewc multi-chunk feature generating: \n\t\t- " + path.getFileName() + "\n\t\t - step : feature");
-                BlockListManager comparator = BlockListHelper.fromJsonPath(world, path);
+        for (WGShapePlacerManager placerManager : PLACER_MANAGERS.get()) {
+            String[] names = placerManager.getToPlace(OLD_FEATURE.get(), placedFeature);
+            for (String name : names) {
+                world.setCurrentlyGeneratingStructureName(() -> "\n\t-ewc multi-chunk feature generating: \n\t\t- " + name + "\n\t\t - step : feature");
+                BlockListManager comparator = PieceStorage.take(world, placerManager.getChunkPos(), name);
                 if (comparator == null) {
                     continue;
                 }
-                comparator.placeAllNDelete(world);
-                FileUtil.removeFile(path);
+                comparator.placeAllNDeleteFast(world);
             }
         }
 
-        old = placedFeature;
+        OLD_FEATURE.set(placedFeature);
     }
 
     /**
@@ -123,40 +130,93 @@ public abstract class ChunkGeneratorMixin {
         for (int i = -1; i <= 1; i++) {
             for (int j = -1; j <= 1; j++) {
                 ChunkPos pos = new ChunkPos(chunk.getPos().x + i, chunk.getPos().z + j);
-                Path basePaths = EwcFolderData.getStructureDataDir(pos);
-                try (Stream<Path> paths = Files.list(basePaths)) {
-                    paths.forEach(path -> {
-                        if (path.toString().endsWith(".json")) {
-                            BlockListManager manager = BlockListHelper.fromJsonPath(world, path);
-                            if (manager == null) return;
-
-                            world.setCurrentlyGeneratingStructureName(() ->
-                                    "\n| ewc multi-chunk feature generating: "
-                                            + "\n\t- step: end generation"
-                                            + "\n\t- center chunkPos: " + chunk.getPos().toString()
-                                            + "\n\t- parent directory: " + path.getParent().getFileName().toString()
-                                            + "\n\t- generating: " + path.getFileName()
-                            );
-                            manager.placeAllNDelete(world);
-                            FileUtil.removeFile(path);
-                        }
-                    });
-                } catch (Exception e) {
-                    e.fillInStackTrace();
+                Map<String, BlockListManager> pieces = PieceStorage.readAll(world, pos, takePieces(pos));
+
+                for (Map.Entry<String, BlockListManager> piece : pieces.entrySet()) {
+                    String name = piece.getKey();
+                    BlockListManager manager = piece.getValue();
+                    world.setCurrentlyGeneratingStructureName(() ->
+                            "\n| ewc multi-chunk feature generating: "
+                                    + "\n\t- step: end generation"
+                                    + "\n\t- center chunkPos: " + chunk.getPos().toString()
+                                    + "\n\t- piece chunkPos: " + pos
+                                    + "\n\t- generating: " + name
+                    );
+                    manager.placeAllNDeleteFast(world);
                 }
-                try {
-                    Files.delete(basePaths);
-                } catch (IOException e) {
-                    e.fillInStackTrace();
+                if (EwcFolderData.hasLegacyPieces()) {
+                    placeLegacyPieces(world, chunk, pos);
                 }
             }
         }
 
-        Path managerPath = EwcFolderData.getStructureReference(chunk.getPos());
+        ReentrantLock lock = ChunkLocks.get(chunk.getPos());
+        lock.lock();
         try {
-            Files.delete(managerPath);
+            WGShapeHandler.removeInformation(chunk.getPos());
+        } finally {
+            lock.unlock();
+        }
+        PLACER_MANAGERS.remove();
+        OLD_FEATURE.remove();
+    }
+
+    /**
+     * <p>Remove the entry of the pieces of a chunk from the storage.
+     * <p>The pieces being written are awaited before taking the lock, since their writes can't be executed while it is held.
+     * The entry is then removed while holding the lock, so that a piece being saved by another thread is either taken here or saved after.
+     * If a piece was registered in the meantime, the lock is released and the piece is awaited again.
+     */
+    @Unique
+    private static byte[] takePieces(ChunkPos pos) {
+        ReentrantLock lock = ChunkLocks.get(pos);
+        while (true) {
+            PieceWriteExecutor.awaitAll(pos);
+            lock.lock();
+            try {
+                if (!PieceWriteExecutor.isPending(pos))
+                    return PieceStorage.removeAll(pos);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * place the pieces saved as files, either because {@link EwcConfig#getReadableMultiChunkFiles()} is enabled,
+     * or because they were saved before the region storage existed.
+     * The directory is only listed if it exists, and the method is only called if {@link EwcFolderData#hasLegacyPieces()}.
+     */
+    @Unique
+    private void placeLegacyPieces(StructureWorldAccess world, Chunk chunk, ChunkPos pos) {
+        Path basePaths = EwcFolderData.getStructureDataDir(pos);
+        if (!Files.isDirectory(basePaths)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.list(basePaths)) {
+            paths.forEach(path -> {
+                if (PieceFormat.isPiece(path.toString())) {
+                    BlockListManager manager = BlockListHelper.fromPath(world, path);
+                    if (manager == null) return;
+
+                    world.setCurrentlyGeneratingStructureName(() ->
+                            "\n| ewc multi-chunk feature generating: "
+                                    + "\n\t- step: end generation"
+                                    + "\n\t- center chunkPos: " + chunk.getPos().toString()
+                                    + "\n\t- parent directory: " + path.getParent().getFileName().toString()
+                                    + "\n\t- generating: " + path.getFileName()
+                    );
+                    manager.placeAllNDeleteFast(world);
+                    FileUtil.removeFile(path);
+                }
+            });
         } catch (Exception e) {
             e.fillInStackTrace();
         }
+        try {
+            Files.delete(basePaths);
+        } catch (IOException e) {
+            e.fillInStackTrace();
+        }
     }
 }
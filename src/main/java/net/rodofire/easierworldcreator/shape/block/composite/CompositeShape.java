@@ -0,0 +1,492 @@
+package net.rodofire.easierworldcreator.shape.block.composite;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
+import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Class to combine shapes using union, subtraction, intersection, translation and rotation.
+ * <p>The operations are lazy: they only build a tree of operations.
+ * The coordinates are computed chunk by chunk when calling {@link #getShapeCoordinatesPacked()} or {@link #getChunk(long)},
+ * meaning that no intermediate copy of the whole shape is done.
+ * Each shape used in the composite is generated only once.
+ * <pre>{@code
+ * CompositeShape planet = CompositeShape.of(sphere)
+ *         .union(otherSphere)
+ *         .subtract(cave)
+ *         .translate(0, 10, 0);
+ * Long2ObjectOpenHashMap<LongOpenHashSet> coordinates = planet.getShapeCoordinatesPacked();
+ * }</pre>
+ * <p>When a chunk only depends on a single shape, its set is reused as is, so the returned sets might be shared with the shapes.
+ */
+@SuppressWarnings("unused")
+public class CompositeShape extends AbstractBlockShape {
+    private final Node node;
+
+    private CompositeShape(BlockPos centerPos, Node node) {
+        super(centerPos);
+        this.node = node;
+    }
+
+    /**
+     * create a composite shape from a shape
+     *
+     * @param shape the shape, generated only when needed
+     * @return the composite shape, having the same center as the shape
+     */
+    public static CompositeShape of(AbstractBlockShape shape) {
+        if (shape instanceof CompositeShape composite)
+            return composite;
+        return new CompositeShape(shape.getCenterPos(), new Leaf(shape));
+    }
+
+    /**
+     * @return a shape containing the pos of this shape and the pos of every other shape
+     */
+    public CompositeShape union(AbstractBlockShape... shapes) {
+        List<Node> nodes = new ArrayList<>(shapes.length + 1);
+        nodes.add(node);
+        for (AbstractBlockShape shape : shapes) {
+            nodes.add(of(shape).node);
+        }
+        return with(new Union(nodes));
+    }
+
+    /**
+     * @return a shape containing the pos of this shape that aren't in the other shape
+     */
+    public CompositeShape subtract(AbstractBlockShape shape) {
+        return with(new Subtract(node, of(shape).node));
+    }
+
+    /**
+     * @return a shape containing the pos that are both in this shape and in the other shape
+     */
+    public CompositeShape intersect(AbstractBlockShape shape) {
+        return with(new Intersect(node, of(shape).node));
+    }
+
+    /**
+     * @return the shape moved by the offset
+     */
+    public CompositeShape translate(int x, int y, int z) {
+        if (x == 0 && y == 0 && z == 0)
+            return this;
+        return with(getCenterPos().add(x, y, z), new Translate(node, x, y, z));
+    }
+
+    /**
+     * <p>rotate the shape around its center. The center of the rotator isn't used.
+     * <p>The pos are rotated one by one, which can leave holes in the shape.
+     * To get a shape without holes, the shapes should be rotated before being combined,
+     * using {@link AbstractBlockShape#setInverseRotation(boolean)}.
+     *
+     * @param rotator the rotation to apply
+     * @return the rotated shape
+     */
+    public CompositeShape rotate(Rotator rotator) {
+        return with(new Rotate(node, rotator, centerPos));
+    }
+
+    private CompositeShape with(Node node) {
+        return with(getCenterPos(), node);
+    }
+
+    private CompositeShape with(BlockPos centerPos, Node node) {
+        CompositeShape shape = new CompositeShape(centerPos, node);
+        shape.setParallel(this.parallel);
+        return shape;
+    }
+
+    /**
+     * @return the chunks that might contain pos of the shape, packed using {@link ChunkPos#toLong()}
+     */
+    @Override
+    public LongSet getChunks() {
+        return LongSets.unmodifiable(node.getChunks());
+    }
+
+    /**
+     * compute the pos of a single chunk. Only the chunks of the shapes that are needed are used.
+     *
+     * @param chunk the chunk packed using {@link ChunkPos#toLong()}
+     * @return the pos of the shape in the chunk, or null if there isn't any. The set must not be modified
+     */
+    public LongSet getChunk(long chunk) {
+        LongSet set = node.getChunk(chunk);
+        return set == null || set.isEmpty() ? null : set;
+    }
+
+    /**
+     * compute the shape one chunk at a time, without filling the chunk map of the composite shape
+     */
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        LongIterator iterator = node.getChunks().iterator();
+        while (iterator.hasNext()) {
+            long chunk = iterator.nextLong();
+            LongSet set = getChunk(chunk);
+            if (set != null) {
+                //the sets of the nodes are cached, so they are copied
+                consumer.accept(chunk, new LongOpenHashSet(set));
+            }
+        }
+    }
+
+    @Override
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
+        long[] chunks = node.getChunks().toLongArray();
+        if (!parallel) {
+            for (long chunk : chunks) {
+                put(chunk, getChunk(chunk));
+            }
+            return packedChunkMap;
+        }
+
+        List<LongSet[]> results = EwcExecutor.mapRanges(chunks.length, (start, end) -> {
+            LongSet[] sets = new LongSet[end - start];
+            for (int i = start; i < end; i++) {
+                sets[i - start] = getChunk(chunks[i]);
+            }
+            return sets;
+        });
+        int i = 0;
+        for (LongSet[] sets : results) {
+            for (LongSet set : sets) {
+                put(chunks[i++], set);
+            }
+        }
+        return packedChunkMap;
+    }
+
+    private void put(long chunk, LongSet set) {
+        if (set == null)
+            return;
+        //the sets of the nodes are cached, so they are copied like in forEachChunk()
+        packedChunkMap.put(chunk, new LongOpenHashSet(set));
+    }
+
+    /**
+     * an operation of the tree. Every method must be thread safe
+     */
+    private interface Node {
+        /**
+         * @return the chunks that might contain pos
+         */
+        LongSet getChunks();
+
+        /**
+         * @return the pos of the chunk, or null if there isn't any. The set must not be modified
+         */
+        LongSet getChunk(long chunk);
+    }
+
+    private static class Leaf implements Node {
+        private final AbstractBlockShape shape;
+        private volatile Long2ObjectOpenHashMap<LongOpenHashSet> coordinates;
+
+        private Leaf(AbstractBlockShape shape) {
+            this.shape = shape;
+        }
+
+        private Long2ObjectOpenHashMap<LongOpenHashSet> get() {
+            Long2ObjectOpenHashMap<LongOpenHashSet> current = coordinates;
+            if (current == null) {
+                synchronized (this) {
+                    current = coordinates;
+                    if (current == null) {
+                        current = shape.getShapeCoordinatesPacked();
+                        coordinates = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            return get().keySet();
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            return get().get(chunk);
+        }
+    }
+
+    private static class Union implements Node {
+        private final List<Node> nodes;
+        private volatile LongSet chunks;
+
+        private Union(List<Node> nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            LongSet current = chunks;
+            if (current == null) {
+                synchronized (this) {
+                    current = chunks;
+                    if (current == null) {
+                        current = new LongOpenHashSet();
+                        for (Node node : nodes) {
+                            current.addAll(node.getChunks());
+                        }
+                        chunks = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            LongSet first = null;
+            LongOpenHashSet merged = null;
+            for (Node node : nodes) {
+                LongSet set = node.getChunk(chunk);
+                if (set == null || set.isEmpty())
+                    continue;
+                if (first == null) {
+                    first = set;
+                } else {
+                    if (merged == null) {
+                        merged = new LongOpenHashSet(first);
+                    }
+                    merged.addAll(set);
+                }
+            }
+            return merged != null ? merged : first;
+        }
+    }
+
+    private static class Subtract implements Node {
+        private final Node node;
+        private final Node removed;
+
+        private Subtract(Node node, Node removed) {
+            this.node = node;
+            this.removed = removed;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            return node.getChunks();
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            LongSet set = node.getChunk(chunk);
+            if (set == null)
+                return null;
+            LongSet removedSet = removed.getChunk(chunk);
+            if (removedSet == null || removedSet.isEmpty())
+                return set;
+
+            LongOpenHashSet result = new LongOpenHashSet(set.size());
+            LongIterator iterator = set.iterator();
+            while (iterator.hasNext()) {
+                long pos = iterator.nextLong();
+                if (!removedSet.contains(pos)) {
+                    result.add(pos);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Intersect implements Node {
+        private final Node first;
+        private final Node second;
+        private volatile LongSet chunks;
+
+        private Intersect(Node first, Node second) {
+            this.first = first;
+            this.second = second;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            LongSet current = chunks;
+            if (current == null) {
+                synchronized (this) {
+                    current = chunks;
+                    if (current == null) {
+                        current = new LongOpenHashSet(first.getChunks());
+                        current.retainAll(second.getChunks());
+                        chunks = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            LongSet firstSet = first.getChunk(chunk);
+            if (firstSet == null)
+                return null;
+            LongSet secondSet = second.getChunk(chunk);
+            if (secondSet == null)
+                return null;
+
+            //iterating over the smallest set
+            LongSet small = firstSet.size() <= secondSet.size() ? firstSet : secondSet;
+            LongSet large = small == firstSet ? secondSet : firstSet;
+            LongOpenHashSet result = new LongOpenHashSet(small.size());
+            LongIterator iterator = small.iterator();
+            while (iterator.hasNext()) {
+                long pos = iterator.nextLong();
+                if (large.contains(pos)) {
+                    result.add(pos);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Translate implements Node {
+        private final Node node;
+        private final int x;
+        private final int y;
+        private final int z;
+        private volatile LongSet chunks;
+
+        private Translate(Node node, int x, int y, int z) {
+            this.node = node;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            LongSet current = chunks;
+            if (current == null) {
+                synchronized (this) {
+                    current = chunks;
+                    if (current == null) {
+                        current = new LongOpenHashSet();
+                        LongIterator iterator = node.getChunks().iterator();
+                        while (iterator.hasNext()) {
+                            long chunk = iterator.nextLong();
+                            int startX = ChunkPos.getPackedX(chunk) << 4;
+                            int startZ = ChunkPos.getPackedZ(chunk) << 4;
+                            //a chunk can be moved over up to 4 chunks
+                            for (int chunkX = ChunkSectionPos.getSectionCoord(startX + x); chunkX <= ChunkSectionPos.getSectionCoord(startX + 15 + x); chunkX++) {
+                                for (int chunkZ = ChunkSectionPos.getSectionCoord(startZ + z); chunkZ <= ChunkSectionPos.getSectionCoord(startZ + 15 + z); chunkZ++) {
+                                    current.add(ChunkPos.toLong(chunkX, chunkZ));
+                                }
+                            }
+                        }
+                        chunks = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            int startX = ChunkPos.getPackedX(chunk) << 4;
+            int startZ = ChunkPos.getPackedZ(chunk) << 4;
+            LongOpenHashSet result = null;
+            for (int chunkX = ChunkSectionPos.getSectionCoord(startX - x); chunkX <= ChunkSectionPos.getSectionCoord(startX + 15 - x); chunkX++) {
+                for (int chunkZ = ChunkSectionPos.getSectionCoord(startZ - z); chunkZ <= ChunkSectionPos.getSectionCoord(startZ + 15 - z); chunkZ++) {
+                    LongSet set = node.getChunk(ChunkPos.toLong(chunkX, chunkZ));
+                    if (set == null)
+                        continue;
+                    if (result == null) {
+                        result = new LongOpenHashSet(set.size());
+                    }
+                    LongIterator iterator = set.iterator();
+                    while (iterator.hasNext()) {
+                        long pos = LongPosHelper.add(iterator.nextLong(), x, y, z);
+                        if (LongPosHelper.getChunkLong(pos) == chunk) {
+                            result.add(pos);
+                        }
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class Rotate implements Node {
+        private final Node node;
+        private final Rotator rotator;
+        private final long centerPos;
+        private volatile Long2ObjectOpenHashMap<LongOpenHashSet> coordinates;
+
+        private Rotate(Node node, Rotator rotator, long centerPos) {
+            this.node = node;
+            this.rotator = rotator;
+            this.centerPos = centerPos;
+        }
+
+        /**
+         * a rotation moves pos between chunks, so the rotated shape is computed only once
+         */
+        private Long2ObjectOpenHashMap<LongOpenHashSet> get() {
+            Long2ObjectOpenHashMap<LongOpenHashSet> current = coordinates;
+            if (current == null) {
+                synchronized (this) {
+                    current = coordinates;
+                    if (current == null) {
+                        current = rotate();
+                        coordinates = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        private Long2ObjectOpenHashMap<LongOpenHashSet> rotate() {
+            int centerX = LongPosHelper.decodeX(centerPos);
+            int centerY = LongPosHelper.decodeY(centerPos);
+            int centerZ = LongPosHelper.decodeZ(centerPos);
+            BlockPos rotatorCenter = rotator.getCenterPos();
+            Long2ObjectOpenHashMap<LongOpenHashSet> result = new Long2ObjectOpenHashMap<>();
+
+            LongIterator chunks = node.getChunks().iterator();
+            while (chunks.hasNext()) {
+                LongSet set = node.getChunk(chunks.nextLong());
+                if (set == null)
+                    continue;
+                long[] pos = set.toLongArray();
+                for (int i = 0; i < pos.length; i++) {
+                    pos[i] = LongPosHelper.add(pos[i], -centerX, -centerY, -centerZ);
+                }
+                rotator.rotate(pos, 0, pos.length);
+                for (long rotated : pos) {
+                    long moved = LongPosHelper.add(rotated, centerX - rotatorCenter.getX(), centerY - rotatorCenter.getY(), centerZ - rotatorCenter.getZ());
+                    result.computeIfAbsent(LongPosHelper.getChunkLong(moved), k -> new LongOpenHashSet()).add(moved);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public LongSet getChunks() {
+            return get().keySet();
+        }
+
+        @Override
+        public LongSet getChunk(long chunk) {
+            return get().get(chunk);
+        }
+    }
+}
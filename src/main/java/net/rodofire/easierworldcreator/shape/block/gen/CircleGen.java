@@ -1,5 +1,6 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -10,7 +11,6 @@ import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.Map;
 /*
 
 
@@ -138,7 +138,7 @@ public class CircleGen extends AbstractFillableBlockShape {
      * @return the blockPos of the circle. The List is divided into chunkPos, allowing for parallel modification
      */
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         if (this.getFillingType() == AbstractFillableBlockShape.Type.HALF) {
             this.setCustomFill(0.5f);
         }
@@ -150,7 +150,7 @@ public class CircleGen extends AbstractFillableBlockShape {
         }else{
             this.generateFullOval();
         }
-        return chunkMap;
+        return packedChunkMap;
     }
 
     /**
@@ -1,5 +1,6 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -11,7 +12,6 @@ import net.rodofire.easierworldcreator.util.LongPosHelper;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /*
@@ -193,7 +193,7 @@ public class CylinderGen extends AbstractFillableBlockShape {
      * @return the blockPos divided into chunkPos
      */
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         this.setFill();
 
         if (this.getFillingType() == Type.EMPTY) {
@@ -202,7 +202,7 @@ public class CylinderGen extends AbstractFillableBlockShape {
             this.generateFullCylinder();
         }
 
-        return chunkMap;
+        return packedChunkMap;
     }
 
     /**
@@ -215,58 +215,39 @@ public class CylinderGen extends AbstractFillableBlockShape {
         float innerRadiusXSquared = (1 - this.getCustomFill()) * (1 - this.getCustomFill()) * radiusX * radiusX;
         float innerRadiusZSquared = (1 - this.getCustomFill()) * (1 - this.getCustomFill()) * radiusZ * radiusZ;
 
+        if (useInverseRotation()) {
+            rasterizeRotated(-radiusX, radiusX, 0, height, -radiusZ, radiusZ, (x, y, z) -> {
+                if (y < 0 || y > this.height)
+                    return false;
+                double xx = x * x;
+                double zz = z * z;
+                if (xx / radiusXSquared + zz / radiusZSquared > 1)
+                    return false;
+                return innerRadiusXSquared == 0 || xx / innerRadiusXSquared + zz / innerRadiusZSquared > 1;
+            });
+            return;
+        }
+
         //Rotating a shape requires more blocks.
-        //This verification is there to avoid some unnecessary calculations when the rotations don't have any impact on the number of blocks
-        if (rotator == null) {
+        //every x is a slab, with a step of 0.5 when rotated
+        float step = rotator == null ? 1f : 0.5f;
+        generateSlabs((int) (2 * this.radiusX / step) + 1, (slab, collector) -> {
+            float x = -this.radiusX + slab * step;
+            float x2 = x * x;
+            float xSquared = x2 / radiusXSquared;
 
-            for (float x = -this.radiusX; x <= this.radiusX; x += 1f) {
-                float x2 = x * x;
-                float xSquared = x2 / radiusXSquared;
+            //the z-extent of the row is computed instead of testing every z
+            int outer = getSpanExtent(xSquared, 0, step, radiusZSquared);
+            if (outer < 0)
+                return;
+            //pos between -inner and inner are in the hollow part of the cylinder
+            int inner = innerRadiusXSquared != 0 ? getSpanExtent(x2 / innerRadiusXSquared, 0, step, innerRadiusZSquared) : -1;
 
-                for (float z = -this.radiusZ; z <= this.radiusZ; z += 1f) {
-                    float z2 = z * z;
-                    float zSquared = z2 / radiusZSquared;
-                    if (xSquared + zSquared <= 1) {
-                        boolean bl = true;
-                        if (innerRadiusXSquared != 0) {
-                            float innerXSquared = x2 / innerRadiusXSquared;
-                            float innerZSquared = z2 / innerRadiusZSquared;
-                            if (innerXSquared + innerZSquared <= 1f) {
-                                bl = false;
-                            }
-                        }
-                        if (bl) {
-                            for (float y = 0; y <= this.height; y += 1f) {
-                                modifyChunkMap(LongPosHelper.encodeBlockPos((int) x + centerX, (int) y + centerY, (int) z + centerZ));
-                            }
-                        }
-                    }
-                }
+            for (float y = 0; y <= this.height; y += step) {
+                addSpan(collector, x, y, -outer, Math.min(outer, -inner - 1), step);
+                addSpan(collector, x, y, Math.max(-outer, inner + 1), outer, step);
             }
-        } else {
-            for (float x = -this.radiusX; x <= this.radiusX; x += 0.5f) {
-                float x2 = x * x;
-                float xSquared = x * x / radiusXSquared;
-                for (float z = -this.radiusZ; z <= this.radiusZ; z += 0.5f) {
-                    float z2 = z * z;
-                    boolean bl = true;
-                    if (innerRadiusXSquared != 0) {
-                        float innerXSquared = x2 / innerRadiusXSquared;
-                        float innerZSquared = z2 / innerRadiusZSquared;
-                        if (innerXSquared + innerZSquared <= 1f) {
-                            bl = false;
-                        }
-                    }
-                    if (bl) {
-                        for (float y = 0; y <= this.height; y += 0.5f) {
-                            if (xSquared + (z * z) / radiusZSquared <= 1) {
-                                modifyChunkMap(rotator.get(x, y, z));
-                            }
-                        }
-                    }
-                }
-            }
-        }
+        });
     }
 
     /**
@@ -1,5 +1,6 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -12,7 +13,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -60,14 +60,14 @@ public class LineGen extends AbstractBlockShape {
     }
 
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         Direction direction;
         if ((direction = WorldGenUtil.getDirection(LongPosHelper.decodeBlockPos(this.centerPos), secondPos)) != null) {
             this.generateAxisLine(direction);
         } else {
             this.drawLine();
         }
-        return chunkMap;
+        return packedChunkMap;
     }
 
     /**
@@ -0,0 +1,194 @@
+package net.rodofire.easierworldcreator.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
+import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.shape.block.sdf.Sdf;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.LongConsumer;
+
+/**
+ * <p>Class to generate shapes defined by a signed distance field, see {@link Sdf}.
+ * <p>Only the chunks intersecting the bounds of the field are evaluated.
+ * Each chunk is divided into cells of {@value #CELL_SIZE} blocks:
+ * the field is first evaluated at the center of the cell, and the cell is skipped if it is entirely outside the shape,
+ * or entirely filled if it is inside the shape. Only cells crossing the surface are tested block by block.
+ */
+@SuppressWarnings("unused")
+public class SdfGen extends AbstractBlockShape {
+    private static final int CELL_SIZE = 4;
+
+    private Sdf sdf;
+
+    /**
+     * init the sdf shape
+     *
+     * @param pos the center of the shape
+     * @param sdf the field defining the shape
+     */
+    public SdfGen(@NotNull BlockPos pos, Sdf sdf) {
+        super(pos);
+        this.sdf = sdf;
+    }
+
+    /**
+     * init the sdf shape
+     *
+     * @param pos     the center of the shape
+     * @param rotator the rotator used to rotate the shape
+     * @param sdf     the field defining the shape
+     */
+    public SdfGen(@NotNull BlockPos pos, Rotator rotator, Sdf sdf) {
+        super(pos, rotator);
+        this.sdf = sdf;
+    }
+
+    public Sdf getSdf() {
+        return sdf;
+    }
+
+    public void setSdf(Sdf sdf) {
+        this.sdf = sdf;
+    }
+
+    @Override
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
+        int[] bounds = getBlockBounds();
+        int minChunkX = ChunkSectionPos.getSectionCoord(bounds[0]);
+        int minChunkZ = ChunkSectionPos.getSectionCoord(bounds[2]);
+        int chunksZ = ChunkSectionPos.getSectionCoord(bounds[5]) - minChunkZ + 1;
+        int chunksX = ChunkSectionPos.getSectionCoord(bounds[3]) - minChunkX + 1;
+
+        //every chunk column is a slab
+        generateSlabs(chunksX * chunksZ, (slab, collector) ->
+                generateChunk(collector, bounds, minChunkX + slab / chunksZ, minChunkZ + slab % chunksZ));
+        return packedChunkMap;
+    }
+
+    /**
+     * @return every chunk intersecting the bounds of the field
+     */
+    @Override
+    public LongSet getChunks() {
+        int[] bounds = getBlockBounds();
+        LongOpenHashSet chunks = new LongOpenHashSet();
+        for (int chunkX = ChunkSectionPos.getSectionCoord(bounds[0]); chunkX <= ChunkSectionPos.getSectionCoord(bounds[3]); chunkX++) {
+            for (int chunkZ = ChunkSectionPos.getSectionCoord(bounds[2]); chunkZ <= ChunkSectionPos.getSectionCoord(bounds[5]); chunkZ++) {
+                chunks.add(ChunkPos.toLong(chunkX, chunkZ));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * generate the shape one chunk at a time, only one chunk being in memory
+     */
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        int[] bounds = getBlockBounds();
+        for (int chunkX = ChunkSectionPos.getSectionCoord(bounds[0]); chunkX <= ChunkSectionPos.getSectionCoord(bounds[3]); chunkX++) {
+            for (int chunkZ = ChunkSectionPos.getSectionCoord(bounds[2]); chunkZ <= ChunkSectionPos.getSectionCoord(bounds[5]); chunkZ++) {
+                LongOpenHashSet set = new LongOpenHashSet();
+                generateChunk(set::add, bounds, chunkX, chunkZ);
+                if (!set.isEmpty()) {
+                    consumer.accept(ChunkPos.toLong(chunkX, chunkZ), set);
+                }
+            }
+        }
+    }
+
+    private void generateChunk(LongConsumer collector, int[] bounds, int chunkX, int chunkZ) {
+        int startX = Math.max(bounds[0], chunkX << 4);
+        int endX = Math.min(bounds[3], (chunkX << 4) + 15);
+        int startZ = Math.max(bounds[2], chunkZ << 4);
+        int endZ = Math.min(bounds[5], (chunkZ << 4) + 15);
+        double[] local = new double[3];
+
+        for (int x = startX; x <= endX; x += CELL_SIZE) {
+            for (int z = startZ; z <= endZ; z += CELL_SIZE) {
+                for (int y = bounds[1]; y <= bounds[4]; y += CELL_SIZE) {
+                    generateCell(collector, local, x, Math.min(x + CELL_SIZE - 1, endX), y, Math.min(y + CELL_SIZE - 1, bounds[4]), z, Math.min(z + CELL_SIZE - 1, endZ));
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the world coordinates of the blocks bounding the shape: minX, minY, minZ, maxX, maxY, maxZ
+     */
+    private int[] getBlockBounds() {
+        Box bounds = getWorldBounds();
+        return new int[]{
+                (int) Math.floor(bounds.minX) + centerX,
+                (int) Math.floor(bounds.minY) + centerY,
+                (int) Math.floor(bounds.minZ) + centerZ,
+                (int) Math.ceil(bounds.maxX) + centerX,
+                (int) Math.ceil(bounds.maxY) + centerY,
+                (int) Math.ceil(bounds.maxZ) + centerZ
+        };
+    }
+
+    private void generateCell(LongConsumer collector, double[] local, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        double halfX = (maxX - minX) * 0.5;
+        double halfY = (maxY - minY) * 0.5;
+        double halfZ = (maxZ - minZ) * 0.5;
+        //distance between the center of the cell and its farthest block
+        double radius = Math.sqrt(halfX * halfX + halfY * halfY + halfZ * halfZ);
+        double margin = radius + 2 * sdf.getDeviation();
+        double distance = getDistance(local, minX + halfX, minY + halfY, minZ + halfZ);
+
+        if (distance > margin)
+            return;
+        boolean full = distance < -margin;
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    if (full || getDistance(local, x, y, z) <= 0) {
+                        collector.accept(LongPosHelper.encodeBlockPos(x, y, z));
+                    }
+                }
+            }
+        }
+    }
+
+    private double getDistance(double[] local, double x, double y, double z) {
+        x -= centerX;
+        y -= centerY;
+        z -= centerZ;
+        if (rotator == null)
+            return sdf.distance(x, y, z);
+        rotator.inverse(x, y, z, local);
+        return sdf.distance(local[0], local[1], local[2]);
+    }
+
+    /**
+     * @return the bounds of the field after the rotation, relative to the center
+     */
+    private Box getWorldBounds() {
+        Box bounds = sdf.getBounds();
+        if (rotator == null)
+            return bounds;
+
+        double[] corner = new double[3];
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+        for (int i = 0; i < 8; i++) {
+            rotator.rotate((i & 1) == 0 ? bounds.minX : bounds.maxX, (i & 2) == 0 ? bounds.minY : bounds.maxY, (i & 4) == 0 ? bounds.minZ : bounds.maxZ, corner);
+            minX = Math.min(minX, corner[0]);
+            minY = Math.min(minY, corner[1]);
+            minZ = Math.min(minZ, corner[2]);
+            maxX = Math.max(maxX, corner[0]);
+            maxY = Math.max(maxY, corner[1]);
+            maxZ = Math.max(maxZ, corner[2]);
+        }
+        return new Box(minX, minY, minZ, maxX, maxY, maxZ);
+    }
+}
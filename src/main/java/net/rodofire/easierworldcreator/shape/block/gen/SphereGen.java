@@ -1,8 +1,11 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
 import net.minecraft.util.math.Direction;
 import net.rodofire.easierworldcreator.Ewc;
 import net.rodofire.easierworldcreator.maths.FastMaths;
@@ -14,7 +17,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /*
@@ -180,7 +182,7 @@ public class SphereGen extends AbstractFillableBlockShape {
     }
 
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         //verify if the rotations == 0 to avoid some unnecessary calculations
         if (this.getFillingType() == Type.EMPTY) {
             if (this.halfSphere == SphereType.HALF) {
@@ -189,13 +191,14 @@ public class SphereGen extends AbstractFillableBlockShape {
                 this.generateEmptyEllipsoid();
             }
         } else {
+            warnHugeSphere();
             if (this.halfSphere == SphereType.HALF) {
                 this.generateHalfFullEllipsoid();
             } else {
                 this.generateFullEllipsoid();
             }
         }
-        return chunkMap;
+        return packedChunkMap;
     }
 
 
@@ -259,18 +262,85 @@ public class SphereGen extends AbstractFillableBlockShape {
 
 
     public void generateHalfFullEllipsoid() {
+        int[] bounds = getFullBounds();
+        this.generateFullEllipsoid(bounds[0], bounds[1], bounds[2], bounds[3], bounds[4], bounds[5]);
+    }
+
+    /**
+     * @return the bounds of the full sphere relative to the center: minX, maxX, minY, maxY, minZ, maxZ
+     */
+    private int[] getFullBounds() {
+        if (this.halfSphere != SphereType.HALF)
+            return new int[]{-radiusX, radiusX, -radiusY, radiusY, -radiusZ, radiusZ};
         if (direction == Direction.UP) {
-            this.generateFullEllipsoid(-radiusX, radiusX, 0, radiusY, -radiusZ, radiusZ);
+            return new int[]{-radiusX, radiusX, 0, radiusY, -radiusZ, radiusZ};
         } else if (direction == Direction.DOWN) {
-            this.generateFullEllipsoid(-radiusX, radiusX, -radiusY, 0, -radiusZ, radiusZ);
+            return new int[]{-radiusX, radiusX, -radiusY, 0, -radiusZ, radiusZ};
         } else if (direction == Direction.WEST) {
-            this.generateFullEllipsoid(0, radiusX, -radiusY, radiusY, -radiusZ, radiusZ);
+            return new int[]{0, radiusX, -radiusY, radiusY, -radiusZ, radiusZ};
         } else if (direction == Direction.EAST) {
-            this.generateFullEllipsoid(-radiusX, 0, -radiusY, radiusY, -radiusZ, radiusZ);
+            return new int[]{-radiusX, 0, -radiusY, radiusY, -radiusZ, radiusZ};
         } else if (direction == Direction.NORTH) {
-            this.generateFullEllipsoid(-radiusX, radiusX, -radiusY, radiusY, -radiusZ, 0);
-        } else {
-            this.generateFullEllipsoid(-radiusX, radiusX, -radiusY, radiusY, 0, radiusZ);
+            return new int[]{-radiusX, radiusX, -radiusY, radiusY, -radiusZ, 0};
+        }
+        return new int[]{-radiusX, radiusX, -radiusY, radiusY, 0, radiusZ};
+    }
+
+    /**
+     * @return true if the sphere can be generated one chunk at a time
+     */
+    private boolean canStream() {
+        return this.rotator == null && this.getFillingType() != Type.EMPTY && packedChunkMap.isEmpty();
+    }
+
+    /**
+     * when the sphere is full and not rotated, return every chunk intersecting the sphere bounds
+     */
+    @Override
+    public LongSet getChunks() {
+        if (!canStream())
+            return super.getChunks();
+        int[] bounds = getFullBounds();
+        LongOpenHashSet chunks = new LongOpenHashSet();
+        for (int chunkX = ChunkSectionPos.getSectionCoord(centerX + bounds[0]); chunkX <= ChunkSectionPos.getSectionCoord(centerX + bounds[1]); chunkX++) {
+            for (int chunkZ = ChunkSectionPos.getSectionCoord(centerZ + bounds[4]); chunkZ <= ChunkSectionPos.getSectionCoord(centerZ + bounds[5]); chunkZ++) {
+                chunks.add(ChunkPos.toLong(chunkX, chunkZ));
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * when the sphere is full and not rotated, it is generated one chunk at a time
+     */
+    @Override
+    public void forEachChunk(ChunkConsumer consumer) {
+        if (!canStream()) {
+            super.forEachChunk(consumer);
+            return;
+        }
+        warnHugeSphere();
+        int[] bounds = getFullBounds();
+        for (int chunkX = ChunkSectionPos.getSectionCoord(centerX + bounds[0]); chunkX <= ChunkSectionPos.getSectionCoord(centerX + bounds[1]); chunkX++) {
+            int minX = Math.max(bounds[0], (chunkX << 4) - centerX);
+            int maxX = Math.min(bounds[1], (chunkX << 4) + 15 - centerX);
+            for (int chunkZ = ChunkSectionPos.getSectionCoord(centerZ + bounds[4]); chunkZ <= ChunkSectionPos.getSectionCoord(centerZ + bounds[5]); chunkZ++) {
+                int minZ = Math.max(bounds[4], (chunkZ << 4) - centerZ);
+                int maxZ = Math.min(bounds[5], (chunkZ << 4) + 15 - centerZ);
+                this.generateFullEllipsoid(minX, maxX, bounds[2], bounds[3], minZ, maxZ);
+
+                long chunk = ChunkPos.toLong(chunkX, chunkZ);
+                LongOpenHashSet set = takeChunk(chunk);
+                if (set != null) {
+                    consumer.accept(chunk, set);
+                }
+            }
+        }
+    }
+
+    private void warnHugeSphere() {
+        if (radiusX > 32 || radiusY > 32 || radiusZ > 32) {
+            Ewc.LOGGER.warn("generating huge sphere (diameter > 64)");
         }
     }
 
@@ -300,67 +370,47 @@ public class SphereGen extends AbstractFillableBlockShape {
         float innerRadiusYSquared = (1 - this.getCustomFill()) * (1 - this.getCustomFill()) * largeYSquared;
         float innerRadiusZSquared = (1 - this.getCustomFill()) * (1 - this.getCustomFill()) * largeZSquared;
 
-
-        if (radiusX > 32 || radiusY > 32 || radiusZ > 32) {
-            Ewc.LOGGER.warn("generating huge sphere (diameter > 64)");
+        if (useInverseRotation()) {
+            rasterizeRotated(minX, maxX, minY, maxY, minZ, maxZ, (x, y, z) -> {
+                if (x < minX || x > maxX || y < minY || y > maxY || z < minZ || z > maxZ)
+                    return false;
+                double xx = x * x;
+                double yy = y * y;
+                double zz = z * z;
+                if (xx / largeXSquared + yy / largeYSquared + zz / largeZSquared > 1)
+                    return false;
+                return innerRadiusXSquared == 0 || xx / innerRadiusXSquared + yy / innerRadiusYSquared + zz / innerRadiusZSquared > 1;
+            });
+            return;
         }
-        if (this.rotator == null) {
-            for (float x = minX; x <= maxX; x++) {
-                float xx = x * x;
-                float xs = xx / largeXSquared;
-
-                for (float y = minY; y <= maxY; y++) {
-                    float yy = y * y;
-                    float ys = yy / largeYSquared + xs;
-
-                    for (float z = minZ; z <= maxZ; z++) {
-                        float zz = z * z;
-                        if (ys + (zz) / (largeZSquared) <= 1) {
-                            boolean bl = true;
-                            if (innerRadiusXSquared != 0) {
-                                float innerXSquared = xx / innerRadiusXSquared;
-                                float innerYSquared = yy / innerRadiusYSquared;
-                                float innerZSquared = zz / innerRadiusZSquared;
-                                if (innerXSquared + innerZSquared + innerYSquared <= 1f) {
-                                    bl = false;
-                                }
-                            }
-                            if (bl) {
-                                modifyChunkMap(LongPosHelper.encodeBlockPos((int) (this.centerX + x), (int) (this.centerY + y), (int) (this.centerZ + z)));
-                            }
-                        }
-                    }
-                }
-            }
-        } else {
-            for (float x = minX; x <= maxX; x += 0.5f) {
-                float xx = x * x;
-                float xs = xx / largeXSquared;
-
-                for (float y = minY; y <= maxY; y += 0.5f) {
-                    float yy = y * y;
-                    float ys = yy / largeYSquared + xs;
-
-                    for (float z = minZ; z <= maxZ; z += 0.5f) {
-                        float zz = z * z;
-                        if (ys + (zz) / (largeZSquared) <= 1) {
-                            boolean bl = true;
-                            if (innerRadiusXSquared != 0) {
-                                float innerXSquared = xx / innerRadiusXSquared;
-                                float innerYSquared = yy / innerRadiusYSquared;
-                                float innerZSquared = zz / innerRadiusZSquared;
-                                if (innerXSquared + innerZSquared + innerYSquared <= 1f) {
-                                    bl = false;
-                                }
-                            }
-                            if (bl) {
-                                modifyChunkMap(rotator.get(x, y, z));
-                            }
-                        }
-                    }
-                }
+
+        //every x is a slab, with a step of 0.5 when rotated
+        float step = this.rotator == null ? 1f : 0.5f;
+        int slabs = (int) ((maxX - minX) / step) + 1;
+        generateSlabs(slabs, (slab, collector) -> {
+            float x = minX + slab * step;
+            float xx = x * x;
+            float xs = xx / largeXSquared;
+
+            float innerXSquared = xx / innerRadiusXSquared;
+
+            for (float y = minY; y <= maxY; y += step) {
+                float yy = y * y;
+                float ys = yy / largeYSquared + xs;
+
+                //the z-extent of the row is computed instead of testing every z
+                int outer = getSpanExtent(ys, 0, step, largeZSquared);
+                if (outer < 0)
+                    continue;
+                //pos between -inner and inner are in the hollow part of the ellipsoid
+                int inner = innerRadiusXSquared != 0 ? getSpanExtent(innerXSquared, yy / innerRadiusYSquared, step, innerRadiusZSquared) : -1;
+
+                int from = Math.max(-outer, (int) (minZ / step));
+                int to = Math.min(outer, (int) (maxZ / step));
+                addSpan(collector, x, y, from, Math.min(to, -inner - 1), step);
+                addSpan(collector, x, y, Math.max(from, inner + 1), to, step);
             }
-        }
+        });
     }
 
     /**
@@ -1,5 +1,6 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.Pair;
 import net.minecraft.util.math.BlockPos;
@@ -12,7 +13,6 @@ import net.rodofire.easierworldcreator.util.LongPosHelper;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 //helicoid shape
@@ -311,7 +311,7 @@ public class SpiralGen extends AbstractBlockShape {
 
 
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         this.getFilling();
         switch (this.spiralType) {
             case DEFAULT:
@@ -344,7 +344,7 @@ public class SpiralGen extends AbstractBlockShape {
                 }
                 break;
         }
-        return chunkMap;
+        return packedChunkMap;
     }
 
 
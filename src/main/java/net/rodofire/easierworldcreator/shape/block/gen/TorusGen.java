@@ -1,5 +1,6 @@
 package net.rodofire.easierworldcreator.shape.block.gen;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
@@ -12,7 +13,6 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 /*
 
@@ -293,14 +293,14 @@ public class TorusGen extends AbstractFillableBlockShape {
      * @return a list that contain divided BlockPos depending in the chunkPos
      */
     @Override
-    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+    public Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked() {
         setTorusFill();
         if (this.getFillingType() == Type.EMPTY) {
             this.generateEmptyTore();
         } else {
             this.generateFullTore();
         }
-        return chunkMap;
+        return packedChunkMap;
     }
 
 
@@ -321,8 +321,29 @@ public class TorusGen extends AbstractFillableBlockShape {
 
         int b = maxOuterRadiusX + maxInnerRadiusX;
 
+        if (useInverseRotation()) {
+            float maxX = 2 * b * this.horizontalTorus - b;
+            float maxY = 2 * b * this.verticalTorus - b;
+            rasterizeRotated(-b, maxX, -b, maxY, -b, b, (x, y, z) -> {
+                if (x < -b || x > maxX || y < -b || y > maxY || z < -b || z > b)
+                    return false;
+                float angle = (float) Math.toDegrees(Math.atan2(z, x));
+                double outerRadius = getOuterRadius(angle);
+                double innerRadius = getInnerRadius(angle);
+                int outerRadiusSquared = (int) (outerRadius * outerRadius);
+                int innerRadiusSquared = (int) (innerRadius * innerRadius);
+                double squaredSum = x * x + z * z;
+                double a = squaredSum + outerRadiusSquared - innerRadiusSquared + y * y;
+                return (a * a) - 4 * outerRadiusSquared * squaredSum <= 0;
+            });
+            return;
+        }
+
+        //every x is a slab, with a step of 0.5 when rotated
         if (rotator == null) {
-            for (int x = (-b); x <= 2 * b * this.horizontalTorus - b; x++) {
+            int maxX = (int) Math.floor(2 * b * this.horizontalTorus - b);
+            generateSlabs(Math.max(0, maxX + b + 1), (slab, collector) -> {
+                int x = slab - b;
                 int xSquared = x * x;
                 for (int z = -b; z <= b; z++) {
 
@@ -354,16 +375,17 @@ public class TorusGen extends AbstractFillableBlockShape {
                                 }
                             }*/
                             if (bl) {
-                                modifyChunkMap(LongPosHelper.encodeBlockPos(x + centerX, y + centerY, z + centerZ));
+                                collector.accept(LongPosHelper.encodeBlockPos(x + centerX, y + centerY, z + centerZ));
                             }
                         }
 
                     }
                 }
-            }
+            });
         } else {
             float max = 2 * b * this.verticalTorus - b;
-            for (float x = -b; x <= max; x += 0.5f) {
+            generateSlabs(Math.max(0, (int) Math.floor((max + b) * 2) + 1), (slab, collector) -> {
+                float x = -b + slab * 0.5f;
                 float xSquared = x * x;
                 for (float z = -b; z <= b; z += 0.5f) {
                     float zSquared = z * z;
@@ -396,12 +418,12 @@ public class TorusGen extends AbstractFillableBlockShape {
                                 }
                             }*/
                             if (bl) {
-                                modifyChunkMap(rotator.get(x, y, z));
+                                collector.accept(rotator.get(x, y, z));
                             }
                         }
                     }
                 }
-            }
+            });
         }
     }
 
@@ -1,17 +1,23 @@
 package net.rodofire.easierworldcreator.shape.block.instanciator;
 
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
-import org.apache.commons.lang3.mutable.MutableObject;
+import net.rodofire.easierworldcreator.util.map.ChunkPosMapView;
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.LongConsumer;
 
 /**
  * Class to create custom shapes
@@ -20,6 +26,8 @@ import java.util.Set;
  * <p> - Starting from 2.1.0, the shapes return a list of {@link ChunkPos} that has a set of {@link BlockPos}
  * <p>The change from {@link List} to {@link Set} was done to avoid duplicates BlockPos, which resulted in unnecessary calculations.
  * <p>this allows easy multithreading for the Block assignment done in the {@link AbstractBlockShape} which result in better performance;
+ * <p> - Since 2.4.0, the chunks are packed into a long using {@link ChunkPos#toLong()}, see {@link #getShapeCoordinatesPacked()}.
+ * The {@code Map<ChunkPos, LongOpenHashSet>} is still available with {@link #getShapeCoordinates()} as a view of the packed map.
  * </p>
  */
 @SuppressWarnings("unused")
@@ -32,10 +40,33 @@ public abstract class AbstractBlockShape {
 
     protected Rotator rotator;
 
-    protected Map<ChunkPos, LongOpenHashSet> chunkMap = new HashMap<>();
+    /**
+     * the coordinates of the shape, by chunk packed using {@link ChunkPos#toLong()}
+     */
+    protected Long2ObjectOpenHashMap<LongOpenHashSet> packedChunkMap = new Long2ObjectOpenHashMap<>();
+    /**
+     * view of {@link #packedChunkMap} keyed by {@link ChunkPos}
+     */
+    protected Map<ChunkPos, LongOpenHashSet> chunkMap = new ChunkPosMapView<>(packedChunkMap);
 
-    MutableObject<ChunkPos> lastChunkPos = new MutableObject<>(null);
-    MutableObject<LongOpenHashSet> lastSet = new MutableObject<>(null);
+    private long lastChunk;
+    private LongOpenHashSet lastSet;
+
+    /**
+     * minimal number of slabs needed to divide the generation between multiple threads
+     */
+    private static final int MIN_PARALLEL_SLABS = 8;
+
+    /**
+     * if true, shapes supporting it will be generated using multiple threads, see {@link #generateSlabs(int, SlabGenerator)}
+     */
+    protected boolean parallel = false;
+
+    /**
+     * if true, shapes supporting it will be rotated using {@link #rasterizeRotated(float, float, float, float, float, float, LocalShape)}
+     * instead of rotating oversampled pos
+     */
+    protected boolean inverseRotation = false;
 
     /**
      * init the Shape
@@ -63,12 +94,120 @@ public abstract class AbstractBlockShape {
         this.rotator = rotator;
     }
 
+    public BlockPos getCenterPos() {
+        return LongPosHelper.decodeBlockPos(centerPos);
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * set if the shape should be generated using multiple threads.
+     * The generated coordinates are the same as the ones generated by a single thread.
+     * This is useful for huge shapes, like planets, but is slower for small shapes
+     *
+     * @param parallel true to use multiple threads
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+    public boolean isInverseRotation() {
+        return inverseRotation;
+    }
+
+    /**
+     * <p>set how the shape is rotated when there is a {@link Rotator}.
+     * <p>By default, the shape is generated with a step of 0.5 and every pos is rotated, which results in many duplicated pos.
+     * When enabled, every block of the rotated bounding box is rotated back to test if it belongs to the shape:
+     * there is exactly one test per block and the shape doesn't have holes.
+     * <p>Only full shapes support it, other shapes still use the default rotation.
+     *
+     * @param inverseRotation true to use the inverse rotation
+     */
+    public void setInverseRotation(boolean inverseRotation) {
+        this.inverseRotation = inverseRotation;
+    }
+
+    /**
+     * @return true if the shape will be rotated using {@link #rasterizeRotated(float, float, float, float, float, float, LocalShape)}
+     */
+    protected boolean useInverseRotation() {
+        return rotator != null && inverseRotation;
+    }
+
     /**
      * method to get the coordinates that will be placed later
      *
-     * @return a map of ChunkPos of blockPos for every shape
+     * @return a map of ChunkPos of blockPos for every shape. The map is a view of {@link #getShapeCoordinatesPacked()}
+     */
+    public Map<ChunkPos, LongOpenHashSet> getShapeCoordinates() {
+        return new ChunkPosMapView<>(getShapeCoordinatesPacked());
+    }
+
+    /**
+     * method to get the coordinates that will be placed later.
+     * Unlike {@link #getShapeCoordinates()}, no {@link ChunkPos} is created
+     *
+     * @return a map of the chunks packed using {@link ChunkPos#toLong()} of blockPos for every shape
+     */
+    public abstract Long2ObjectOpenHashMap<LongOpenHashSet> getShapeCoordinatesPacked();
+
+    /**
+     * <p>method to get the chunks of the shape without having to use the coordinates.
+     * <p>Shapes supporting streaming can return chunks that will finally not contain any pos,
+     * like every chunk intersecting the bounding box of the shape.
+     * By default, the shape is generated if it wasn't already.
+     *
+     * @return the chunks packed using {@link ChunkPos#toLong()}
+     */
+    public LongSet getChunks() {
+        return getGeneratedCoordinates().keySet();
+    }
+
+    /**
+     * <p>give the coordinates of the shape one chunk at a time, in the calling thread.
+     * <p>Shapes supporting it only generate the chunk that is given to the consumer,
+     * meaning that the whole shape is never kept in memory.
+     * By default, the whole shape is generated if it wasn't already, and each chunk is released once it was consumed.
+     *
+     * @param consumer the consumer of every chunk
+     */
+    public void forEachChunk(ChunkConsumer consumer) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> coordinates = getGeneratedCoordinates();
+        resetChunkCache();
+        ObjectIterator<Long2ObjectMap.Entry<LongOpenHashSet>> iterator = coordinates.long2ObjectEntrySet().fastIterator();
+        while (iterator.hasNext()) {
+            Long2ObjectMap.Entry<LongOpenHashSet> entry = iterator.next();
+            long chunk = entry.getLongKey();
+            LongOpenHashSet set = entry.getValue();
+            iterator.remove();
+            consumer.accept(chunk, set);
+        }
+    }
+
+    private Long2ObjectOpenHashMap<LongOpenHashSet> getGeneratedCoordinates() {
+        return packedChunkMap.isEmpty() ? getShapeCoordinatesPacked() : packedChunkMap;
+    }
+
+    /**
+     * take a chunk out of the chunk map, used by shapes streaming their chunks
+     *
+     * @param chunk the chunk packed using {@link ChunkPos#toLong()}
+     * @return the pos of the chunk, or null if there isn't any
      */
-    public abstract Map<ChunkPos, LongOpenHashSet> getShapeCoordinates();
+    protected LongOpenHashSet takeChunk(long chunk) {
+        resetChunkCache();
+        return packedChunkMap.remove(chunk);
+    }
+
+    /**
+     * must be called when sets are removed from {@link #packedChunkMap}
+     */
+    protected void resetChunkCache() {
+        lastSet = null;
+    }
 
     private void setCenterPos() {
         centerX = LongPosHelper.decodeX(centerPos);
@@ -76,14 +215,200 @@ public abstract class AbstractBlockShape {
         centerZ = LongPosHelper.decodeZ(centerPos);
     }
 
+    /**
+     * add a pos to the shape. No object is created, except when the pos is the first one of its chunk
+     *
+     * @param pos the encoded pos
+     */
     protected void modifyChunkMap(long pos) {
-        ChunkPos chunkPos = LongPosHelper.getChunkPos(pos);
+        long chunk = LongPosHelper.getChunkLong(pos);
+
+        if (lastSet == null || chunk != lastChunk) {
+            lastChunk = chunk;
+            lastSet = packedChunkMap.get(chunk);
+            if (lastSet == null) {
+                lastSet = new LongOpenHashSet();
+                packedChunkMap.put(chunk, lastSet);
+            }
+        }
+
+        lastSet.add(pos);
+    }
+
+    /**
+     * <p>generate the shape slab by slab. A slab is a part of the shape that doesn't depend on the other ones,
+     * most of the time every pos having the same x coordinate.
+     * <p>If the shape is {@link #parallel}, slabs are divided between the threads of the {@link EwcExecutor}.
+     * Each task fills its own map, and the maps are merged in the order of the slabs at the end,
+     * meaning that the result is the same as the one of a single thread.
+     *
+     * @param slabs     the number of slabs
+     * @param generator the generator of a slab
+     */
+    protected void generateSlabs(int slabs, SlabGenerator generator) {
+        if (!parallel || slabs < MIN_PARALLEL_SLABS) {
+            LongConsumer collector = this::modifyChunkMap;
+            for (int slab = 0; slab < slabs; slab++) {
+                generator.generate(slab, collector);
+            }
+            return;
+        }
+
+        List<SlabCollector> collectors = EwcExecutor.mapRanges(slabs, (start, end) -> {
+            SlabCollector collector = new SlabCollector();
+            for (int slab = start; slab < end; slab++) {
+                generator.generate(slab, collector);
+            }
+            return collector;
+        });
 
-        if (!chunkPos.equals(lastChunkPos.getValue())) {
-            lastChunkPos.setValue(chunkPos);
-            lastSet.setValue(chunkMap.computeIfAbsent(chunkPos, k -> new LongOpenHashSet()));
+        for (SlabCollector collector : collectors) {
+            for (Long2ObjectMap.Entry<LongOpenHashSet> entry : Long2ObjectMaps.fastIterable(collector.map)) {
+                LongOpenHashSet set = packedChunkMap.get(entry.getLongKey());
+                if (set == null) {
+                    packedChunkMap.put(entry.getLongKey(), entry.getValue());
+                } else {
+                    set.addAll(entry.getValue());
+                }
+            }
         }
+    }
 
-        lastSet.getValue().add(pos);
+    /**
+     * add a run of pos having the same local x and y coordinates.
+     * If there is no rotator, the run is added without decoding or encoding each pos.
+     *
+     * @param collector the consumer receiving the pos
+     * @param x         the local x coordinate
+     * @param y         the local y coordinate
+     * @param from      the index of the first pos on the z-axis, inclusive
+     * @param to        the index of the last pos on the z-axis, inclusive
+     * @param step      the distance between two pos on the z-axis. The local z coordinate is {@code index * step}
+     */
+    protected void addSpan(LongConsumer collector, float x, float y, int from, int to, float step) {
+        if (from > to)
+            return;
+        if (rotator == null) {
+            long pos = LongPosHelper.encodeBlockPos(centerX + (int) x, centerY + (int) y, centerZ + (int) (from * step));
+            //the z coordinate is encoded just above the y coordinate
+            long offset = 1L << LongPosHelper.Y_BITS;
+            for (int i = from; i <= to; i++, pos += offset) {
+                collector.accept(pos);
+            }
+        } else {
+            for (int i = from; i <= to; i++) {
+                collector.accept(rotator.get(x, y, i * step));
+            }
+        }
+    }
+
+    /**
+     * <p>generate a rotated shape by testing every block of the rotated bounding box.
+     * Each block is rotated back using {@link Rotator#inverse(double, double, double, double[])},
+     * and it is added if the shape contains the local coordinates.
+     * <p>On each row, the local coordinates are linear, meaning that the inverse rotation is only computed once per row.
+     *
+     * @param minX  the start of the shape on the local x-axis
+     * @param maxX  the end of the shape on the local x-axis
+     * @param minY  the start of the shape on the local y-axis
+     * @param maxY  the end of the shape on the local y-axis
+     * @param minZ  the start of the shape on the local z-axis
+     * @param maxZ  the end of the shape on the local z-axis
+     * @param shape the shape, tested in local coordinates
+     */
+    protected void rasterizeRotated(float minX, float maxX, float minY, float maxY, float minZ, float maxZ, LocalShape shape) {
+        double[] corner = new double[3];
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = 0; i < 8; i++) {
+            rotator.rotate((i & 1) == 0 ? minX : maxX, (i & 2) == 0 ? minY : maxY, (i & 4) == 0 ? minZ : maxZ, corner);
+            for (int axis = 0; axis < 3; axis++) {
+                min[axis] = Math.min(min[axis], corner[axis]);
+                max[axis] = Math.max(max[axis], corner[axis]);
+            }
+        }
+        int worldMinX = (int) Math.floor(min[0]) - 1;
+        int worldMinY = (int) Math.floor(min[1]) - 1;
+        int worldMinZ = (int) Math.floor(min[2]) - 1;
+        int worldMaxY = (int) Math.ceil(max[1]) + 1;
+        int worldMaxZ = (int) Math.ceil(max[2]) + 1;
+
+        //local offset when moving by one block on the world z-axis
+        double[] step = new double[3];
+        rotator.inverse(0, 0, 1, step);
+        BlockPos center = rotator.getCenterPos();
+
+        generateSlabs((int) Math.ceil(max[0]) + 1 - worldMinX + 1, (slab, collector) -> {
+            int x = worldMinX + slab;
+            double[] local = new double[3];
+            for (int y = worldMinY; y <= worldMaxY; y++) {
+                rotator.inverse(x, y, worldMinZ, local);
+                double localX = local[0];
+                double localY = local[1];
+                double localZ = local[2];
+                for (int z = worldMinZ; z <= worldMaxZ; z++) {
+                    if (shape.contains(localX, localY, localZ)) {
+                        collector.accept(LongPosHelper.encodeBlockPos(center.getX() + x, center.getY() + y, center.getZ() + z));
+                    }
+                    localX += step[0];
+                    localY += step[1];
+                    localZ += step[2];
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    protected interface LocalShape {
+        /**
+         * @param x the local x coordinate, before the rotation
+         * @param y the local y coordinate, before the rotation
+         * @param z the local z coordinate, before the rotation
+         * @return true if the pos belongs to the shape
+         */
+        boolean contains(double x, double y, double z);
+    }
+
+    @FunctionalInterface
+    public interface ChunkConsumer {
+        /**
+         * @param chunk     the chunk packed using {@link ChunkPos#toLong()}
+         * @param positions the pos of the shape in the chunk. The set isn't used by the shape anymore
+         */
+        void accept(long chunk, LongOpenHashSet positions);
+    }
+
+    @FunctionalInterface
+    protected interface SlabGenerator {
+        /**
+         * generate a slab of the shape
+         *
+         * @param slab      the index of the slab
+         * @param collector the consumer receiving the generated pos. It must be used instead of {@link #modifyChunkMap(long)}
+         */
+        void generate(int slab, LongConsumer collector);
+    }
+
+    /**
+     * chunk map used by a single task of {@link #generateSlabs(int, SlabGenerator)}
+     */
+    private static class SlabCollector implements LongConsumer {
+        private final Long2ObjectOpenHashMap<LongOpenHashSet> map = new Long2ObjectOpenHashMap<>();
+        private long lastChunk;
+        private LongOpenHashSet lastSet;
+
+        @Override
+        public void accept(long pos) {
+            long chunk = LongPosHelper.getChunkLong(pos);
+            if (lastSet == null || chunk != lastChunk) {
+                lastChunk = chunk;
+                lastSet = map.get(chunk);
+                if (lastSet == null) {
+                    lastSet = new LongOpenHashSet();
+                    map.put(chunk, lastSet);
+                }
+            }
+            lastSet.add(pos);
+        }
     }
-}
\ No newline at end of file
+}
@@ -116,4 +116,33 @@ public abstract class AbstractFillableBlockShape extends AbstractBlockShape {
         if (this.getCustomFill() > 1f) this.customFill = 1f;
         if (this.getCustomFill() < 0f) this.customFill = 0f;
     }
+
+    /**
+     * <p>get the extent of a span of an ellipse-like shape. It returns the biggest {@code k} for which
+     * {@code a + (k * step)² / divisor + b <= 1}, computed in the same order using floats.
+     * <p>The value is first guessed analytically and then corrected,
+     * meaning that the result is the same as testing every pos of the span one by one.
+     *
+     * @param a       the first part of the sum, related to the other axes
+     * @param b       the last part of the sum, related to the other axes
+     * @param step    the distance between two pos of the span
+     * @param divisor the squared radius of the axis of the span
+     * @return the extent of the span, or -1 if the span is empty
+     */
+    protected static int getSpanExtent(float a, float b, float step, float divisor) {
+        float remaining = 1 - a - b;
+        int k = remaining > 0 ? (int) (Math.sqrt(remaining * divisor) / step) : 0;
+        while (k >= 0 && !isInSpan(a, b, k * step, divisor)) {
+            k--;
+        }
+        while (isInSpan(a, b, (k + 1) * step, divisor)) {
+            k++;
+        }
+        return k;
+    }
+
+    private static boolean isInSpan(float a, float b, float z, float divisor) {
+        float zz = z * z;
+        return a + zz / divisor + b <= 1;
+    }
 }
@@ -1,8 +1,22 @@
 package net.rodofire.easierworldcreator.shape.block.layer;
 
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import net.minecraft.block.BlockState;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.util.math.Vec3i;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockLayer;
 import net.rodofire.easierworldcreator.blockdata.layer.BlockLayerManager;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockPalette;
+import net.rodofire.easierworldcreator.shape.block.placer.LayerPlacer;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 
 abstract class AbstractLayer implements Layer {
     protected BlockLayerManager blockLayer;
@@ -44,4 +58,113 @@ abstract class AbstractLayer implements Layer {
     public void setDirectionVector(Vec3i directionVector) {
         this.directionVector = Vec3d.of(directionVector);
     }
+
+    /**
+     * <p>run the task on every element in the worker pool.
+     * Each range of elements fills its own result, so no result is shared between threads.
+     * <p>The results are then merged in the order of the elements, meaning that the result doesn't depend on the scheduling of the threads.
+     *
+     * @param elements the elements, most of the time the chunks
+     * @param factory  create an empty result
+     * @param task     fill the result using an element
+     * @param merger   merge two results, the second one being after the first one
+     * @return the merged result
+     */
+    protected static <T, R> R collect(List<T> elements, Supplier<R> factory, BiConsumer<T, R> task, BinaryOperator<R> merger) {
+        R result = EwcExecutor.mapReduce(elements.size(), (start, end) -> {
+            R part = factory.get();
+            for (int i = start; i < end; i++) {
+                task.accept(elements.get(i), part);
+            }
+            return part;
+        }, merger);
+        return result == null ? factory.get() : result;
+    }
+
+    /**
+     * same as {@link #collect(List, Supplier, BiConsumer, BinaryOperator)} for encoded pos
+     */
+    protected static <R> R collect(long[] positions, Supplier<R> factory, PosTask<R> task, BinaryOperator<R> merger) {
+        R result = EwcExecutor.mapReduce(positions.length, (start, end) -> {
+            R part = factory.get();
+            for (int i = start; i < end; i++) {
+                task.accept(positions[i], part);
+            }
+            return part;
+        }, merger);
+        return result == null ? factory.get() : result;
+    }
+
+    /**
+     * same as {@link #collect(long[], Supplier, PosTask, BinaryOperator)}, the pos of every range being grouped by layer before getting their states,
+     * see {@link LayerGroups}
+     *
+     * @param layerGetter give the layer of a pos, or null if the pos must be skipped
+     * @param task        add the state and its pos to the result
+     */
+    protected static <R> R collectByLayer(long[] positions, Supplier<R> factory, LongFunction<BlockLayer> layerGetter, StateTask<R> task, BinaryOperator<R> merger) {
+        R result = EwcExecutor.mapReduce(positions.length, (start, end) -> {
+            R part = factory.get();
+            LayerGroups groups = new LayerGroups();
+            for (int i = start; i < end; i++) {
+                BlockLayer layer = layerGetter.apply(positions[i]);
+                if (layer != null)
+                    groups.add(layer, positions[i]);
+            }
+            groups.forEach((state, pos) -> task.accept(state, pos, part));
+            return part;
+        }, merger);
+        return result == null ? factory.get() : result;
+    }
+
+    @FunctionalInterface
+    protected interface PosTask<R> {
+        void accept(long pos, R result);
+    }
+
+    @FunctionalInterface
+    protected interface StateTask<R> {
+        void accept(BlockState state, long pos, R result);
+    }
+
+    /**
+     * <p>Group encoded pos by layer, so that the states of a layer are obtained at once with {@link LayerPlacer#get(BlockPalette, long[])}.
+     * <p>This way, the noise of the layers using {@link LayerPlacer.LayerPlace#NOISE2D} or {@link LayerPlacer.LayerPlace#NOISE3D}
+     * is computed in bulk, instead of once per pos.
+     * The layers are given in the order they were first added, and the pos of a layer in the order they were added.
+     */
+    protected static class LayerGroups {
+        private final Reference2ObjectLinkedOpenHashMap<BlockLayer, LongArrayList> groups = new Reference2ObjectLinkedOpenHashMap<>();
+
+        public void add(BlockLayer layer, long pos) {
+            LongArrayList positions = groups.get(layer);
+            if (positions == null) {
+                positions = new LongArrayList();
+                groups.put(layer, positions);
+            }
+            positions.add(pos);
+        }
+
+        /**
+         * get the states of every pos added, then remove the pos
+         *
+         * @param consumer receive every state with its pos
+         */
+        public void forEach(StateConsumer consumer) {
+            for (Reference2ObjectMap.Entry<BlockLayer, LongArrayList> entry : groups.reference2ObjectEntrySet()) {
+                BlockLayer layer = entry.getKey();
+                long[] positions = entry.getValue().toLongArray();
+                BlockState[] states = layer.getPlacer().get(layer.getPalette(), positions);
+                for (int i = 0; i < positions.length; i++) {
+                    consumer.accept(states[i], positions[i]);
+                }
+            }
+            groups.clear();
+        }
+    }
+
+    @FunctionalInterface
+    protected interface StateConsumer {
+        void accept(BlockState state, long pos);
+    }
 }
@@ -4,7 +4,6 @@ import it.unimi.dsi.fastutil.longs.AbstractLongCollection;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
 import net.minecraft.block.BlockState;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
@@ -20,10 +19,7 @@ import net.rodofire.easierworldcreator.util.LongPosHelper;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
 
 //TODO test to see if everything works
 public abstract class AbstractRadialLikeLayer extends AbstractLayer {
@@ -37,7 +33,6 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
 
     @Override
     public BlockListManager get(Map<ChunkPos, LongOpenHashSet> posMap) {
-        BlockListManager manager = new BlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -45,28 +40,13 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posMap.size(), Runtime.getRuntime().availableProcessors())));
-
-        for (LongOpenHashSet set : posMap.values()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                BlockListManager manager1 = new BlockListManager();
-                for (long pos : set) {
-                    float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                    manager1.put(state, pos);
-                }
-                synchronized (manager) {
-                    manager.put(manager1);
-                }
-            }, pool));
-
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collect(new ArrayList<>(posMap.values()), BlockListManager::new, (set, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            for (long pos : set) {
+                groups.add(getLayer(layerDistance, pos), pos);
+            }
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
@@ -83,7 +63,7 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
                 float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
                 int index = findLayerIndex(layerDistance, distance);
                 BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                layer.getPlacer().place(world, layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos), layer.getRuler());
+                layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
             }
         }
     }
@@ -91,49 +71,29 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
     @Override
     public BlockListManager getVerified(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            for (LongOpenHashSet posList : posMap.values()) {
-                worldStates.collect(world1, posList);
-            }
-            BlockListManager manager = new BlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
-
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
+        for (LongOpenHashSet posList : posMap.values()) {
+            worldStates.collect(world, posList);
+        }
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posMap.size(), Runtime.getRuntime().availableProcessors())));
-
-            for (LongOpenHashSet set : posMap.values()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager manager1 = new BlockListManager();
-                    for (long pos : set) {
-                        float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                        int index = findLayerIndex(layerDistance, distance);
-                        BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                        if (!layer.getRuler().canPlace(worldStates.getState(pos)))
-                            continue;
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                        manager1.put(state, pos);
-                    }
-                    synchronized (manager) {
-                        manager.put(manager1);
-                    }
-                }, pool));
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
+        }
 
+        return collect(new ArrayList<>(posMap.values()), BlockListManager::new, (set, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            for (long pos : set) {
+                BlockLayer layer = getLayer(layerDistance, pos);
+                if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                    groups.add(layer, pos);
             }
-
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getDivided(Map<ChunkPos, LongOpenHashSet> posMap) {
-        DividedBlockListManager manager = new DividedBlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -141,77 +101,47 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posMap.size(), Runtime.getRuntime().availableProcessors())));
-
-        for (Map.Entry<ChunkPos, LongOpenHashSet> set : posMap.entrySet()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                BlockListManager manager1 = new BlockListManager();
-                for (long pos : set.getValue()) {
-                    float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                    manager1.put(state, pos);
-                }
-                synchronized (manager) {
-                    manager.putWithoutVerification(set.getKey(), manager1);
-                }
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (set, manager) -> {
+            BlockListManager manager1 = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
+            for (long pos : set.getValue()) {
+                groups.add(getLayer(layerDistance, pos), pos);
+            }
+            groups.forEach(manager1::put);
+            manager.putWithoutVerification(set.getKey(), manager1);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
 
-        if(world instanceof ServerWorld world1) {
-            for (LongOpenHashSet posList : posMap.values()) {
-                worldStates.collect(world1, posList);
-            }
+        for (LongOpenHashSet posList : posMap.values()) {
+            worldStates.collect(world, posList);
+        }
 
-            DividedBlockListManager manager = new DividedBlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
+        }
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posMap.size(), Runtime.getRuntime().availableProcessors())));
-
-            for (Map.Entry<ChunkPos, LongOpenHashSet> set : posMap.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager manager1 = new BlockListManager();
-                    for (long pos : set.getValue()) {
-                        float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                        int index = findLayerIndex(layerDistance, distance);
-                        BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                        if (!layer.getRuler().canPlace(worldStates.getState(pos)))
-                            continue;
-
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                        manager1.put(state, pos);
-                    }
-                    synchronized (manager) {
-                        manager.putWithoutVerification(set.getKey(), manager1);
-                    }
-                }, pool));
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (set, manager) -> {
+            BlockListManager manager1 = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
+            for (long pos : set.getValue()) {
+                BlockLayer layer = getLayer(layerDistance, pos);
+                if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                    groups.add(layer, pos);
             }
-
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+            groups.forEach(manager1::put);
+            manager.putWithoutVerification(set.getKey(), manager1);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public <T extends Collection<BlockPos>> BlockListManager get(T posList) {
-        BlockListManager manager = new BlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -219,24 +149,13 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-
-        for (BlockPos pos : posList) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
-                int index = findLayerIndex(layerDistance, distance);
-                BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                BlockState state = layer.getPlacer().get(layer.getBlockStates(), pos);
-                synchronized (manager) {
-                    manager.put(state, pos);
-                }
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collect(new ArrayList<>(posList), BlockListManager::new, (pos, manager) -> {
+            float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
+            int index = findLayerIndex(layerDistance, distance);
+            BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
+            BlockState state = layer.getPlacer().get(layer.getPalette(), pos);
+            manager.put(state, pos);
+        }, BlockListManager::put);
     }
 
     @Override
@@ -252,51 +171,35 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
             int index = findLayerIndex(layerDistance, distance);
             BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-            layer.getPlacer().place(world, layer.getBlockStates(), pos, layer.getRuler());
+            layer.getPlacer().place(world, layer.getPalette(), pos, layer.getRuler());
         }
     }
 
     @Override
     public <T extends Collection<BlockPos>> BlockListManager getVerified(StructureWorldAccess world, T posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            BlockListManager manager = new BlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
+        }
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-
-            for (BlockPos pos : posList) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    if (layer.getRuler().canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos)))) {
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), pos);
-                        synchronized (manager) {
-                            manager.put(state, pos);
-                        }
-                    }
-                }, pool));
+        return collect(new ArrayList<>(posList), BlockListManager::new, (pos, manager) -> {
+            float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
+            int index = findLayerIndex(layerDistance, distance);
+            BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
+            if (layer.getRuler().canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos)))) {
+                BlockState state = layer.getPlacer().get(layer.getPalette(), pos);
+                manager.put(state, pos);
             }
-
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+        }, BlockListManager::put);
     }
 
     @Override
     public <T extends Collection<BlockPos>> DividedBlockListManager getDivided(T posList) {
-        DividedBlockListManager manager = new DividedBlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -304,67 +207,40 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-
-        for (BlockPos pos : posList) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
-                int index = findLayerIndex(layerDistance, distance);
-                BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                BlockState state = layer.getPlacer().get(layer.getBlockStates(), pos);
-                synchronized (manager) {
-                    manager.put(state, pos);
-                }
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collect(new ArrayList<>(posList), DividedBlockListManager::new, (pos, manager) -> {
+            float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
+            int index = findLayerIndex(layerDistance, distance);
+            BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
+            BlockState state = layer.getPlacer().get(layer.getPalette(), pos);
+            manager.put(state, pos);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public <T extends Collection<BlockPos>> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, T posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            DividedBlockListManager manager = new DividedBlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
+        }
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-
-            for (BlockPos pos : posList) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    if (layer.getRuler().canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos)))) {
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), pos);
-                        synchronized (manager) {
-                            manager.put(state, pos);
-                        }
-                    }
-                }, pool));
+        return collect(new ArrayList<>(posList), DividedBlockListManager::new, (pos, manager) -> {
+            float distance = getDistance(pos.getX(), pos.getY(), pos.getZ());
+            int index = findLayerIndex(layerDistance, distance);
+            BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
+            if (layer.getRuler().canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos)))) {
+                BlockState state = layer.getPlacer().get(layer.getPalette(), pos);
+                manager.put(state, pos);
             }
-
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public <U extends AbstractLongCollection> BlockListManager get(U posList) {
-        BlockListManager manager = new BlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -372,24 +248,8 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-        for (long pos : posList) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                int index = findLayerIndex(layerDistance, distance);
-                BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                synchronized (manager) {
-                    manager.put(state, pos);
-                }
-            }, pool));
-
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collectByLayer(posList.toLongArray(), BlockListManager::new, pos -> getLayer(layerDistance, pos),
+                (state, pos, manager) -> manager.put(state, pos), BlockListManager::put);
     }
 
     @Override
@@ -405,7 +265,7 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
             int index = findLayerIndex(layerDistance, distance);
             BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-            layer.getPlacer().place(world, layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos), layer.getRuler());
+            layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
         }
 
     }
@@ -413,44 +273,23 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
     @Override
     public <U extends AbstractLongCollection> BlockListManager getVerified(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            BlockListManager manager = new BlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
-
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
-
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-            for (long pos : posList) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    if (layer.getRuler().canPlace(worldStates.getState(pos))) {
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                        synchronized (manager) {
-                            manager.put(state, pos);
-                        }
-                    }
-                }, pool));
-
-            }
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
-        return null;
+
+        return collectByLayer(posList.toLongArray(), BlockListManager::new, pos -> {
+            BlockLayer layer = getLayer(layerDistance, pos);
+            return layer.getRuler().canPlace(worldStates.getState(pos)) ? layer : null;
+        }, (state, pos, manager) -> manager.put(state, pos), BlockListManager::put);
     }
 
     @Override
     public <U extends AbstractLongCollection> DividedBlockListManager getDivided(U posList) {
-        DividedBlockListManager manager = new DividedBlockListManager();
         int[] layerDistance = new int[this.blockLayer.size()];
         layerDistance[0] = this.blockLayer.get(0).getDepth();
 
@@ -458,61 +297,34 @@ public abstract class AbstractRadialLikeLayer extends AbstractLayer {
             layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
         }
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-        for (long pos : posList) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                int index = findLayerIndex(layerDistance, distance);
-                BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                synchronized (manager) {
-                    manager.put(state, pos);
-                }
-            }, pool));
-
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collectByLayer(posList.toLongArray(), DividedBlockListManager::new, pos -> getLayer(layerDistance, pos),
+                (state, pos, manager) -> manager.put(state, pos), DividedBlockListManager::put);
     }
 
     @Override
     public <U extends AbstractLongCollection> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            DividedBlockListManager manager = new DividedBlockListManager();
-            int[] layerDistance = new int[this.blockLayer.size()];
-            layerDistance[0] = this.blockLayer.get(0).getDepth();
+        int[] layerDistance = new int[this.blockLayer.size()];
+        layerDistance[0] = this.blockLayer.get(0).getDepth();
 
-            for (int i = 1; i < this.blockLayer.size(); i++) {
-                layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
-            }
+        for (int i = 1; i < this.blockLayer.size(); i++) {
+            layerDistance[i] = this.blockLayer.get(i).getDepth() + layerDistance[i - 1];
+        }
 
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(2, Math.min(posList.size(), Runtime.getRuntime().availableProcessors())));
-
-            for (long pos : posList) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    float distance = getDistance(LongPosHelper.decodeBlockPos2Array(pos));
-                    int index = findLayerIndex(layerDistance, distance);
-                    BlockLayer layer = (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
-                    if (layer.getRuler().canPlace(worldStates.getState(pos))) {
-                        BlockState state = layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos));
-                        synchronized (manager) {
-                            manager.put(state, pos);
-                        }
-                    }
-                }, pool));
-            }
+        return collectByLayer(posList.toLongArray(), DividedBlockListManager::new, pos -> {
+            BlockLayer layer = getLayer(layerDistance, pos);
+            return layer.getRuler().canPlace(worldStates.getState(pos)) ? layer : null;
+        }, (state, pos, manager) -> manager.put(state, pos), DividedBlockListManager::put);
+    }
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+    /**
+     * @return the layer of an encoded pos
+     */
+    private BlockLayer getLayer(int[] layerDistance, long pos) {
+        int index = findLayerIndex(layerDistance, getDistance(LongPosHelper.decodeBlockPos2Array(pos)));
+        return (index >= 0) ? blockLayer.get(index) : blockLayer.get(0);
     }
 
     protected abstract float getDistance(int[] pos);
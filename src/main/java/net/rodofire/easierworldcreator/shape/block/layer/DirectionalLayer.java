@@ -2,7 +2,6 @@ package net.rodofire.easierworldcreator.shape.block.layer;
 
 import it.unimi.dsi.fastutil.longs.AbstractLongCollection;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
@@ -20,10 +19,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
 
 //TODO need test
 
@@ -34,34 +30,17 @@ public class DirectionalLayer extends AbstractLayer {
 
     @Override
     public BlockListManager get(Map<ChunkPos, LongOpenHashSet> posMap) {
-        BlockListManager manager = new BlockListManager();
-
         int[] depth = initDepth();
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors() / 2, posMap.size()));
         double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
-
         this.directionVector = this.directionVector.normalize();
-        for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                BlockListManager threadedManager = new BlockListManager();
-                for (long po : entry.getValue()) {
-                    double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(po).toCenterPos()) / distanceMin;
-
-                    BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                    threadedManager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(po)), po);
-                }
-                synchronized (manager) {
-                    manager.put(threadedManager);
-                }
-
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        return manager;
+        return collect(new ArrayList<>(posMap.values()), BlockListManager::new, (set, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            for (long po : set) {
+                groups.add(getLayer(depth, distanceMin, po), po);
+            }
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
@@ -72,113 +51,64 @@ public class DirectionalLayer extends AbstractLayer {
     @Override
     public BlockListManager getVerified(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            for (LongOpenHashSet set : posMap.values()) {
-                worldStates.collect(world1, set);
-            }
-            BlockListManager manager = new BlockListManager();
-
-            int[] depth = initDepth();
-
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors() / 2, posMap.size()));
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
-
-            this.directionVector = this.directionVector.normalize();
-            for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager threadedManager = new BlockListManager();
-                    for (long po : entry.getValue()) {
-                        double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(po).toCenterPos()) / distanceMin;
-
-                        BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                        if (layer.getRuler().canPlace(worldStates.getState(po)))
-                            threadedManager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(po)), po);
-                    }
-                    synchronized (manager) {
-                        manager.put(threadedManager);
-                    }
-
-                }, pool));
-            }
+        for (LongOpenHashSet set : posMap.values()) {
+            worldStates.collect(world, set);
+        }
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        int[] depth = initDepth();
 
-            return manager;
-        }
-        return null;
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        this.directionVector = this.directionVector.normalize();
+        return collect(new ArrayList<>(posMap.values()), BlockListManager::new, (set, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            for (long po : set) {
+                BlockLayer layer = getLayer(depth, distanceMin, po);
+                if (layer.getRuler().canPlace(worldStates.getState(po)))
+                    groups.add(layer, po);
+            }
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getDivided(Map<ChunkPos, LongOpenHashSet> posMap) {
-        DividedBlockListManager manager = new DividedBlockListManager();
-
         int[] depth = initDepth();
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors() / 2, posMap.size()));
         double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
-
         this.directionVector = this.directionVector.normalize();
-        for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                BlockListManager threadedManager = new BlockListManager();
-                for (long po : entry.getValue()) {
-                    double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(po).toCenterPos()) / distanceMin;
-
-                    BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                    threadedManager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(po)), po);
-                }
-                synchronized (manager) {
-                    manager.putWithoutVerification(threadedManager);
-                }
-
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-
-        return manager;
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (entry, manager) -> {
+            BlockListManager chunkManager = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
+            for (long po : entry.getValue()) {
+                groups.add(getLayer(depth, distanceMin, po), po);
+            }
+            groups.forEach(chunkManager::put);
+            manager.putWithoutVerification(entry.getKey(), chunkManager);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            for (LongOpenHashSet set : posMap.values()) {
-                worldStates.collect(world1, set);
-            }
-            DividedBlockListManager manager = new DividedBlockListManager();
-
-            int[] depth = initDepth();
-
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(Runtime.getRuntime().availableProcessors() / 2, posMap.size()));
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
-
-            this.directionVector = this.directionVector.normalize();
-            for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager threadedManager = new BlockListManager();
-                    for (long po : entry.getValue()) {
-                        double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(po).toCenterPos()) / distanceMin;
-
-                        BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                        if (layer.getRuler().canPlace(worldStates.getState(po)))
-                            threadedManager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(po)), po);
-                    }
-                    synchronized (manager) {
-                        manager.putWithoutVerification(threadedManager);
-                    }
-
-                }, pool));
-            }
+        for (LongOpenHashSet set : posMap.values()) {
+            worldStates.collect(world, set);
+        }
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        int[] depth = initDepth();
 
-            return manager;
-        }
-        return null;
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        this.directionVector = this.directionVector.normalize();
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (entry, manager) -> {
+            BlockListManager chunkManager = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
+            for (long po : entry.getValue()) {
+                BlockLayer layer = getLayer(depth, distanceMin, po);
+                if (layer.getRuler().canPlace(worldStates.getState(po)))
+                    groups.add(layer, po);
+            }
+            groups.forEach(chunkManager::put);
+            manager.putWithoutVerification(entry.getKey(), chunkManager);
+        }, DividedBlockListManager::put);
     }
 
     @Override
@@ -194,7 +124,7 @@ public class DirectionalLayer extends AbstractLayer {
             double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, pos.toCenterPos()) / distanceMin;
 
             BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-            manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
+            manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
         }
         return manager;
     }
@@ -207,26 +137,23 @@ public class DirectionalLayer extends AbstractLayer {
     @Override
     public <T extends Collection<BlockPos>> BlockListManager getVerified(StructureWorldAccess world, T posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            BlockListManager manager = new BlockListManager();
+        BlockListManager manager = new BlockListManager();
 
-            int[] depth = initDepth();
+        int[] depth = initDepth();
 
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
-            this.directionVector = this.directionVector.normalize();
-            for (BlockPos pos : posList) {
-                double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, pos.toCenterPos()) / distanceMin;
+        this.directionVector = this.directionVector.normalize();
+        for (BlockPos pos : posList) {
+            double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, pos.toCenterPos()) / distanceMin;
 
-                BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                if (layer.getRuler().canPlace(worldStates.getState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
-            }
-            return manager;
+            BlockLayer layer = blockLayer.get(binarySearch(depth, b));
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
         }
-        return null;
+        return manager;
     }
 
     @Override
@@ -243,7 +170,7 @@ public class DirectionalLayer extends AbstractLayer {
 
             BlockLayer layer = blockLayer.get(binarySearch(depth, b));
 
-            manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
+            manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
         }
         return manager;
     }
@@ -251,25 +178,22 @@ public class DirectionalLayer extends AbstractLayer {
     @Override
     public <T extends Collection<BlockPos>> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, T posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
-            DividedBlockListManager manager = new DividedBlockListManager();
+        worldStates.collect(world, posList);
+        DividedBlockListManager manager = new DividedBlockListManager();
 
-            int[] depth = initDepth();
+        int[] depth = initDepth();
 
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
-            this.directionVector = this.directionVector.normalize();
-            for (BlockPos pos : posList) {
-                double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, pos.toCenterPos()) / distanceMin;
+        this.directionVector = this.directionVector.normalize();
+        for (BlockPos pos : posList) {
+            double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, pos.toCenterPos()) / distanceMin;
 
-                BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                if (layer.getRuler().canPlace(worldStates.getState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
-            }
-            return manager;
+            BlockLayer layer = blockLayer.get(binarySearch(depth, b));
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
         }
-        return null;
+        return manager;
     }
 
     @Override
@@ -281,12 +205,11 @@ public class DirectionalLayer extends AbstractLayer {
         double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
         this.directionVector = this.directionVector.normalize();
+        LayerGroups groups = new LayerGroups();
         for (long pos : posList) {
-            double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(pos).toCenterPos()) / distanceMin;
-
-            BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-            manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+            groups.add(getLayer(depth, distanceMin, pos), pos);
         }
+        groups.forEach(manager::put);
         return manager;
     }
 
@@ -298,26 +221,23 @@ public class DirectionalLayer extends AbstractLayer {
     @Override
     public <U extends AbstractLongCollection> BlockListManager getVerified(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
-
-            BlockListManager manager = new BlockListManager();
+        worldStates.collect(world, posList);
 
-            int[] depth = initDepth();
+        BlockListManager manager = new BlockListManager();
 
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        int[] depth = initDepth();
 
-            this.directionVector = this.directionVector.normalize();
-            for (long pos : posList) {
-                double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(pos).toCenterPos()) / distanceMin;
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
-                BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                if (layer.getRuler().canPlace(worldStates.getState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
-            }
-            return manager;
+        this.directionVector = this.directionVector.normalize();
+        LayerGroups groups = new LayerGroups();
+        for (long pos : posList) {
+            BlockLayer layer = getLayer(depth, distanceMin, pos);
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                groups.add(layer, pos);
         }
-        return null;
+        groups.forEach(manager::put);
+        return manager;
     }
 
     @Override
@@ -329,39 +249,42 @@ public class DirectionalLayer extends AbstractLayer {
         double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
         this.directionVector = this.directionVector.normalize();
+        LayerGroups groups = new LayerGroups();
         for (long pos : posList) {
-            double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(pos).toCenterPos()) / distanceMin;
-
-            BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-
-            manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+            groups.add(getLayer(depth, distanceMin, pos), pos);
         }
+        groups.forEach(manager::put);
         return manager;
     }
 
     @Override
     public <U extends AbstractLongCollection> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
-
-            DividedBlockListManager manager = new DividedBlockListManager();
+        worldStates.collect(world, posList);
 
-            int[] depth = initDepth();
+        DividedBlockListManager manager = new DividedBlockListManager();
 
-            double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
+        int[] depth = initDepth();
 
-            this.directionVector = this.directionVector.normalize();
-            for (long pos : posList) {
-                double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(pos).toCenterPos()) / distanceMin;
+        double distanceMin = WorldGenUtil.getExactDistance(directionVector) / WorldGenUtil.getSquared(directionVector);
 
-                BlockLayer layer = blockLayer.get(binarySearch(depth, b));
-                if (layer.getRuler().canPlace(worldStates.getState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
-            }
-            return manager;
+        this.directionVector = this.directionVector.normalize();
+        LayerGroups groups = new LayerGroups();
+        for (long pos : posList) {
+            BlockLayer layer = getLayer(depth, distanceMin, pos);
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                groups.add(layer, pos);
         }
-        return null;
+        groups.forEach(manager::put);
+        return manager;
+    }
+
+    /**
+     * @return the layer of an encoded pos, the direction vector being normalized
+     */
+    private BlockLayer getLayer(int[] depth, double distanceMin, long pos) {
+        double b = WorldGenUtil.getDistanceFromPointToPlane(this.directionVector, this.centerPos, LongPosHelper.decodeBlockPos(pos).toCenterPos()) / distanceMin;
+        return blockLayer.get(binarySearch(depth, b));
     }
 
     private int @NotNull [] initDepth() {
@@ -2,6 +2,7 @@ package net.rodofire.easierworldcreator.shape.block.layer;
 
 import it.unimi.dsi.fastutil.longs.AbstractLongCollection;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.util.math.Vec3d;
@@ -49,12 +50,13 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             BlockListManager manager = new BlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posMap.forEach((
-                    (chunkPos, longs) -> longs.forEach(
-                            (pos) ->
-                                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos)
-                    ))
-            );
+            posMap.forEach((chunkPos, longs) -> {
+                long[] positions = longs.toLongArray();
+                BlockState[] states = layer.getPlacer().get(layer.getPalette(), positions);
+                for (int i = 0; i < positions.length; i++) {
+                    manager.put(states[i], positions[i]);
+                }
+            });
             return manager;
         }
         return getLayer().get(posMap);
@@ -66,7 +68,7 @@ public class LayerManager implements Layer {
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posMap.forEach((
                     (chunkPos, longs) -> longs.forEach(
-                            (pos) -> layer.getPlacer().place(world, layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos), layer.getRuler())
+                            (pos) -> layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler())
                     ))
             );
         }
@@ -81,8 +83,8 @@ public class LayerManager implements Layer {
             posMap.forEach((
                     (chunkPos, longs) -> longs.forEach(
                             (pos) -> {
-                                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeBlockPos(pos))))
-                                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+                                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeMutable(pos))))
+                                    manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
 
                             }
                     ))
@@ -97,12 +99,13 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             DividedBlockListManager manager = new DividedBlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posMap.forEach((
-                    (chunkPos, longs) -> longs.forEach(
-                            (pos) ->
-                                    manager.putWithoutVerification(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos)
-                    ))
-            );
+            posMap.forEach((chunkPos, longs) -> {
+                long[] positions = longs.toLongArray();
+                BlockState[] states = layer.getPlacer().get(layer.getPalette(), positions);
+                for (int i = 0; i < positions.length; i++) {
+                    manager.putWithoutVerification(states[i], positions[i]);
+                }
+            });
             return manager;
         }
         return getLayer().getDivided(posMap);
@@ -116,8 +119,8 @@ public class LayerManager implements Layer {
             posMap.forEach((
                     (chunkPos, longs) -> longs.forEach(
                             (pos) -> {
-                                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeBlockPos(pos))))
-                                    manager.putWithoutVerification(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+                                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeMutable(pos))))
+                                    manager.putWithoutVerification(layer.getPlacer().get(layer.getPalette(), pos), pos);
                             }
                     ))
             );
@@ -131,7 +134,7 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             BlockListManager manager = new BlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posList.forEach(((pos) -> manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos)));
+            posList.forEach(((pos) -> manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos)));
             return manager;
         }
         return getLayer().get(posList);
@@ -141,7 +144,7 @@ public class LayerManager implements Layer {
     public <T extends Collection<BlockPos>> void place(StructureWorldAccess world, T posList) {
         if (blockLayerManager.size() == 1) {
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posList.forEach(((pos) -> layer.getPlacer().place(world, layer.getBlockStates(), pos, layer.getRuler())));
+            posList.forEach(((pos) -> layer.getPlacer().place(world, layer.getPalette(), pos, layer.getRuler())));
         }
         getLayer().place(world, posList);
     }
@@ -153,7 +156,7 @@ public class LayerManager implements Layer {
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
                 if (layer.getRuler().canPlace(world.getBlockState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
+                    manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
             }));
             return manager;
         }
@@ -166,7 +169,7 @@ public class LayerManager implements Layer {
             DividedBlockListManager manager = new DividedBlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
-                manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
+                manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
             }));
             return manager;
         }
@@ -180,7 +183,7 @@ public class LayerManager implements Layer {
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
                 if (layer.getRuler().canPlace(world.getBlockState(pos)))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), pos), pos);
+                    manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
             }));
             return manager;
         }
@@ -192,9 +195,11 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             BlockListManager manager = new BlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posList.forEach(((pos) -> {
-                manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
-            }));
+            long[] positions = posList.toLongArray();
+            BlockState[] states = layer.getPlacer().get(layer.getPalette(), positions);
+            for (int i = 0; i < positions.length; i++) {
+                manager.put(states[i], positions[i]);
+            }
             return manager;
         }
         return getLayer().get(posList);
@@ -205,7 +210,7 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
-                layer.getPlacer().place(world, layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos), layer.getRuler());
+                layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
             }));
         }
         getLayer().place(world, posList);
@@ -217,8 +222,8 @@ public class LayerManager implements Layer {
             BlockListManager manager = new BlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
-                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeBlockPos(pos))))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeMutable(pos))))
+                    manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
             }));
             return manager;
         }
@@ -230,9 +235,11 @@ public class LayerManager implements Layer {
         if (blockLayerManager.size() == 1) {
             DividedBlockListManager manager = new DividedBlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
-            posList.forEach(((pos) -> {
-                manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
-            }));
+            long[] positions = posList.toLongArray();
+            BlockState[] states = layer.getPlacer().get(layer.getPalette(), positions);
+            for (int i = 0; i < positions.length; i++) {
+                manager.put(states[i], positions[i]);
+            }
             return manager;
         }
         return getLayer().getDivided(posList);
@@ -244,8 +251,8 @@ public class LayerManager implements Layer {
             DividedBlockListManager manager = new DividedBlockListManager();
             BlockLayer layer = blockLayerManager.getFirstLayer();
             posList.forEach(((pos) -> {
-                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeBlockPos(pos))))
-                    manager.put(layer.getPlacer().get(layer.getBlockStates(), LongPosHelper.decodeBlockPos(pos)), pos);
+                if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeMutable(pos))))
+                    manager.put(layer.getPlacer().get(layer.getPalette(), pos), pos);
             }));
             return manager;
         }
@@ -0,0 +1,114 @@
+package net.rodofire.easierworldcreator.shape.block.layer;
+
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>Column of blocks used by {@link SurfaceLayer} to compute the depth of every pos.
+ * <p>The pos of the column are stored as a bitset, the bit {@code i} being the block at {@code minY + i}.
+ * A pos belongs to a layer of depth {@code d} if the block {@code d} blocks above isn't in the column anymore,
+ * which is computed for 64 blocks at once by shifting the bitset.
+ * The column is reused between every column of a shape to avoid allocations.
+ */
+class SurfaceColumn {
+    private long[] bits = new long[4];
+    private long[] removed = new long[4];
+    private int words;
+    private int minY;
+    private int x;
+    private int z;
+    private boolean empty;
+
+    /**
+     * clear the column to start a new one
+     *
+     * @param x    the x coordinate of the column
+     * @param z    the z coordinate of the column
+     * @param minY the lowest y of the column
+     * @param maxY the highest y of the column
+     */
+    void reset(int x, int z, int minY, int maxY) {
+        this.x = x;
+        this.z = z;
+        this.minY = minY;
+        this.words = ((maxY - minY) >> 6) + 1;
+        if (bits.length < words) {
+            bits = new long[words];
+            removed = new long[words];
+        } else {
+            Arrays.fill(bits, 0, words, 0L);
+        }
+        this.empty = true;
+    }
+
+    void add(int y) {
+        int bit = y - minY;
+        bits[bit >>> 6] |= 1L << bit;
+        empty = false;
+    }
+
+    /**
+     * add up to 64 contiguous blocks at once
+     *
+     * @param offset the offset from minY of the first block, must be a multiple of 16
+     * @param mask   the blocks to add, the lowest bit being at {@code minY + offset}
+     */
+    void add(int offset, long mask) {
+        if (mask == 0)
+            return;
+        bits[offset >>> 6] |= mask << offset;
+        empty = false;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * remove the pos whose block {@code depth} blocks above isn't in the column.
+     * The removed pos are given by {@link #forEachRemoved(LongConsumer)}
+     *
+     * @param depth the depth of the layer
+     */
+    void peel(int depth) {
+        int wordShift = depth >>> 6;
+        int bitShift = depth & 63;
+        boolean left = false;
+        //ascending order, so the words read to compute the shift were not modified yet
+        for (int i = 0; i < words; i++) {
+            long above = get(i + wordShift) >>> bitShift;
+            if (bitShift != 0)
+                above |= get(i + wordShift + 1) << (64 - bitShift);
+            long peeled = bits[i] & ~above;
+            removed[i] = peeled;
+            bits[i] &= ~peeled;
+            left |= bits[i] != 0;
+        }
+        empty = !left;
+    }
+
+    void forEachRemoved(LongConsumer consumer) {
+        forEach(removed, consumer);
+    }
+
+    void forEachLeft(LongConsumer consumer) {
+        forEach(bits, consumer);
+    }
+
+    private void forEach(long[] array, LongConsumer consumer) {
+        for (int i = 0; i < words; i++) {
+            long word = array[i];
+            while (word != 0) {
+                int bit = (i << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                consumer.accept(LongPosHelper.encodeBlockPos(x, minY + bit, z));
+            }
+        }
+    }
+
+    private long get(int word) {
+        return word < words ? bits[word] : 0L;
+    }
+}
@@ -2,314 +2,127 @@ package net.rodofire.easierworldcreator.shape.block.layer;
 
 import it.unimi.dsi.fastutil.longs.AbstractLongCollection;
 import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
-import it.unimi.dsi.fastutil.longs.LongSet;
-import net.minecraft.block.BlockState;
-import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.StructureWorldAccess;
-import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
 import net.rodofire.easierworldcreator.blockdata.WorldStateCollector;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
 import net.rodofire.easierworldcreator.blockdata.blocklist.DividedBlockListManager;
-import net.rodofire.easierworldcreator.blockdata.blocklist.OrderedBlockListManager;
 import net.rodofire.easierworldcreator.blockdata.layer.BlockLayer;
 import net.rodofire.easierworldcreator.blockdata.layer.BlockLayerManager;
-import net.rodofire.easierworldcreator.shape.block.placer.LayerPlacer;
 import net.rodofire.easierworldcreator.util.LongPosHelper;
-import net.rodofire.easierworldcreator.util.consumer.QuadConsumer;
+import net.rodofire.easierworldcreator.world.chunk.ChunkVoxelSet;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
 
+/**
+ * <p>Put the first layer on top of the structure for every x and z, and the next layers below it.
+ * <p>A pos belongs to a layer if the block {@code depth} blocks above it isn't part of the remaining pos.
+ * Instead of testing every pos for every layer, the pos are grouped by column and every column is solved in a single sweep, see {@link SurfaceColumn}.
+ */
 class SurfaceLayer extends AbstractLayer {
 
     SurfaceLayer(BlockLayerManager blockLayer) {
         super(blockLayer);
     }
 
-    //TODO see which performs better: iterator or LongOpenHashSet allocation.
-    // See if pool good parameterized.
-    // see about synchronised, if that's not better to store the result in a map and to join them later.
     @Override
     public BlockListManager get(Map<ChunkPos, LongOpenHashSet> posMap) {
-        BlockListManager manager = new BlockListManager();
-
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(posMap.size(), Runtime.getRuntime().availableProcessors()));
-
-        //System.out.println("get");
-        for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                //System.out.println("future");
-                BlockListManager threadedManager = new BlockListManager();
-                LongSet leftPositions = entry.getValue();
-
-                processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                    threadedManager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-                });
-                //System.out.println("process common");
-
-                synchronized (manager) {
-                    manager.put(threadedManager);
-                    //System.out.println("synchronised");
-                }
-                //System.out.println("processed layer");
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+        return collect(new ArrayList<>(posMap.entrySet()), BlockListManager::new, (entry, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            processChunk(entry, groups::add);
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
     public void place(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-            LongSet leftPositions = entry.getValue();
-
-            for (int i = 1; i < blockLayer.size(); i++) {
-                if (leftPositions.isEmpty()) {
-                    break;
-                }
-
-                BlockLayer layer = blockLayer.get(i - 1);
-                int depth = layer.getDepth();
-                LongSet difference = new LongOpenHashSet();
-
-                LayerPlacer placer = layer.getPlacer();
-                List<BlockState> states = layer.getBlockStates();
-                StructurePlacementRuleManager ruler = layer.getRuler();
-
-                for (long pos : leftPositions) {
-                    if (!leftPositions.contains(LongPosHelper.up(pos, depth))) {
-                        difference.add(pos);
-                        placer.place(world, states, LongPosHelper.decodeBlockPos(pos), ruler);
-                    }
-                }
-                leftPositions.removeAll(difference);
-            }
-
-            if (!leftPositions.isEmpty()) {
-                List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-                LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-                StructurePlacementRuleManager ruler = blockLayer.getLastLayer().getRuler();
-                for (long pos : leftPositions) {
-                    placer.place(world, states, LongPosHelper.decodeBlockPos(pos), ruler);
-                }
-            }
-
+            processChunk(entry, (layer, pos) -> {
+                layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
+            });
         }
     }
 
     @Override
     public BlockListManager getVerified(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            for(LongOpenHashSet set : posMap.values()) {
-                worldStates.collect(world1, set);
-            }
-            BlockListManager manager = new BlockListManager();
-
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(posMap.size(), Runtime.getRuntime().availableProcessors()));
-
-            for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager threadedManager = new BlockListManager();
-                    LongSet leftPositions = entry.getValue();
-
-                    processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                        if (ruler.canPlace(worldStates.getState(pos)))
-                            manager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-                    });
-
-                    synchronized (manager) {
-                        manager.put(threadedManager);
-                    }
-                }, pool));
-            }
-
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
+        for(LongOpenHashSet set : posMap.values()) {
+            worldStates.collect(world, set);
         }
-        return null;
+
+        return collect(new ArrayList<>(posMap.entrySet()), BlockListManager::new, (entry, manager) -> {
+            LayerGroups groups = new LayerGroups();
+            processChunk(entry, (layer, pos) -> {
+                if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                    groups.add(layer, pos);
+            });
+            groups.forEach(manager::put);
+        }, BlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getDivided(Map<ChunkPos, LongOpenHashSet> posMap) {
-        DividedBlockListManager manager = new DividedBlockListManager();
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (entry, manager) -> {
+            BlockListManager chunkManager = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
 
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        ForkJoinPool pool = new ForkJoinPool(Math.min(posMap.size(), Runtime.getRuntime().availableProcessors()));
+            processChunk(entry, groups::add);
+            groups.forEach(chunkManager::put);
 
-        for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                BlockListManager threadedManager = new BlockListManager();
-                LongSet leftPositions = entry.getValue();
-
-                processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                    threadedManager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-                });
-
-                synchronized (manager) {
-                    manager.putWithoutVerification(entry.getKey(), threadedManager);
-                }
-            }, pool));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-        return manager;
+            manager.putWithoutVerification(entry.getKey(), chunkManager);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, Map<ChunkPos, LongOpenHashSet> posMap) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            for(LongOpenHashSet set : posMap.values()) {
-                worldStates.collect(world1, set);
-            }
-
-            DividedBlockListManager manager = new DividedBlockListManager();
-
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Math.min(posMap.size(), Runtime.getRuntime().availableProcessors()));
-
-            for (Map.Entry<ChunkPos, LongOpenHashSet> entry : posMap.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    BlockListManager threadedManager = new BlockListManager();
-                    LongSet leftPositions = entry.getValue();
+        for(LongOpenHashSet set : posMap.values()) {
+            worldStates.collect(world, set);
+        }
 
-                    processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                        if (ruler.canPlace(worldStates.getState(pos)))
-                            threadedManager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-                    });
+        return collect(new ArrayList<>(posMap.entrySet()), DividedBlockListManager::new, (entry, manager) -> {
+            BlockListManager chunkManager = new BlockListManager();
+            LayerGroups groups = new LayerGroups();
 
-                    synchronized (manager) {
-                        manager.putWithoutVerification(entry.getKey(), threadedManager);
-                    }
-                }, pool));
-            }
+            processChunk(entry, (layer, pos) -> {
+                if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                    groups.add(layer, pos);
+            });
+            groups.forEach(chunkManager::put);
 
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-            return manager;
-        }
-        return null;
+            manager.putWithoutVerification(entry.getKey(), chunkManager);
+        }, DividedBlockListManager::put);
     }
 
     @Override
     public <T extends Collection<BlockPos>> BlockListManager get(T posList) {
         BlockListManager manager = new BlockListManager();
 
-        Set<BlockPos> leftPositions = new HashSet<>(posList);
-
-        for (int i = 1; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
-            }
-
-            BlockLayer layer = blockLayer.get(i - 1);
-            int depth = layer.getDepth();
-            Set<BlockPos> difference = new HashSet<>();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-
-            for (BlockPos pos : leftPositions) {
-                if (!leftPositions.contains(pos.up(depth))) {
-                    difference.add(pos);
-                    manager.put(placer.get(states, pos), pos);
-                }
-            }
-            leftPositions.removeAll(difference);
-        }
-
-        if (!leftPositions.isEmpty()) {
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            for (BlockPos pos : leftPositions) {
-                manager.put(placer.get(states, pos), pos);
-            }
-        }
+        LayerGroups groups = new LayerGroups();
+        processColumns(encode(posList), groups::add);
+        groups.forEach(manager::put);
 
         return manager;
     }
 
     @Override
     public <T extends Collection<BlockPos>> void place(StructureWorldAccess world, T posList) {
-        Set<BlockPos> leftPositions = new HashSet<>(posList);
-
-        for (int i = 1; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
-            }
-
-            BlockLayer layer = blockLayer.get(i - 1);
-            int depth = layer.getDepth();
-            Set<BlockPos> difference = new HashSet<>();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-            StructurePlacementRuleManager ruler = layer.getRuler();
-
-            for (BlockPos pos : leftPositions) {
-                if (!leftPositions.contains(pos.up(depth))) {
-                    difference.add(pos);
-                    placer.place(world, states, pos, ruler);
-                }
-            }
-            leftPositions.removeAll(difference);
-        }
-
-        if (!leftPositions.isEmpty()) {
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            StructurePlacementRuleManager ruler = blockLayer.getLastLayer().getRuler();
-            for (BlockPos pos : leftPositions) {
-                placer.place(world, states, pos, ruler);
-            }
-        }
+        processColumns(encode(posList), (layer, pos) -> {
+            layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
+        });
     }
 
     @Override
     public <T extends Collection<BlockPos>> BlockListManager getVerified(StructureWorldAccess world, T posList) {
-        OrderedBlockListManager worldStates = new OrderedBlockListManager();
-
-        for (BlockPos pos : posList) {
-            worldStates.put(world.getBlockState(pos), pos);
-        }
-
         BlockListManager manager = new BlockListManager();
-        Set<BlockPos> leftPositions = new HashSet<>(posList);
-
-        for (int i = 1; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
-            }
 
-            BlockLayer layer = blockLayer.get(i - 1);
-            int depth = layer.getDepth();
-            Set<BlockPos> difference = new HashSet<>();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-
-            for (BlockPos pos : leftPositions) {
-                if (!leftPositions.contains(pos.up(depth))) {
-                    difference.add(pos);
-                    manager.put(placer.get(states, pos), pos);
-                }
-            }
-            leftPositions.removeAll(difference);
-        }
-
-        if (!leftPositions.isEmpty()) {
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            for (BlockPos pos : leftPositions) {
-                manager.put(placer.get(states, pos), pos);
-            }
-        }
+        LayerGroups groups = new LayerGroups();
+        processColumns(encode(posList), (layer, pos) -> {
+            if (layer.getRuler().canPlace(world.getBlockState(LongPosHelper.decodeMutable(pos))))
+                groups.add(layer, pos);
+        });
+        groups.forEach(manager::put);
 
         return manager;
     }
@@ -318,36 +131,9 @@ class SurfaceLayer extends AbstractLayer {
     public <T extends Collection<BlockPos>> DividedBlockListManager getDivided(T posList) {
         DividedBlockListManager manager = new DividedBlockListManager();
 
-        Set<BlockPos> leftPositions = new HashSet<>(posList);
-
-        for (int i = 1; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
-            }
-
-            BlockLayer layer = blockLayer.get(i - 1);
-            int depth = layer.getDepth();
-            Set<BlockPos> difference = new HashSet<>();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-
-            for (BlockPos pos : leftPositions) {
-                if (!leftPositions.contains(pos.up(depth))) {
-                    difference.add(pos);
-                    manager.put(placer.get(states, pos), pos);
-                }
-            }
-            leftPositions.removeAll(difference);
-        }
-
-        if (!leftPositions.isEmpty()) {
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            for (BlockPos pos : leftPositions) {
-                manager.put(placer.get(states, pos), pos);
-            }
-        }
+        LayerGroups groups = new LayerGroups();
+        processColumns(encode(posList), groups::add);
+        groups.forEach(manager::put);
 
         return manager;
     }
@@ -355,128 +141,62 @@ class SurfaceLayer extends AbstractLayer {
     @Override
     public <T extends Collection<BlockPos>> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, T posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
-
-            DividedBlockListManager manager = new DividedBlockListManager();
-            Set<BlockPos> leftPositions = new HashSet<>(posList);
-
-            for (int i = 1; i < blockLayer.size(); i++) {
-                if (leftPositions.isEmpty()) {
-                    break;
-                }
-
-                BlockLayer layer = blockLayer.get(i - 1);
-                int depth = layer.getDepth();
-                Set<BlockPos> difference = new HashSet<>();
+        worldStates.collect(world, posList);
 
-                LayerPlacer placer = layer.getPlacer();
-                List<BlockState> states = layer.getBlockStates();
-                StructurePlacementRuleManager ruler = layer.getRuler();
-
-                for (BlockPos pos : leftPositions) {
-                    if (!leftPositions.contains(pos.up(depth))) {
-                        difference.add(pos);
-                        if (ruler.canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos))))
-                            manager.put(placer.get(states, pos), pos);
-                    }
-                }
-                leftPositions.removeAll(difference);
-            }
+        DividedBlockListManager manager = new DividedBlockListManager();
 
-            if (!leftPositions.isEmpty()) {
-                LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-                List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-                StructurePlacementRuleManager ruler = blockLayer.getLastLayer().getRuler();
-                for (BlockPos pos : leftPositions) {
-                    if (ruler.canPlace(worldStates.getState(LongPosHelper.encodeBlockPos(pos))))
-                        manager.put(placer.get(states, pos), pos);
-                }
-            }
+        LayerGroups groups = new LayerGroups();
+        processColumns(encode(posList), (layer, pos) -> {
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                groups.add(layer, pos);
+        });
+        groups.forEach(manager::put);
 
-            return manager;
-        }
-        return null;
+        return manager;
     }
 
     @Override
     public <U extends AbstractLongCollection> BlockListManager get(U posList) {
         BlockListManager manager = new BlockListManager();
 
-        LongSet leftPositions = new LongOpenHashSet(posList);
-
-        processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-            manager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-        });
+        LayerGroups groups = new LayerGroups();
+        processColumns(posList.toLongArray(), groups::add);
+        groups.forEach(manager::put);
 
         return manager;
     }
 
     @Override
     public <U extends AbstractLongCollection> void place(StructureWorldAccess world, U posList) {
-        LongSet leftPositions = new LongOpenHashSet(posList);
-
-        for (int i = 1; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
-            }
-
-            BlockLayer layer = blockLayer.get(i - 1);
-            int depth = layer.getDepth();
-            LongSet difference = new LongOpenHashSet();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-            StructurePlacementRuleManager ruler = layer.getRuler();
-
-            for (long pos : leftPositions) {
-                if (!leftPositions.contains(LongPosHelper.up(pos, depth))) {
-                    difference.add(pos);
-                    placer.place(world, states, LongPosHelper.decodeBlockPos(pos), ruler);
-                }
-            }
-            leftPositions.removeAll(difference);
-        }
-
-        if (!leftPositions.isEmpty()) {
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            StructurePlacementRuleManager ruler = blockLayer.getLastLayer().getRuler();
-            for (long pos : leftPositions) {
-                placer.place(world, states, LongPosHelper.decodeBlockPos(pos), ruler);
-            }
-        }
+        processColumns(posList.toLongArray(), (layer, pos) -> {
+            layer.getPlacer().place(world, layer.getPalette(), LongPosHelper.decodeMutable(pos), layer.getRuler());
+        });
     }
 
     @Override
     public <U extends AbstractLongCollection> BlockListManager getVerified(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
-
-            BlockListManager manager = new BlockListManager();
-            LongSet leftPositions = new LongOpenHashSet(posList);
+        worldStates.collect(world, posList);
 
+        BlockListManager manager = new BlockListManager();
 
-            processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                if (ruler.canPlace(worldStates.getState(pos)))
-                    manager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-            });
+        LayerGroups groups = new LayerGroups();
+        processColumns(posList.toLongArray(), (layer, pos) -> {
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                groups.add(layer, pos);
+        });
+        groups.forEach(manager::put);
 
-            return manager;
-        }
-        return null;
+        return manager;
     }
 
     @Override
     public <U extends AbstractLongCollection> DividedBlockListManager getDivided(U posList) {
         DividedBlockListManager manager = new DividedBlockListManager();
 
-        LongSet leftPositions = new LongOpenHashSet(posList);
-
-        processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-            manager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-        });
+        LayerGroups groups = new LayerGroups();
+        processColumns(posList.toLongArray(), groups::add);
+        groups.forEach(manager::put);
 
         return manager;
     }
@@ -484,56 +204,109 @@ class SurfaceLayer extends AbstractLayer {
     @Override
     public <U extends AbstractLongCollection> DividedBlockListManager getVerifiedDivided(StructureWorldAccess world, U posList) {
         WorldStateCollector worldStates = new WorldStateCollector();
-        if(world instanceof ServerWorld world1) {
-            worldStates.collect(world1, posList);
+        worldStates.collect(world, posList);
 
-            DividedBlockListManager manager = new DividedBlockListManager();
+        DividedBlockListManager manager = new DividedBlockListManager();
 
-            LongSet leftPositions = new LongOpenHashSet(posList);
+        LayerGroups groups = new LayerGroups();
+        processColumns(posList.toLongArray(), (layer, pos) -> {
+            if (layer.getRuler().canPlace(worldStates.getState(pos)))
+                groups.add(layer, pos);
+        });
+        groups.forEach(manager::put);
 
-            processCommonGet(leftPositions, (placer, states, ruler, pos) -> {
-                if (ruler.canPlace(worldStates.getState(pos)))
-                    manager.put(placer.get(states, LongPosHelper.decodeBlockPos(pos)), pos);
-            });
+        return manager;
+    }
 
-            return manager;
+    private static <T extends Collection<BlockPos>> long[] encode(T posList) {
+        long[] positions = new long[posList.size()];
+        int i = 0;
+        for (BlockPos pos : posList) {
+            positions[i++] = LongPosHelper.encodeBlockPos(pos);
         }
-        return null;
+        return positions;
     }
 
-    private void processCommonGet(LongSet leftPositions, QuadConsumer<LayerPlacer, List<BlockState>, StructurePlacementRuleManager, Long> consumer) {
-        for (int i = 0; i < blockLayer.size(); i++) {
-            if (leftPositions.isEmpty()) {
-                break;
+    /**
+     * solve the pos of a chunk, the columns being read from a {@link ChunkVoxelSet}.
+     * The shapes give {@link LongOpenHashSet}s, the set is built here since filling it is linear, while grouping the columns requires sorting the pos.
+     */
+    private void processChunk(Map.Entry<ChunkPos, LongOpenHashSet> entry, PosConsumer consumer) {
+        ChunkPos chunkPos = entry.getKey();
+        ChunkVoxelSet voxels = ChunkVoxelSet.ofChunk(chunkPos.toLong(), entry.getValue());
+        //some pos aren't in the chunk of the entry
+        if (voxels == null) {
+            processColumns(entry.getValue().toLongArray(), consumer);
+            return;
+        }
+        if (voxels.isEmpty())
+            return;
+
+        SurfaceColumn column = new SurfaceColumn();
+        int minSection = voxels.getMinSectionY();
+        int maxSection = voxels.getMaxSectionY();
+        for (int x = chunkPos.getStartX(); x <= chunkPos.getEndX(); x++) {
+            for (int z = chunkPos.getStartZ(); z <= chunkPos.getEndZ(); z++) {
+                column.reset(x, z, minSection << 4, (maxSection << 4) + 15);
+                for (int sectionY = minSection; sectionY <= maxSection; sectionY++) {
+                    column.add((sectionY - minSection) << 4, voxels.getColumn(x, z, sectionY));
+                }
+                processColumn(column, consumer);
             }
+        }
+    }
 
-            BlockLayer layer = blockLayer.get(i);
-            int depth = layer.getDepth();
-            LongSet difference = new LongOpenHashSet();
-
-            LayerPlacer placer = layer.getPlacer();
-            List<BlockState> states = layer.getBlockStates();
-            StructurePlacementRuleManager ruler = layer.getRuler();
+    /**
+     * solve any pos, the columns being found by sorting the encoded pos:
+     * the pos of a column then follow each other, ordered by y.
+     *
+     * @param positions the encoded pos, the array is sorted
+     */
+    private void processColumns(long[] positions, PosConsumer consumer) {
+        Arrays.sort(positions);
+        SurfaceColumn column = new SurfaceColumn();
+        int start = 0;
+        while (start < positions.length) {
+            long columnKey = positions[start] >>> LongPosHelper.Y_BITS;
+            int end = start + 1;
+            while (end < positions.length && positions[end] >>> LongPosHelper.Y_BITS == columnKey) {
+                end++;
+            }
 
-            for (long pos : leftPositions) {
-                if (!leftPositions.contains(LongPosHelper.up(pos, depth))) {
-                    difference.add(pos);
-                    consumer.accept(placer, states, ruler, pos);
-                }
+            long first = positions[start];
+            column.reset(LongPosHelper.decodeX(first), LongPosHelper.decodeZ(first), LongPosHelper.decodeY(first), LongPosHelper.decodeY(positions[end - 1]));
+            for (int i = start; i < end; i++) {
+                column.add(LongPosHelper.decodeY(positions[i]));
             }
-            leftPositions.removeAll(difference);
+            processColumn(column, consumer);
+            start = end;
         }
+    }
 
-        if (!leftPositions.isEmpty()) {
-            BlockLayer layer = blockLayer.getLastLayer();
+    /**
+     * give every pos of the column to the consumer with its layer.
+     * The pos that are not in any layer are put in the last one
+     */
+    private void processColumn(SurfaceColumn column, PosConsumer consumer) {
+        for (int i = 0; i < blockLayer.size(); i++) {
+            if (column.isEmpty()) {
+                return;
+            }
 
-            LayerPlacer placer = blockLayer.getLastLayer().getPlacer();
-            List<BlockState> states = blockLayer.getLastLayer().getBlockStates();
-            StructurePlacementRuleManager ruler = layer.getRuler();
+            BlockLayer layer = blockLayer.get(i);
 
-            for (long pos : leftPositions) {
-                consumer.accept(placer, states, ruler, pos);
-            }
+            column.peel(layer.getDepth());
+            column.forEachRemoved(pos -> consumer.accept(layer, pos));
         }
+
+        if (!column.isEmpty()) {
+            BlockLayer layer = blockLayer.getLastLayer();
+            column.forEachLeft(pos -> consumer.accept(layer, pos));
+        }
+    }
+
+    @FunctionalInterface
+    private interface PosConsumer {
+        void accept(BlockLayer layer, long pos);
     }
 }
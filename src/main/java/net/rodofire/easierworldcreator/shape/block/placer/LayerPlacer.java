@@ -4,9 +4,12 @@ import net.minecraft.block.BlockState;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.StructureWorldAccess;
 import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockPalette;
 import net.rodofire.easierworldcreator.util.BlockPlaceUtil;
 import net.rodofire.easierworldcreator.util.FastNoiseLite;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
 
+import java.util.Arrays;
 import java.util.List;
 
 @SuppressWarnings("unused")
@@ -14,6 +17,7 @@ public class LayerPlacer {
     private final LayerPlace type;
     FastNoiseLite noise;
     int placedBlocks = 0;
+    long seed = 0;
 
     public LayerPlacer(int placedBlocks, LayerPlace type) {
         this.placedBlocks = placedBlocks;
@@ -29,6 +33,25 @@ public class LayerPlacer {
         this.type = type;
     }
 
+    /**
+     * init a placer using a seed, used by {@link LayerPlace#HASH}
+     *
+     * @param type the type of the placer
+     * @param seed the seed, most of the time {@link StructureWorldAccess#getSeed()}
+     */
+    public LayerPlacer(LayerPlace type, long seed) {
+        this.type = type;
+        this.seed = seed;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
     public boolean place(StructureWorldAccess worldAccess, List<BlockState> states, BlockPos pos) {
         return place(worldAccess, states, pos, null);
     }
@@ -54,6 +77,7 @@ public class LayerPlacer {
             switch (this.type) {
                 case NOISE2D -> state = BlockPlaceUtil.getBlockWith2DNoise(states, pos, this.noise);
                 case NOISE3D -> state = BlockPlaceUtil.getBlockWith3DNoise(states, pos, this.noise);
+                case HASH -> state = BlockPlaceUtil.getBlockWithHash(states, this.seed, pos.getX(), pos.getY(), pos.getZ());
                 case ORDER -> {
                     state = BlockPlaceUtil.getBlockWithOrder(states, this.placedBlocks);
                     this.placedBlocks = (this.placedBlocks + 1) % (states.size() - 1);
@@ -75,6 +99,7 @@ public class LayerPlacer {
             switch (this.type) {
                 case NOISE2D -> state = BlockPlaceUtil.getBlockWith2DNoise(states, pos, this.noise);
                 case NOISE3D -> state = BlockPlaceUtil.getBlockWith3DNoise(states, pos, this.noise);
+                case HASH -> state = BlockPlaceUtil.getBlockWithHash(states, this.seed, pos.getX(), pos.getY(), pos.getZ());
                 case ORDER -> {
                     state = BlockPlaceUtil.getBlockWithOrder(states, this.placedBlocks);
                     this.placedBlocks = (this.placedBlocks + 1) % (states.length - 1);
@@ -104,6 +129,7 @@ public class LayerPlacer {
             case RANDOM -> BlockPlaceUtil.getRandomBlock(states);
             case NOISE2D -> BlockPlaceUtil.getBlockWith2DNoise(states, pos, this.noise);
             case NOISE3D -> BlockPlaceUtil.getBlockWith3DNoise(states, pos, this.noise);
+            case HASH -> BlockPlaceUtil.getBlockWithHash(states, this.seed, pos.getX(), pos.getY(), pos.getZ());
             case ORDER -> {
                 BlockState blockState = BlockPlaceUtil.getBlockWithOrder(states, this.placedBlocks);
                 this.placedBlocks = (this.placedBlocks + 1) % (states.size() - 1);
@@ -119,6 +145,7 @@ public class LayerPlacer {
             case RANDOM -> BlockPlaceUtil.getRandomBlock(states);
             case NOISE2D -> BlockPlaceUtil.getBlockWith2DNoise(states, pos, this.noise);
             case NOISE3D -> BlockPlaceUtil.getBlockWith3DNoise(states, pos, this.noise);
+            case HASH -> BlockPlaceUtil.getBlockWithHash(states, this.seed, pos.getX(), pos.getY(), pos.getZ());
             case ORDER -> {
                 BlockState blockState = BlockPlaceUtil.getBlockWithOrder(states, this.placedBlocks);
                 this.placedBlocks = (this.placedBlocks + 1) % (states.length - 1);
@@ -127,6 +154,115 @@ public class LayerPlacer {
         };
     }
 
+    /**
+     * same as {@link #get(List, BlockPos)} for an encoded pos, see {@link LongPosHelper}.
+     * The pos is only decoded into a {@link BlockPos} when the type needs it
+     */
+    public BlockState get(List<BlockState> states, long pos) {
+        if (states.size() == 1)
+            return states.getFirst();
+        if (this.type == LayerPlace.HASH)
+            return BlockPlaceUtil.getBlockWithHash(states, this.seed, LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+        return get(states, LongPosHelper.decodeMutable(pos));
+    }
+
+    public BlockState get(BlockState[] states, long pos) {
+        if (states.length == 1)
+            return states[0];
+        if (this.type == LayerPlace.HASH)
+            return BlockPlaceUtil.getBlockWithHash(states, this.seed, LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+        return get(states, LongPosHelper.decodeMutable(pos));
+    }
+
+    /**
+     * place the block chosen in the palette, see {@link #get(BlockPalette, BlockPos)}
+     */
+    public boolean place(StructureWorldAccess worldAccess, BlockPalette palette, BlockPos pos, StructurePlacementRuleManager ruler) {
+        BlockState state = get(palette, pos);
+        if (ruler == null) {
+            return worldAccess.getBlockState(pos).isAir() && worldAccess.setBlockState(pos, state, 3);
+        }
+        return ruler.canPlace(state) && worldAccess.setBlockState(pos, state, 3);
+    }
+
+    /**
+     * Used to get the BlockState of a compiled palette, taking the chances of the states into account.
+     * This doesn't place anything
+     *
+     * @param palette the palette of the layer, see {@link net.rodofire.easierworldcreator.blockdata.layer.BlockLayer#getPalette()}
+     * @param pos     the pos of the block
+     * @return the BlockState related to the pos
+     */
+    public BlockState get(BlockPalette palette, BlockPos pos) {
+        if (palette.size() == 1)
+            return palette.getFirst();
+
+        return switch (this.type) {
+            case RANDOM -> palette.getRandom();
+            case NOISE2D -> palette.getWithNoise(this.noise.GetNoise(pos.getX(), pos.getZ()));
+            case NOISE3D -> palette.getWithNoise(this.noise.GetNoise(pos));
+            case HASH -> palette.getWithHash(this.seed, pos.getX(), pos.getY(), pos.getZ());
+            case ORDER -> getOrdered(palette);
+        };
+    }
+
+    /**
+     * same as {@link #get(BlockPalette, BlockPos)} for an encoded pos, no {@link BlockPos} is created
+     */
+    public BlockState get(BlockPalette palette, long pos) {
+        if (palette.size() == 1)
+            return palette.getFirst();
+
+        return switch (this.type) {
+            case RANDOM -> palette.getRandom();
+            case NOISE2D -> palette.getWithNoise(this.noise.GetNoise(LongPosHelper.decodeX(pos), LongPosHelper.decodeZ(pos)));
+            case NOISE3D -> palette.getWithNoise(this.noise.GetNoise(LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos)));
+            case HASH -> palette.getWithHash(this.seed, LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+            case ORDER -> getOrdered(palette);
+        };
+    }
+
+    /**
+     * <p>Used to get the BlockStates of many pos at once, this doesn't place anything.
+     * <p>For {@link LayerPlace#NOISE2D} and {@link LayerPlace#NOISE3D}, the noise of every pos is computed in one loop,
+     * the 2D noise only being computed once per column, see {@link FastNoiseLite#GetNoise2D(long[], float[])}
+     *
+     * @param palette   the palette of the layer
+     * @param positions the encoded pos
+     * @return the states, the state of {@code positions[i]} being at the index {@code i}
+     */
+    public BlockState[] get(BlockPalette palette, long[] positions) {
+        BlockState[] states = new BlockState[positions.length];
+        if (palette.size() == 1) {
+            Arrays.fill(states, palette.getFirst());
+            return states;
+        }
+
+        switch (this.type) {
+            case NOISE2D, NOISE3D -> {
+                float[] values = new float[positions.length];
+                if (this.type == LayerPlace.NOISE2D)
+                    this.noise.GetNoise2D(positions, values);
+                else
+                    this.noise.GetNoise3D(positions, values);
+                for (int i = 0; i < positions.length; i++) {
+                    states[i] = palette.getWithNoise(values[i]);
+                }
+            }
+            default -> {
+                for (int i = 0; i < positions.length; i++) {
+                    states[i] = get(palette, positions[i]);
+                }
+            }
+        }
+        return states;
+    }
+
+    private BlockState getOrdered(BlockPalette palette) {
+        BlockState blockState = palette.get(this.placedBlocks % palette.getTotalWeight());
+        this.placedBlocks = (this.placedBlocks + 1) % palette.getTotalWeight();
+        return blockState;
+    }
 
     /**
      * set how the blocks/particles will be chosen inside a layer
@@ -147,6 +283,12 @@ public class LayerPlacer {
         /**
          * will place the Block/Particle according to a 3d noise
          */
-        NOISE3D
+        NOISE3D,
+        /**
+         * <p>will choose the Block/Particle using a hash of the seed and of the pos.
+         * <p>Unlike {@link #RANDOM} and {@link #ORDER}, the result only depends on the pos,
+         * so the same shape is obtained on every run and whatever the number of threads
+         */
+        HASH
     }
 }
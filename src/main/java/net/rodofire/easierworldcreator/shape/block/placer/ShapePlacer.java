@@ -11,17 +11,18 @@ import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListHelper;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
 import net.rodofire.easierworldcreator.blockdata.blocklist.DividedBlockListManager;
 import net.rodofire.easierworldcreator.blockdata.sorter.BlockSorter;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
 import net.rodofire.easierworldcreator.shape.block.placer.animator.StructurePlaceAnimator;
 import net.rodofire.easierworldcreator.shape.block.layer.LayerManager;
 import net.rodofire.easierworldcreator.util.file.LoadChunkShapeInfo;
 import net.rodofire.easierworldcreator.world.chunk.ChunkPosManager;
 
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ForkJoinPool;
+import java.util.Set;
 
 public class ShapePlacer {
     StructureWorldAccess world;
@@ -78,25 +79,16 @@ public class ShapePlacer {
         if (placeMoment == PlaceMoment.WORLD_GEN &&
                 chunkPosManager.isMultiChunk(posLit.keySet(), center)) {
 
-            System.out.println("placing");
-            List<CompletableFuture<Void>> futures = new ArrayList<>();
-            ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
-
             if (!chunkPosManager.canPlaceMultiChunk(posLit.keySet(), 8))
                 return;
 
             if (shapeData == null)
                 shapeData = WGShapeData.ofStep(GenerationStep.Feature.VEGETAL_DECORATION, this.featureName);
 
-            WGShapeHandler.encodeInformations(posLit.keySet(), shapeData, (chunkPosManager.getOffset()));
-
+            //the layers of the pieces are computed and written by the write-behind executor, off the world-gen thread
             for (Map.Entry<ChunkPos, LongOpenHashSet> posSet : posLit.entrySet()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    manager.get(posSet.getValue())
-                            .placeJson(posSet.getKey(), chunkPosManager.getOffset(), featureName);
-                }, pool));
+                WGShapeHandler.encodePiece(() -> manager.get(posSet.getValue()), posSet.getKey(), chunkPosManager.getOffset(), shapeData);
             }
-            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
 
             placeWorldGenFiles();
 
@@ -111,6 +103,47 @@ public class ShapePlacer {
     }
 
 
+    /**
+     * place a shape without keeping all its coordinates in memory.
+     * Except for animated placement, the shape is consumed one chunk at a time, see {@link AbstractBlockShape#forEachChunk(AbstractBlockShape.ChunkConsumer)}
+     *
+     * @param shape   the shape to place
+     * @param manager the layers of the shape
+     */
+    public void place(AbstractBlockShape shape, LayerManager manager) {
+        ChunkPosManager chunkPosManager = new ChunkPosManager(world);
+        Set<ChunkPos> chunks = null;
+        if (placeMoment == PlaceMoment.WORLD_GEN) {
+            chunks = new HashSet<>();
+            for (long chunk : shape.getChunks()) {
+                chunks.add(new ChunkPos(chunk));
+            }
+        }
+        if (placeMoment == PlaceMoment.WORLD_GEN &&
+                chunkPosManager.isMultiChunk(chunks, center)) {
+
+            if (!chunkPosManager.canPlaceMultiChunk(chunks, 8))
+                return;
+
+            if (shapeData == null)
+                shapeData = WGShapeData.ofStep(GenerationStep.Feature.VEGETAL_DECORATION, this.featureName);
+
+            ChunkPos offset = chunkPosManager.getOffset();
+            shape.forEachChunk((chunk, set) -> WGShapeHandler.encodePiece(() -> manager.get(set), new ChunkPos(chunk), offset, shapeData));
+
+            placeWorldGenFiles();
+
+        } else if (placeMoment == PlaceMoment.ANIMATED_OTHER) {
+            //the animator sorts the whole structure, so it needs every block at once
+            if (animator == null) {
+                animator = new StructurePlaceAnimator(world, new BlockSorter(BlockSorter.BlockSorterType.RANDOM), StructurePlaceAnimator.AnimatorTime.CONSTANT_TICKS);
+            }
+            animator.place(manager.get(shape.getShapeCoordinates()));
+        } else {
+            shape.forEachChunk((chunk, set) -> manager.get(Collections.singletonMap(new ChunkPos(chunk), set)).placeAll(world));
+        }
+    }
+
     public void place(DividedBlockListManager manager) {
         ChunkPosManager chunkPosManager = new ChunkPosManager(world);
         if (placeMoment == PlaceMoment.WORLD_GEN &&
@@ -124,9 +157,7 @@ public class ShapePlacer {
             if (shapeData == null)
                 shapeData = WGShapeData.ofStep(GenerationStep.Feature.VEGETAL_DECORATION, this.featureName);
 
-            WGShapeHandler.encodeInformations(manager.getChunkPos(), shapeData, chunkPosManager.getOffset());
-
-            manager.placeJson(this.featureName, chunkPosManager.getOffset());
+            WGShapeHandler.encodePieces(manager, chunkPosManager.getOffset(), shapeData);
 
             placeWorldGenFiles();
 
@@ -144,7 +175,7 @@ public class ShapePlacer {
         List<Path> path = LoadChunkShapeInfo.getWorldGenFiles(this.center);
         for (Path path1 : path) {
             world.setCurrentlyGeneratingStructureName(() -> "ewc multi-chunk feature generating: " + path1.getFileName());
-            BlockListManager manager = BlockListHelper.fromJsonPath(world, path1);
+            BlockListManager manager = BlockListHelper.fromPath(world, path1);
             if (manager != null)
                 manager.placeAllNDelete(world);
         }
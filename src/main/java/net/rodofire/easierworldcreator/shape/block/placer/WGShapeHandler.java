@@ -1,29 +1,28 @@
 package net.rodofire.easierworldcreator.shape.block.placer;
 
-import com.google.common.reflect.TypeToken;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import net.minecraft.util.math.ChunkPos;
-import net.rodofire.easierworldcreator.util.file.EwcFolderData;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.DividedBlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriteExecutor;
+import net.rodofire.easierworldcreator.world.chunk.ChunkLocks;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.file.Path;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 
 /**
- * For multi-chunk features, we create a file that refers every piece of shapes related to a chunkPos.
+ * For multi-chunk features, we create a reference to every piece of shapes related to a chunkPos.
  * It allows defining at which moment of the chunk generation should the piece be placed.
+ * <p>References are kept in memory by the {@link WGShapeIndex}.
+ * <p>Features are generated by several threads at the same time, that's why pieces and references of a chunk
+ * are always saved while holding the {@link ChunkLocks} of the chunk.
+ * <p>Pieces are written in the background by the {@link PieceWriteExecutor}.
+ * The piece is registered with its reference while holding the lock, meaning that a chunk never refers a piece that isn't either saved or being written.
+ * The piece is only executed once the lock is released, since a full queue makes the calling thread compute and write the piece.
  */
 public class WGShapeHandler {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-
 
     public static void encodeInformations(Set<ChunkPos> posSet, WGShapeData placer, ChunkPos posOffset) {
         for (ChunkPos pos : posSet) {
@@ -32,26 +31,77 @@ public class WGShapeHandler {
         }
     }
 
+    /**
+     * submit a piece to the {@link PieceWriteExecutor} and save its reference atomically.
+     *
+     * @param piece    the piece to save
+     * @param chunkPos the chunk of the piece
+     * @param offset   the offset applied to the chunk
+     * @param placer   the information about when should the piece be placed
+     */
+    public static void encodePiece(BlockListManager piece, ChunkPos chunkPos, ChunkPos offset, WGShapeData placer) {
+        encodePiece(() -> piece, chunkPos, offset, placer);
+    }
+
+    /**
+     * submit a piece to the {@link PieceWriteExecutor} and save its reference atomically.
+     * The piece is only created by the executor, allowing its computation to also be done off the world-gen thread.
+     *
+     * @param piece    the supplier creating the piece
+     * @param chunkPos the chunk of the piece
+     * @param offset   the offset applied to the chunk
+     * @param placer   the information about when should the piece be placed
+     */
+    public static void encodePiece(Supplier<BlockListManager> piece, ChunkPos chunkPos, ChunkPos offset, WGShapeData placer) {
+        ChunkPos pos = new ChunkPos(chunkPos.x + offset.x, chunkPos.z + offset.z);
+        ReentrantLock lock = ChunkLocks.get(pos);
+        PieceWriteExecutor.PendingWrite write = null;
+        try {
+            lock.lock();
+            try {
+                write = PieceWriteExecutor.register(pos, placer.getName(), () -> piece.get().placePiece(chunkPos, offset, placer.getName()));
+                encodeInformation(pos, placer);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            //executed even if the reference failed, else the registered piece would be awaited forever
+            if (write != null)
+                PieceWriteExecutor.execute(write);
+        }
+    }
+
+    /**
+     * save every piece of the manager and their references
+     *
+     * @param manager the manager containing the pieces
+     * @param offset  the offset applied to the chunks
+     * @param placer  the information about when should the pieces be placed
+     */
+    public static void encodePieces(DividedBlockListManager manager, ChunkPos offset, WGShapeData placer) {
+        for (ChunkPos chunkPos : manager.getChunkPos()) {
+            encodePiece(manager.getManager(chunkPos), chunkPos, offset, placer);
+        }
+    }
+
     /**
      * store the information about when should the piece should be placed.
      */
     public static void encodeInformation(ChunkPos pos, WGShapeData placer) {
-        List<WGShapeData> data = loadData(pos);
-        data.add(
+        WGShapeIndex.add(pos,
                 new WGShapeData(
                         placer.getName(),
                         placer.getFeatureShift().isPresent() ? placer.getFeatureShift().get().getRight() : null,
                         placer.getFeatureShift().isPresent() ? placer.getFeatureShift().get().getLeft() : null,
                         placer.getStep().orElse(null))
         );
-        saveData(pos, data);
     }
 
     /**
      * Décode les informations d'un chunk pour savoir quels morceaux doivent être placés.
      */
     public static WGShapePlacerManager decodeInformation(ChunkPos pos) {
-        List<WGShapeData> data = loadData(pos);
+        List<WGShapeData> data = WGShapeIndex.get(pos);
 
 
         if (data.isEmpty()) {
@@ -65,34 +115,11 @@ public class WGShapeHandler {
     }
 
     /**
-     * Charge les données JSON.
+     * remove the references of a chunk once it was generated
+     *
+     * @return the removed references
      */
-    private static List<WGShapeData> loadData(ChunkPos pos) {
-        Path path = EwcFolderData.getStructureReference(pos);
-        File file = path.toFile();
-        if (!file.exists()) {
-            return new ArrayList<>();
-        }
-        try (FileReader reader = new FileReader(file)) {
-            Type type = new TypeToken<List<WGShapeData>>() {
-            }.getType();
-            return GSON.fromJson(reader, type);
-        } catch (IOException e) {
-            e.fillInStackTrace();
-            return new ArrayList<>();
-        }
-    }
-
-    /**
-     * Sauvegarde les données JSON.
-     */
-    private static void saveData(ChunkPos pos, List<WGShapeData> data) {
-        Path path = EwcFolderData.getStructureReference(pos);
-        File file = path.toFile();
-        try (FileWriter writer = new FileWriter(file)) {
-            GSON.toJson(data, writer);
-        } catch (IOException e) {
-            e.fillInStackTrace();
-        }
+    public static List<WGShapeData> removeInformation(ChunkPos pos) {
+        return WGShapeIndex.remove(pos);
     }
 }
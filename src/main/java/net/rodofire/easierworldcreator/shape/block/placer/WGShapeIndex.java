@@ -0,0 +1,209 @@
+package net.rodofire.easierworldcreator.shape.block.placer;
+
+import com.google.common.reflect.TypeToken;
+import com.google.gson.Gson;
+import net.minecraft.util.math.ChunkPos;
+import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.util.file.EwcFolderData;
+import net.rodofire.easierworldcreator.util.file.region.RegionStorage;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>Server-wide index of the pieces of multi-chunk features that are waiting for their chunk to be generated.
+ * <p>The index is the source of truth at runtime: references are added and read from memory only,
+ * meaning that generating a chunk without pending pieces doesn't perform any I/O.
+ * <p>Modified chunks are marked as dirty and are written to {@link RegionStorage#REFERENCES} in batches, by a background thread.
+ * The index is rebuilt from the disk when the server starts, and is fully flushed when it stops.
+ * <p>Lists stored in the index are never modified, a new list is created on each modification.
+ * This allows the flushing thread to read them without any lock.
+ */
+public class WGShapeIndex {
+    private static final Gson GSON = new Gson();
+    private static final Type TYPE = new TypeToken<List<WGShapeData>>() {
+    }.getType();
+    private static final Pattern LEGACY_PATTERN = Pattern.compile("chunk_(-?\\d+)_(-?\\d+)\\.json$");
+
+    /**
+     * delay between two flushes, in milliseconds
+     */
+    private static final long FLUSH_DELAY = 5000;
+    /**
+     * number of dirty chunks from which a flush is triggered without waiting for the delay
+     */
+    private static final int BATCH_SIZE = 256;
+
+    private static final Map<Long, List<WGShapeData>> INDEX = new ConcurrentHashMap<>();
+    private static final Set<Long> DIRTY = ConcurrentHashMap.newKeySet();
+
+    private static ScheduledExecutorService flusher;
+    private static Future<?> pendingFlush;
+
+    /**
+     * add a reference to a chunk
+     *
+     * @param pos  the chunk where the piece will be placed
+     * @param data the information about when the piece should be placed
+     */
+    public static void add(ChunkPos pos, WGShapeData data) {
+        long key = pos.toLong();
+        INDEX.compute(key, (k, list) -> {
+            List<WGShapeData> newList = list == null ? new ArrayList<>(1) : new ArrayList<>(list);
+            newList.add(data);
+            return newList;
+        });
+        markDirty(key);
+    }
+
+    /**
+     * @param pos the chunk
+     * @return the references of the chunk. The list must not be modified
+     */
+    public static List<WGShapeData> get(ChunkPos pos) {
+        List<WGShapeData> list = INDEX.get(pos.toLong());
+        return list == null ? List.of() : list;
+    }
+
+    public static boolean has(ChunkPos pos) {
+        return INDEX.containsKey(pos.toLong());
+    }
+
+    /**
+     * remove every reference of a chunk
+     *
+     * @param pos the chunk
+     * @return the removed references
+     */
+    public static List<WGShapeData> remove(ChunkPos pos) {
+        long key = pos.toLong();
+        List<WGShapeData> removed = INDEX.remove(key);
+        if (removed == null) {
+            return List.of();
+        }
+        markDirty(key);
+        return removed;
+    }
+
+    private static void markDirty(long key) {
+        DIRTY.add(key);
+        if (DIRTY.size() >= BATCH_SIZE) {
+            requestFlush();
+        }
+    }
+
+    private static synchronized void requestFlush() {
+        if (flusher == null || (pendingFlush != null && !pendingFlush.isDone()))
+            return;
+        pendingFlush = flusher.submit(WGShapeIndex::flush);
+    }
+
+    /**
+     * write every dirty chunk to the disk
+     */
+    public static void flush() {
+        for (Long key : DIRTY) {
+            DIRTY.remove(key);
+            ChunkPos pos = new ChunkPos(key);
+            List<WGShapeData> list = INDEX.get(key);
+            if (list == null) {
+                RegionStorage.REFERENCES.delete(pos);
+            } else {
+                RegionStorage.REFERENCES.write(pos, GSON.toJson(list, TYPE).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * Rebuild the index from the disk and start the flushing thread.
+     * References saved in the legacy {@code structure_references} directory are migrated to the region storage.
+     */
+    public static void load() {
+        INDEX.clear();
+        DIRTY.clear();
+        for (ChunkPos pos : RegionStorage.REFERENCES.getChunks()) {
+            byte[] data = RegionStorage.REFERENCES.read(pos);
+            if (data == null) continue;
+            List<WGShapeData> list = GSON.fromJson(new String(data, StandardCharsets.UTF_8), TYPE);
+            if (list != null && !list.isEmpty()) {
+                INDEX.put(pos.toLong(), list);
+            }
+        }
+        loadLegacy();
+
+        synchronized (WGShapeIndex.class) {
+            if (flusher == null) {
+                flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "ewc-reference-flusher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                flusher.scheduleWithFixedDelay(WGShapeIndex::flush, FLUSH_DELAY, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private static void loadLegacy() {
+        Path dir = EwcFolderData.getReferenceDir();
+        if (!Files.isDirectory(dir))
+            return;
+        try (Stream<Path> paths = Files.list(dir)) {
+            paths.forEach(path -> {
+                Matcher matcher = LEGACY_PATTERN.matcher(path.getFileName().toString());
+                if (!matcher.matches()) return;
+                ChunkPos pos = new ChunkPos(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                try {
+                    List<WGShapeData> list = GSON.fromJson(Files.readString(path), TYPE);
+                    if (list != null) {
+                        for (WGShapeData data : list) {
+                            add(pos, data);
+                        }
+                    }
+                    Files.delete(path);
+                } catch (IOException e) {
+                    Ewc.LOGGER.error("failed to migrate multi-chunk reference {}", path, e);
+                }
+            });
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to list multi-chunk references", e);
+        }
+    }
+
+    /**
+     * stop the flushing thread and write every remaining dirty chunk
+     */
+    public static void save() {
+        synchronized (WGShapeIndex.class) {
+            if (flusher != null) {
+                flusher.shutdown();
+                try {
+                    if (!flusher.awaitTermination(10, TimeUnit.SECONDS)) {
+                        flusher.shutdownNow();
+                    }
+                } catch (InterruptedException e) {
+                    flusher.shutdownNow();
+                    Thread.currentThread().interrupt();
+                }
+                flusher = null;
+                pendingFlush = null;
+            }
+        }
+        flush();
+        INDEX.clear();
+    }
+}
@@ -6,9 +6,7 @@ import net.minecraft.util.Pair;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.gen.GenerationStep;
 import net.minecraft.world.gen.feature.PlacedFeature;
-import net.rodofire.easierworldcreator.util.file.EwcFolderData;
 
-import java.nio.file.Path;
 import java.util.*;
 
 public class WGShapePlacerManager {
@@ -59,7 +57,14 @@ public class WGShapePlacerManager {
         }
     }
 
-    public Path[] getToPlace(PlacedFeature beforeFeature, PlacedFeature featureAfter) {
+    public ChunkPos getChunkPos() {
+        return pos;
+    }
+
+    /**
+     * @return the name of the pieces that should be placed between the two features
+     */
+    public String[] getToPlace(PlacedFeature beforeFeature, PlacedFeature featureAfter) {
         ShortSet set = new ShortOpenHashSet();
         if (beforeFeature != null) {
             ShortSet result = beforeFeatures.get(beforeFeature);
@@ -74,41 +79,45 @@ public class WGShapePlacerManager {
         }
 
         if (set.isEmpty()) {
-            return new Path[0];
+            return new String[0];
         }
 
-        return getPath(set);
+        return getNames(set);
     }
 
-    public Path[] getToPlace(GenerationStep.Feature feature) {
+    /**
+     * @return the name of the pieces that should be placed at the generation step
+     */
+    public String[] getToPlace(GenerationStep.Feature feature) {
         ShortSet set = steps.get(feature);
         if (set == null) {
-            return new Path[0];
+            return new String[0];
         }
-        return getPath(set);
+        return getNames(set);
     }
 
-    private Path[] getPath(ShortSet set) {
-        Path basePath = EwcFolderData.getStructureDataDir(pos);
-        Path[] paths = new Path[set.size()];
+    private String[] getNames(ShortSet set) {
+        String[] names = new String[set.size()];
 
         int i = 0;
         for (short index : set) {
-            paths[i] = basePath.resolve(references[index] + ".json");
+            names[i] = references[index];
             placed.add(references[index]);
             i++;
         }
-        return paths;
+        return names;
     }
 
-    public Path[] getLeft() {
-        Path basePath = EwcFolderData.getStructureDataDir(pos);
-        Set<Path> paths = new HashSet<>();
+    /**
+     * @return the name of the pieces that weren't placed yet
+     */
+    public String[] getLeft() {
+        Set<String> names = new HashSet<>();
         for (String string : references) {
             if (!placed.contains(string)) {
-                paths.add(basePath.resolve(string + ".json"));
+                names.add(string);
             }
         }
-        return paths.toArray(new Path[0]);
+        return names.toArray(new String[0]);
     }
 }
@@ -23,6 +23,11 @@ public class Rotator {
     private double sinY2 = 0;
     private double sinZ = 0;
 
+    /**
+     * precalculated rotation matrix, stored row by row.
+     * It is the product of the three rotations, allowing to rotate a pos with 9 multiplications
+     */
+    private final double[] matrix = new double[9];
 
     public Rotator(BlockPos centerPos, int yRotation, int zRotation, int secondYRotation) {
         this.centerPos = centerPos;
@@ -122,23 +127,96 @@ public class Rotator {
         this.sinZ = FastMaths.getFastSin(zRotation);
         this.cosY2 = FastMaths.getFastCos(secondYRotation);
         this.sinY2 = FastMaths.getFastSin(secondYRotation);
+
+        matrix[0] = cosY2 * cosZ * cosY - sinY2 * sinY;
+        matrix[1] = -cosY2 * sinZ;
+        matrix[2] = -cosY2 * cosZ * sinY - sinY2 * cosY;
+        matrix[3] = sinZ * cosY;
+        matrix[4] = cosZ;
+        matrix[5] = -sinZ * sinY;
+        matrix[6] = sinY2 * cosZ * cosY + cosY2 * sinY;
+        matrix[7] = -sinY2 * sinZ;
+        matrix[8] = -sinY2 * cosZ * sinY + cosY2 * cosY;
+    }
+
+    /**
+     * @return a copy of the rotation matrix, stored row by row
+     */
+    public double[] getMatrix() {
+        return matrix.clone();
     }
 
+    /**
+     * rotate every pos of the list in place
+     *
+     * @param pos the list of encoded pos
+     * @return the same list, rotated
+     */
     public LongArrayList getAll(LongArrayList pos) {
-        for (int i = 0; i < pos.size(); ++i) {
-            pos.set(i, get(pos.getLong(i)));
-        }
+        rotate(pos.elements(), 0, pos.size());
         return pos;
     }
 
+    /**
+     * <p>rotate the encoded pos in place using the rotation matrix. No object is created.
+     * <p>Since the rotations are combined into a single matrix,
+     * the result might differ by one block from {@link #get(long)} when a coordinate is really close to an integer.
+     *
+     * @param pos  the encoded pos
+     * @param from the index of the first pos to rotate, inclusive
+     * @param to   the index of the last pos to rotate, exclusive
+     */
+    public void rotate(long[] pos, int from, int to) {
+        double m0 = matrix[0], m1 = matrix[1], m2 = matrix[2];
+        double m3 = matrix[3], m4 = matrix[4], m5 = matrix[5];
+        double m6 = matrix[6], m7 = matrix[7], m8 = matrix[8];
+        int cx = centerPos.getX(), cy = centerPos.getY(), cz = centerPos.getZ();
+        for (int i = from; i < to; i++) {
+            long encoded = pos[i];
+            int x = LongPosHelper.decodeX(encoded);
+            int y = LongPosHelper.decodeY(encoded);
+            int z = LongPosHelper.decodeZ(encoded);
+            pos[i] = LongPosHelper.encodeBlockPos(
+                    (int) (m0 * x + m1 * y + m2 * z) + cx,
+                    (int) (m3 * x + m4 * y + m5 * z) + cy,
+                    (int) (m6 * x + m7 * y + m8 * z) + cz
+            );
+        }
+    }
+
+    /**
+     * rotate coordinates stored as a structure of arrays in place using the rotation matrix. No object is created.
+     *
+     * @param x      the x coordinates
+     * @param y      the y coordinates
+     * @param z      the z coordinates
+     * @param length the number of coordinates to rotate
+     */
+    public void rotate(int[] x, int[] y, int[] z, int length) {
+        double m0 = matrix[0], m1 = matrix[1], m2 = matrix[2];
+        double m3 = matrix[3], m4 = matrix[4], m5 = matrix[5];
+        double m6 = matrix[6], m7 = matrix[7], m8 = matrix[8];
+        int cx = centerPos.getX(), cy = centerPos.getY(), cz = centerPos.getZ();
+        for (int i = 0; i < length; i++) {
+            int px = x[i];
+            int py = y[i];
+            int pz = z[i];
+            x[i] = (int) (m0 * px + m1 * py + m2 * pz) + cx;
+            y[i] = (int) (m3 * px + m4 * py + m5 * pz) + cy;
+            z[i] = (int) (m6 * px + m7 * py + m8 * pz) + cz;
+        }
+    }
+
     public long get(long pos) {
-        int[] intPos = LongPosHelper.decodeBlockPos2Array(pos);
+        int x = LongPosHelper.decodeX(pos);
+        int y = LongPosHelper.decodeY(pos);
+        int z = LongPosHelper.decodeZ(pos);
         // first y rotation
-        float x_rot1 = (float) (intPos[0] * cosY - intPos[2] * sinY);
-        float z_rot1 = (float) (intPos[0] * sinY + intPos[2] * cosY);
+        float x_rot1 = (float) (x * cosY - z * sinY);
+        float z_rot1 = (float) (x * sinY + z * cosY);
         // z rotation
-        float x_rot_z = (float) (x_rot1 * cosZ - intPos[1] * sinZ);
-        float y_rot_z = (float) (x_rot1 * sinZ + intPos[1] * cosZ);
+        float x_rot_z = (float) (x_rot1 * cosZ - y * sinZ);
+        float y_rot_z = (float) (x_rot1 * sinZ + y * cosZ);
 
         // second y rotation
         float x_final = (float) (x_rot_z * cosY2 - z_rot1 * sinY2);
@@ -163,13 +241,15 @@ public class Rotator {
     }
 
     public long getRaw(long pos) {
-        int[] intPos = LongPosHelper.decodeBlockPos2Array(pos);
+        int x = LongPosHelper.decodeX(pos);
+        int y = LongPosHelper.decodeY(pos);
+        int z = LongPosHelper.decodeZ(pos);
         // first y rotation
-        float x_rot1 = (float) (intPos[0] * cosY - intPos[2] * sinY);
-        float z_rot1 = (float) (intPos[0] * sinY + intPos[2] * cosY);
+        float x_rot1 = (float) (x * cosY - z * sinY);
+        float z_rot1 = (float) (x * sinY + z * cosY);
         // z rotation
-        float x_rot_z = (float) (x_rot1 * cosZ - intPos[1] * sinZ);
-        float y_rot_z = (float) (x_rot1 * sinZ + intPos[1] * cosZ);
+        float x_rot_z = (float) (x_rot1 * cosZ - y * sinZ);
+        float y_rot_z = (float) (x_rot1 * sinZ + y * cosZ);
 
         // second y rotation
         float x_final = (float) (x_rot_z * cosY2 - z_rot1 * sinY2);
@@ -193,6 +273,50 @@ public class Rotator {
         return LongPosHelper.encodeBlockPos((int) x_final, (int) y_rot_z, (int) z_final);
     }
 
+    /**
+     * rotate the pos without taking account of the center pos and without rounding it
+     *
+     * @param x      the x coordinate
+     * @param y      the y coordinate
+     * @param z      the z coordinate
+     * @param result the array where the rotated coordinates will be written
+     */
+    public void rotate(double x, double y, double z, double[] result) {
+        // first y rotation
+        double x_rot1 = (x * cosY - z * sinY);
+        double z_rot1 = (x * sinY + z * cosY);
+        // z rotation
+        double x_rot_z = (x_rot1 * cosZ - y * sinZ);
+        double y_rot_z = (x_rot1 * sinZ + y * cosZ);
+
+        // second y rotation
+        result[0] = (x_rot_z * cosY2 - z_rot1 * sinY2);
+        result[1] = y_rot_z;
+        result[2] = (x_rot_z * sinY2 + z_rot1 * cosY2);
+    }
+
+    /**
+     * apply the inverse rotation, allowing to get the coordinates of a pos before the rotation.
+     * It doesn't take account of the center pos.
+     *
+     * @param x      the rotated x coordinate
+     * @param y      the rotated y coordinate
+     * @param z      the rotated z coordinate
+     * @param result the array where the coordinates before the rotation will be written
+     */
+    public void inverse(double x, double y, double z, double[] result) {
+        // second y rotation
+        double x_rot_z = (x * cosY2 + z * sinY2);
+        double z_rot1 = (-x * sinY2 + z * cosY2);
+        // z rotation
+        double x_rot1 = (x_rot_z * cosZ + y * sinZ);
+        result[1] = (-x_rot_z * sinZ + y * cosZ);
+
+        // first y rotation
+        result[0] = (x_rot1 * cosY + z_rot1 * sinY);
+        result[2] = (-x_rot1 * sinY + z_rot1 * cosY);
+    }
+
     public BlockPos getBlockPos(int[] pos) {
         return getBlockPos(pos[0], pos[1], pos[2]);
     }
@@ -6,10 +6,10 @@ import net.minecraft.util.math.BlockPos;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
 import net.rodofire.easierworldcreator.blockdata.blocklist.DividedBlockListManager;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * Class to manage rotations on BlockList. It allows to convert blockPos to their rotated variants
@@ -34,64 +34,43 @@ public class ShapeRotator {
     }
 
     public long[] get(long[] posList) {
-        for (int i = 0; i < posList.length; i++) {
-            posList[i] = rotator.get(posList[i]);
-        }
+        rotator.rotate(posList, 0, posList.length);
         return posList;
     }
 
     public LongArrayList get(LongArrayList posList) {
-        for (int i = 0; i < posList.size(); i++) {
-            posList.set(i, rotator.get(posList.getLong(i)));
-        }
-        return posList;
+        return rotator.getAll(posList);
     }
 
+    /**
+     * @param posList the set of pos to rotate. It is not modified
+     * @return a new set containing the rotated pos
+     */
     public LongOpenHashSet get(LongOpenHashSet posList) {
-        LongOpenHashSet ret = new LongOpenHashSet();
-        for (long pos : posList) {
-            ret.add(rotator.get(pos));
-        }
-        return posList;
+        long[] rotated = posList.toLongArray();
+        rotator.rotate(rotated, 0, rotated.length);
+        return new LongOpenHashSet(rotated);
     }
 
     public BlockListManager get(BlockListManager comparator) {
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
-        for (BlockList blockList : comparator.getAllBlockList()) {
-            futures.add(CompletableFuture.runAsync(() -> {
-                LongArrayList rotatedPositions = new LongArrayList(blockList.size());
-                for (int i = 0; i < blockList.size(); i++) {
-                    rotatedPositions.add(rotator.get(blockList.getLongPos(i)));
-                }
-                synchronized (blockList) {
-                    blockList.setPosList(rotatedPositions);
-                }
-            }));
-        }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        EwcExecutor.forEach(comparator.getAllBlockList(), this::rotate);
         return comparator;
     }
 
     public DividedBlockListManager getDivided(DividedBlockListManager comparator) {
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-
+        List<BlockList> blockLists = new ArrayList<>();
         for (BlockListManager manager : comparator.getAllManager()) {
-            for (BlockList blockList : manager.getAllBlockList()) {
-                futures.add(CompletableFuture.runAsync(() -> {
-                    LongArrayList rotatedPositions = new LongArrayList(blockList.size());
-                    for (int i = 0; i < blockList.size(); i++) {
-                        rotatedPositions.add(rotator.get(blockList.getLongPos(i)));
-                    }
-                    synchronized (blockList) {
-                        blockList.setPosList(rotatedPositions);
-                    }
-                }));
-            }
+            blockLists.addAll(manager.getAllBlockList());
         }
-
-        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        EwcExecutor.forEach(blockLists, this::rotate);
         return comparator;
     }
+
+    private void rotate(BlockList blockList) {
+        LongArrayList rotatedPositions = new LongArrayList(blockList.getPosList());
+        rotator.getAll(rotatedPositions);
+        synchronized (blockList) {
+            blockList.setPosList(rotatedPositions);
+        }
+    }
 }
@@ -0,0 +1,174 @@
+package net.rodofire.easierworldcreator.shape.block.sdf;
+
+import net.minecraft.util.math.Box;
+import net.rodofire.easierworldcreator.shape.block.gen.SdfGen;
+import net.rodofire.easierworldcreator.util.FastNoiseLite;
+
+/**
+ * <p>Signed distance field used by {@link SdfGen}.
+ * The distance is negative inside the shape, positive outside and 0 on the surface.
+ * Coordinates are relative to the center of the shape.
+ * <p>Primitives are created using the static methods and combined with the default methods:
+ * <pre>{@code
+ * Sdf sdf = Sdf.sphere(20)
+ *         .smoothUnion(Sdf.torus(25, 6), 4)
+ *         .subtract(Sdf.box(10, 30, 10))
+ *         .displace(noise, 3);
+ * }</pre>
+ * <p>To allow the generator to skip empty or full areas, a field must not vary faster than the distance,
+ * except for a maximal deviation returned by {@link #getDeviation()}, like for noise displacement.
+ */
+public interface Sdf {
+    /**
+     * @param x the x coordinate, relative to the center
+     * @param y the y coordinate, relative to the center
+     * @param z the z coordinate, relative to the center
+     * @return the signed distance to the surface of the shape
+     */
+    double distance(double x, double y, double z);
+
+    /**
+     * @return the box containing the whole shape, relative to the center
+     */
+    Box getBounds();
+
+    /**
+     * @return the maximal difference between the field and a real distance field
+     */
+    default double getDeviation() {
+        return 0;
+    }
+
+    /*---------- Primitives ----------*/
+
+    static Sdf sphere(double radius) {
+        return create((x, y, z) -> Math.sqrt(x * x + y * y + z * z) - radius,
+                new Box(-radius, -radius, -radius, radius, radius, radius), 0);
+    }
+
+    /**
+     * @param majorRadius the distance between the center and the middle of the tube
+     * @param minorRadius the radius of the tube
+     * @return a torus lying on the xz plane
+     */
+    static Sdf torus(double majorRadius, double minorRadius) {
+        double outer = majorRadius + minorRadius;
+        return create((x, y, z) -> {
+            double q = Math.sqrt(x * x + z * z) - majorRadius;
+            return Math.sqrt(q * q + y * y) - minorRadius;
+        }, new Box(-outer, -minorRadius, -outer, outer, minorRadius, outer), 0);
+    }
+
+    /**
+     * @param halfHeight the distance between the center and the center of each cap
+     * @param radius     the radius of the capsule
+     * @return a vertical capsule
+     */
+    static Sdf capsule(double halfHeight, double radius) {
+        return create((x, y, z) -> {
+            double clamped = y - Math.max(-halfHeight, Math.min(halfHeight, y));
+            return Math.sqrt(x * x + clamped * clamped + z * z) - radius;
+        }, new Box(-radius, -halfHeight - radius, -radius, radius, halfHeight + radius, radius), 0);
+    }
+
+    /**
+     * @return a box of size {@code 2 * halfX, 2 * halfY, 2 * halfZ}
+     */
+    static Sdf box(double halfX, double halfY, double halfZ) {
+        return create((x, y, z) -> {
+            double qx = Math.abs(x) - halfX;
+            double qy = Math.abs(y) - halfY;
+            double qz = Math.abs(z) - halfZ;
+            double outside = Math.sqrt(square(Math.max(qx, 0)) + square(Math.max(qy, 0)) + square(Math.max(qz, 0)));
+            return outside + Math.min(Math.max(qx, Math.max(qy, qz)), 0);
+        }, new Box(-halfX, -halfY, -halfZ, halfX, halfY, halfZ), 0);
+    }
+
+    /*---------- Operations ----------*/
+
+    default Sdf translate(double dx, double dy, double dz) {
+        Sdf sdf = this;
+        return create((x, y, z) -> sdf.distance(x - dx, y - dy, z - dz), getBounds().offset(dx, dy, dz), getDeviation());
+    }
+
+    default Sdf union(Sdf other) {
+        Sdf sdf = this;
+        return create((x, y, z) -> Math.min(sdf.distance(x, y, z), other.distance(x, y, z)),
+                getBounds().union(other.getBounds()), Math.max(getDeviation(), other.getDeviation()));
+    }
+
+    default Sdf subtract(Sdf other) {
+        Sdf sdf = this;
+        return create((x, y, z) -> Math.max(sdf.distance(x, y, z), -other.distance(x, y, z)),
+                getBounds(), Math.max(getDeviation(), other.getDeviation()));
+    }
+
+    default Sdf intersect(Sdf other) {
+        Sdf sdf = this;
+        Box bounds = getBounds().intersects(other.getBounds()) ? getBounds().intersection(other.getBounds()) : new Box(0, 0, 0, 0, 0, 0);
+        return create((x, y, z) -> Math.max(sdf.distance(x, y, z), other.distance(x, y, z)),
+                bounds, Math.max(getDeviation(), other.getDeviation()));
+    }
+
+    /**
+     * union blending the two shapes together
+     *
+     * @param other      the other shape
+     * @param smoothness the distance over which the shapes are blended
+     * @return the union of the two shapes
+     */
+    default Sdf smoothUnion(Sdf other, double smoothness) {
+        if (smoothness <= 0)
+            return union(other);
+        Sdf sdf = this;
+        return create((x, y, z) -> {
+            double a = sdf.distance(x, y, z);
+            double b = other.distance(x, y, z);
+            double h = Math.max(smoothness - Math.abs(a - b), 0) / smoothness;
+            return Math.min(a, b) - h * h * smoothness * 0.25;
+        }, getBounds().union(other.getBounds()).expand(smoothness * 0.25), Math.max(getDeviation(), other.getDeviation()) + smoothness * 0.25);
+    }
+
+    /**
+     * move the surface of the shape using noise
+     *
+     * @param noise     the noise used. It must not be modified while the shape is generated
+     * @param amplitude the maximal displacement in blocks
+     * @return the displaced shape
+     */
+    default Sdf displace(FastNoiseLite noise, double amplitude) {
+        Sdf sdf = this;
+        return create((x, y, z) -> sdf.distance(x, y, z) + amplitude * noise.GetNoise((float) x, (float) y, (float) z),
+                getBounds().expand(amplitude), getDeviation() + amplitude);
+    }
+
+    /*---------- Helpers ----------*/
+
+    static Sdf create(Field field, Box bounds, double deviation) {
+        return new Sdf() {
+            @Override
+            public double distance(double x, double y, double z) {
+                return field.distance(x, y, z);
+            }
+
+            @Override
+            public Box getBounds() {
+                return bounds;
+            }
+
+            @Override
+            public double getDeviation() {
+                return deviation;
+            }
+        };
+    }
+
+    private static double square(double value) {
+        return value * value;
+    }
+
+    @FunctionalInterface
+    interface Field {
+        double distance(double x, double y, double z);
+    }
+}
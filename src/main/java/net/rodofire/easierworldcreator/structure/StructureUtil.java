@@ -1,6 +1,7 @@
 package net.rodofire.easierworldcreator.structure;
 
 import com.mojang.datafixers.util.Pair;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
@@ -12,6 +13,7 @@ import net.minecraft.structure.StructureTemplate;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.CompiledPlacementRule;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
 import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
 import net.rodofire.easierworldcreator.maths.MathUtil;
@@ -60,13 +62,16 @@ public class StructureUtil {
         if (animator != null) {
             animator.place(manager);
         } else {
+            //a single pos is reused for every block, the world never keeps it
+            BlockPos.Mutable convertedPos = new BlockPos.Mutable();
             for (BlockList blockList : manager.getAllBlockList()) {
                 BlockState blockState = blockList.getState();
-                for (long pos : blockList.getPosList()) {
-                    BlockPos convertedPos = LongPosHelper.decodeBlockPos(pos);
+                NbtCompound tag = blockList.getTag().orElse(null);
+                LongArrayList posList = blockList.getPosList();
+                for (int i = 0; i < posList.size(); i++) {
+                    LongPosHelper.decodeBlockPos(posList.getLong(i), convertedPos);
                     world.setBlockState(convertedPos, blockState, 3);
-                    if (blockList.getTag().isPresent()) {
-                        NbtCompound tag = blockList.getTag().get();
+                    if (tag != null) {
                         BlockEntity blockEntity = world.getBlockEntity(convertedPos);
                         if (blockEntity != null) {
                             DynamicRegistryManager registry = world.getRegistryManager();
@@ -83,6 +88,8 @@ public class StructureUtil {
     }
 
     private static void clean(StructureWorldAccess world, BlockListManager manager, BlockPos block, boolean force, Set<Block> blockToForce, Set<Block> blockToSkip, float integrity) {
+        //compiled once instead of looking for the block in the set for every pos
+        CompiledPlacementRule rule = CompiledPlacementRule.ofVerification(force, blockToForce);
         if (integrity != 1.0f) {
             Random random = world.getRandom();
             Iterator<BlockList> iterator = manager.getAllBlockList().iterator();
@@ -100,16 +107,15 @@ public class StructureUtil {
                 boolean bl1 = blockToForce == null || blockToForce.isEmpty();
                 int size = blockList.size();
                 for (int i = 0; i < size; i++) {
-                    long posLong = blockList.getLongPos(i);
-                    BlockPos pos = LongPosHelper.decodeBlockPos(posLong);
-                    blockList.replacePos(i, pos.add(block));
+                    long posLong = LongPosHelper.add(blockList.getLongPos(i), block.getX(), block.getY(), block.getZ());
+                    blockList.replacePos(i, posLong);
                     if (!bl1 || force) {
                         if (integrity < 1f) {
                             if (MathUtil.getRandomBoolean(random, integrity)) {
                                 blockList.removePos(i);
                             }
                         }
-                        if (!BlockPlaceUtil.verifyBlock(world, force, blockToForce, pos.add(block))) {
+                        if (!BlockPlaceUtil.verifyBlock(world, rule, LongPosHelper.decodeMutable(posLong))) {
                             blockList.removePos(i);
                         }
                     }
@@ -134,11 +140,10 @@ public class StructureUtil {
                 boolean bl1 = blockToForce == null || blockToForce.isEmpty();
                 int size = blockList.size();
                 for (int i = 0; i < size; i++) {
-                    long posLong = blockList.getLongPos(i);
-                    BlockPos pos = LongPosHelper.decodeBlockPos(posLong);
-                    blockList.replacePos(i, pos.add(block));
+                    long posLong = LongPosHelper.add(blockList.getLongPos(i), block.getX(), block.getY(), block.getZ());
+                    blockList.replacePos(i, posLong);
                     if (!bl1 || force) {
-                        if (!BlockPlaceUtil.verifyBlock(world, force, blockToForce, pos.add(block))) {
+                        if (!BlockPlaceUtil.verifyBlock(world, rule, LongPosHelper.decodeMutable(posLong))) {
                             blockList.removePos(i);
                         }
                     }
@@ -10,6 +10,7 @@ import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.StructureWorldAccess;
 import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.CompiledPlacementRule;
 import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
 import org.jetbrains.annotations.Nullable;
 
@@ -23,9 +24,35 @@ import java.util.Set;
 @SuppressWarnings("unused")
 public class BlockPlaceUtil {
     public static boolean place(StructureWorldAccess world, BlockPos pos, BlockDataKey data, @Nullable StructurePlacementRuleManager ruler, int flag){
-        BlockState state = world.getBlockState(pos);
-        if(ruler != null){
-            if(ruler.canPlace(state)){
+        return place(world, pos, world.getBlockState(pos), data, ruler, flag);
+    }
+
+    /**
+     * place the block without reading the state of the world again.
+     * The block is placed if the ruler can replace the state or if the state is air.
+     *
+     * @param world the world where the block will be placed
+     * @param pos   the pos of the block
+     * @param state the state currently at the pos, it is the only state read from the world
+     * @param data  the state and the tag to place
+     * @param ruler the rules of the placement, can be null
+     * @param flag  the flags of the placement
+     * @return true if the block was placed
+     */
+    public static boolean place(StructureWorldAccess world, BlockPos pos, BlockState state, BlockDataKey data, @Nullable StructurePlacementRuleManager ruler, int flag){
+        return place(world, pos, state, data, ruler == null ? null : ruler.compile(), flag);
+    }
+
+    /**
+     * same as {@link #place(StructureWorldAccess, BlockPos, BlockState, BlockDataKey, StructurePlacementRuleManager, int)},
+     * using the compiled rule, verifying the state is a single bit test.
+     *
+     * @param rule the compiled rule of the placement, can be null
+     * @return true if the block was placed
+     */
+    public static boolean place(StructureWorldAccess world, BlockPos pos, BlockState state, BlockDataKey data, @Nullable CompiledPlacementRule rule, int flag){
+        if(rule != null){
+            if(rule.canPlace(state)){
                 return setBlockState(world, pos, data, flag);
             }
         }
@@ -93,6 +120,19 @@ public class BlockPlaceUtil {
         return verify(world, force, blocksToForce, pos, state);
     }
 
+    /**
+     * Verifies if a block can be placed at a given position in the world using a compiled rule,
+     * see {@link CompiledPlacementRule#ofVerification(boolean, Set)}.
+     *
+     * @param world The world in which to verify the block.
+     * @param rule  The compiled rule, created once for every block to verify.
+     * @param pos   The position of the block.
+     * @return true if the block can be placed, false otherwise.
+     */
+    public static boolean verifyBlock(StructureWorldAccess world, CompiledPlacementRule rule, BlockPos pos) {
+        return rule.canPlace(world.getBlockState(pos));
+    }
+
     /**
      * Verifies if a block can be placed at a given position in the world based on its state.
      *
@@ -107,7 +147,7 @@ public class BlockPlaceUtil {
         if (state.getHardness(world, pos) < 0) return false;
         if (!force) {
             if (blocksToForce == null) blocksToForce = Set.of(Blocks.BEDROCK);
-            return state.isAir() || blocksToForce.stream().anyMatch(state.getBlock()::equals);
+            return state.isAir() || blocksToForce.contains(state.getBlock());
         }
         return true;
     }
@@ -353,6 +393,22 @@ public class BlockPlaceUtil {
         return blocksToPlace.get(Random.create().nextBetween(0, blocksToPlace.size() - 1));
     }
 
+    /**
+     * return the BlockState wanted based on a hash of the seed and of the pos.
+     * this method doesn't place the block
+     * Unlike {@link #getRandomBlock(List)}, the same pos always gives the same block, whatever the thread computing it.
+     *
+     * @param blocksToPlace the block states list that would be chosen from
+     * @param seed          the seed, most of the time the seed of the world
+     * @param x             the x coordinate of the pos
+     * @param y             the y coordinate of the pos
+     * @param z             the z coordinate of the pos
+     * @return the block related to the pos
+     */
+    public static BlockState getBlockWithHash(List<BlockState> blocksToPlace, long seed, int x, int y, int z) {
+        return blocksToPlace.get(getHashIndex(blocksToPlace.size(), seed, x, y, z));
+    }
+
     /**
      * return the BlockState wanted based on order
      * this method doesn't place the block
@@ -422,6 +478,33 @@ public class BlockPlaceUtil {
         return blocksToPlace[Random.create().nextBetween(0, blocksToPlace.length - 1)];
     }
 
+    /**
+     * same as {@link #getBlockWithHash(List, long, int, int, int)}
+     */
+    public static BlockState getBlockWithHash(BlockState[] blocksToPlace, long seed, int x, int y, int z) {
+        return blocksToPlace[getHashIndex(blocksToPlace.length, seed, x, y, z)];
+    }
+
+    /**
+     * <p>mix the seed and the pos using the finalizer of SplitMix64, so that close pos give unrelated indexes.
+     * <p>Nothing is allocated and no state is shared, the method can be called from any thread.
+     *
+     * @param size the number of indexes
+     * @param seed the seed
+     * @param x    the x coordinate of the pos
+     * @param y    the y coordinate of the pos
+     * @param z    the z coordinate of the pos
+     * @return an index between 0 and size - 1
+     */
+    public static int getHashIndex(int size, long seed, int x, int y, int z) {
+        long hash = seed + BlockPos.asLong(x, y, z) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        //maps the 32 highest bits to [0, size) without modulo bias nor division
+        return (int) (((hash >>> 32) * size) >>> 32);
+    }
+
     /**
      * return the BlockState wanted based on order
      * this method doesn't place the block
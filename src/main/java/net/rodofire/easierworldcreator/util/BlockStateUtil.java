@@ -23,9 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class BlockStateUtil {
     /**
@@ -94,8 +91,6 @@ public class BlockStateUtil {
         throw new IllegalArgumentException("Invalid block string format: " + blockString);
     }
 
-    static final int THREAD_COUNT = Runtime.getRuntime().availableProcessors();
-
     /**
      * method to get all blockStates from the world from a list of BlockPos
      *
@@ -104,19 +99,11 @@ public class BlockStateUtil {
      * @param world         the world where the blockStates will be collected
      */
     public static void getBlockStatesFromWorld(List<Set<BlockPos>> posList, Map<BlockPos, BlockState> blockStateMap, StructureWorldAccess world) {
-        Map<BlockPos, BlockState> concurrentMap = new ConcurrentHashMap<>();
-        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
-
         for (Set<BlockPos> set : posList) {
-            //executorService.submit(() -> {
             for (BlockPos blockPos : set) {
                 blockStateMap.put(blockPos, world.getBlockState(blockPos));
             }
-            //});
         }
-
-        executorService.shutdown();
-        //blockStateMap.putAll(concurrentMap);
     }
 
     public static BlockListManager getCompoundBlockStatesFromWorld(List<Set<BlockPos>> posList, StructureWorldAccess world) {
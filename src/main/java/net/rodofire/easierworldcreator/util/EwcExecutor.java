@@ -0,0 +1,240 @@
+package net.rodofire.easierworldcreator.util;
+
+import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * <p>Mod-wide worker pool used to divide the work related to shapes and layers, most of the time chunk by chunk.
+ * <p>The pool is started in {@link Ewc#init()} and shut down when the server stops.
+ * Its size is defined by {@link EwcConfig#getWorkerThreads()}.
+ * <pre>{@code
+ * EwcExecutor.forEach(posMap.entrySet(), entry -> {
+ *     //work related to a chunk
+ * });
+ * }</pre>
+ */
+public class EwcExecutor {
+    private static volatile ForkJoinPool pool;
+
+    /**
+     * start the pool using the number of threads defined in the config. Nothing is done if it is already started
+     */
+    public static void start() {
+        start(EwcConfig.getWorkerThreads());
+    }
+
+    /**
+     * start the pool. Nothing is done if it is already started
+     *
+     * @param threads the number of threads of the pool. If 0, the number of threads is determined by the number of processors
+     */
+    public static synchronized void start(int threads) {
+        if (pool != null && !pool.isShutdown())
+            return;
+
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        }
+        AtomicInteger count = new AtomicInteger();
+        pool = new ForkJoinPool(threads, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("ewc-worker-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }, (thread, e) -> Ewc.LOGGER.error("uncaught exception in {}", thread.getName(), e), false);
+    }
+
+    /**
+     * shut down the pool, waiting for the running tasks to finish
+     */
+    public static synchronized void shutdown() {
+        if (pool == null)
+            return;
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
+                pool.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        pool = null;
+    }
+
+    /**
+     * @return the pool of the mod. If the pool wasn't started, it will be
+     */
+    public static ForkJoinPool get() {
+        ForkJoinPool current = pool;
+        if (current == null || current.isShutdown()) {
+            start();
+            current = pool;
+        }
+        return current;
+    }
+
+    public static CompletableFuture<Void> runAsync(Runnable task) {
+        return CompletableFuture.runAsync(task, get());
+    }
+
+    /**
+     * Submit a task for every element of the collection and wait for all of them to be completed.
+     * If the collection contains only one element, the task is run on the calling thread.
+     *
+     * @param elements the elements, most of the time one per chunk
+     * @param task     the task to run on each element
+     * @param <T>      the type of the elements
+     */
+    public static <T> void forEach(Collection<T> elements, Consumer<T> task) {
+        if (elements.isEmpty())
+            return;
+        if (elements.size() == 1) {
+            task.accept(elements.iterator().next());
+            return;
+        }
+
+        ForkJoinPool executor = get();
+        CompletableFuture<?>[] futures = new CompletableFuture[elements.size()];
+        int i = 0;
+        for (T element : elements) {
+            futures[i++] = CompletableFuture.runAsync(() -> task.accept(element), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Divide the collection into one batch per thread of the pool, and wait for every batch to be completed.
+     * Unlike {@link #forEach(Collection, Consumer)}, this method is suited for a large number of small tasks,
+     * like a task per block.
+     *
+     * @param elements the elements to divide
+     * @param task     the task to run on each element
+     * @param <T>      the type of the elements
+     */
+    public static <T> void forEachBatched(Collection<T> elements, Consumer<T> task) {
+        ForkJoinPool executor = get();
+        int batches = Math.min(executor.getParallelism(), elements.size());
+        if (batches <= 1) {
+            elements.forEach(task);
+            return;
+        }
+
+        List<T> list = elements instanceof List<T> l ? l : new ArrayList<>(elements);
+        int size = list.size();
+        CompletableFuture<?>[] futures = new CompletableFuture[batches];
+        for (int i = 0; i < batches; i++) {
+            List<T> batch = list.subList((int) ((long) size * i / batches), (int) ((long) size * (i + 1) / batches));
+            futures[i] = CompletableFuture.runAsync(() -> batch.forEach(task), executor);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * <p>Divide the indexes {@code [0, size)} into contiguous ranges, compute a result for each range in the pool,
+     * and return the results in the order of the ranges.
+     * <p>Since every range has its own result, the tasks don't have to share any state.
+     * There are more ranges than threads, to balance tasks that don't take the same time.
+     *
+     * @param size the number of indexes
+     * @param task the task computing the result of the range {@code [start, end)}
+     * @param <R>  the type of the results
+     * @return the results ordered by range
+     */
+    public static <R> List<R> mapRanges(int size, RangeFunction<R> task) {
+        if (size <= 0)
+            return new ArrayList<>();
+        ForkJoinPool executor = get();
+        int ranges = Math.min(size, executor.getParallelism() * 4);
+        if (ranges <= 1) {
+            List<R> result = new ArrayList<>(1);
+            result.add(task.apply(0, size));
+            return result;
+        }
+
+        List<CompletableFuture<R>> futures = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            int start = (int) ((long) size * i / ranges);
+            int end = (int) ((long) size * (i + 1) / ranges);
+            futures.add(CompletableFuture.supplyAsync(() -> task.apply(start, end), executor));
+        }
+        List<R> result = new ArrayList<>(ranges);
+        for (CompletableFuture<R> future : futures) {
+            result.add(future.join());
+        }
+        return result;
+    }
+
+    /**
+     * same as {@link #mapRanges(int, RangeFunction)}, the results being merged using {@link #reduce(List, BinaryOperator)}
+     *
+     * @param size   the number of indexes
+     * @param task   the task computing the result of the range {@code [start, end)}
+     * @param merger merge two results, the second one being after the first one
+     * @param <R>    the type of the results
+     * @return the merged result, or null if the size is 0
+     */
+    public static <R> R mapReduce(int size, RangeFunction<R> task, BinaryOperator<R> merger) {
+        return reduce(mapRanges(size, task), merger);
+    }
+
+    /**
+     * <p>Merge the results two by two, like a tree: {@code (r0 + r1) + (r2 + r3)}.
+     * Every level of the tree is merged in the pool.
+     * <p>The order of the results is always kept, so the merged result doesn't depend on the scheduling of the threads.
+     *
+     * @param results the results to merge, they can be modified by the merger
+     * @param merger  merge two results, the second one being after the first one
+     * @param <R>     the type of the results
+     * @return the merged result, or null if there isn't any result
+     */
+    public static <R> R reduce(List<R> results, BinaryOperator<R> merger) {
+        if (results.isEmpty())
+            return null;
+        List<R> level = results;
+        while (level.size() > 1) {
+            int pairs = level.size() / 2;
+            List<R> next = new ArrayList<>(pairs + 1);
+            if (pairs == 1) {
+                next.add(merger.apply(level.get(0), level.get(1)));
+            } else {
+                List<R> current = level;
+                List<CompletableFuture<R>> futures = new ArrayList<>(pairs);
+                for (int i = 0; i < pairs; i++) {
+                    int index = i * 2;
+                    futures.add(CompletableFuture.supplyAsync(() -> merger.apply(current.get(index), current.get(index + 1)), get()));
+                }
+                for (CompletableFuture<R> future : futures) {
+                    next.add(future.join());
+                }
+            }
+            //the last result is alone
+            if (level.size() % 2 == 1) {
+                next.add(level.getLast());
+            }
+            level = next;
+        }
+        return level.getFirst();
+    }
+
+    @FunctionalInterface
+    public interface RangeFunction<R> {
+        /**
+         * @param start the first index of the range, inclusive
+         * @param end   the last index of the range, exclusive
+         * @return the result of the range
+         */
+        R apply(int start, int end);
+    }
+}
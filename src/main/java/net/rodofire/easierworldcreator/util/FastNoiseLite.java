@@ -55,6 +55,7 @@ package net.rodofire.easierworldcreator.util;
 // /*FNLfloat*/ float
 // /*FNLfloat*/ double
 
+import it.unimi.dsi.fastutil.longs.Long2FloatOpenHashMap;
 import net.minecraft.util.math.BlockPos;
 
 /**
@@ -473,10 +474,15 @@ public class FastNoiseLite {
      * @return Noise output bounded between -1...1
      */
     public float GetNoise(/*FNLfloat*/ float x, /*FNLfloat*/ float y) {
-        x *= mFrequency;
-        y *= mFrequency;
+        return GenNoise(mNoiseType, mFractalType, x * mFrequency, y * mFrequency);
+    }
 
-        switch (mNoiseType) {
+    /**
+     * modification for bulk use: the body of {@link #GetNoise(float, float)}, the settings being given as parameters,
+     * so that they are only read once by the bulk methods
+     */
+    private float GenNoise(NoiseType noiseType, FractalType fractalType, /*FNLfloat*/ float x, /*FNLfloat*/ float y) {
+        switch (noiseType) {
             case OpenSimplex2:
             case OpenSimplex2S: {
                 final /*FNLfloat*/ float SQRT3 = (/*FNLfloat*/ float) 1.7320508075688772935274463415059;
@@ -491,7 +497,7 @@ public class FastNoiseLite {
                 break;
         }
 
-        return switch (mFractalType) {
+        return switch (fractalType) {
             case FBm -> GenFractalFBm(x, y);
             case Ridged -> GenFractalRidged(x, y);
             case PingPong -> GenFractalPingPong(x, y);
@@ -508,11 +514,15 @@ public class FastNoiseLite {
      * @return Noise output bounded between -1...1
      */
     public float GetNoise(/*FNLfloat*/ float x, /*FNLfloat*/ float y, /*FNLfloat*/ float z) {
-        x *= mFrequency;
-        y *= mFrequency;
-        z *= mFrequency;
+        return GenNoise(mTransformType3D, mFractalType, x * mFrequency, y * mFrequency, z * mFrequency);
+    }
 
-        switch (mTransformType3D) {
+    /**
+     * modification for bulk use: the body of {@link #GetNoise(float, float, float)}, the settings being given as parameters,
+     * so that they are only read once by the bulk methods
+     */
+    private float GenNoise(TransformType3D transformType, FractalType fractalType, /*FNLfloat*/ float x, /*FNLfloat*/ float y, /*FNLfloat*/ float z) {
+        switch (transformType) {
             case ImproveXYPlanes: {
                 /*FNLfloat*/
                 float xy = x + y;
@@ -548,7 +558,7 @@ public class FastNoiseLite {
                 break;
         }
 
-        return switch (mFractalType) {
+        return switch (fractalType) {
             case FBm -> GenFractalFBm(x, y, z);
             case Ridged -> GenFractalRidged(x, y, z);
             case PingPong -> GenFractalPingPong(x, y, z);
@@ -557,6 +567,60 @@ public class FastNoiseLite {
     }
 
 
+    /**
+     * addition for bulk use.
+     * Fill the array with the 2D noise of the pos encoded by {@link LongPosHelper}, using their x and z coordinates.
+     * The noise is only computed once per column: consecutive pos of the same column reuse the last value,
+     * and the other columns are cached, so the order of the pos doesn't matter.
+     * The settings of the noise are only read once
+     *
+     * @param positions the encoded pos
+     * @param out       the array to fill, the value of {@code positions[i]} being at {@code out[i]}
+     */
+    public void GetNoise2D(long[] positions, float[] out) {
+        NoiseType noiseType = mNoiseType;
+        FractalType fractalType = mFractalType;
+        float frequency = mFrequency;
+        Long2FloatOpenHashMap columns = new Long2FloatOpenHashMap();
+        long lastColumn = 0;
+        float lastNoise = 0;
+        boolean hasLast = false;
+        for (int i = 0; i < positions.length; i++) {
+            int x = LongPosHelper.decodeX(positions[i]);
+            int z = LongPosHelper.decodeZ(positions[i]);
+            long column = ((long) x << 32) | (z & 0xFFFFFFFFL);
+            if (!hasLast || column != lastColumn) {
+                if (columns.containsKey(column)) {
+                    lastNoise = columns.get(column);
+                } else {
+                    lastNoise = GenNoise(noiseType, fractalType, x * frequency, z * frequency);
+                    columns.put(column, lastNoise);
+                }
+                lastColumn = column;
+                hasLast = true;
+            }
+            out[i] = lastNoise;
+        }
+    }
+
+    /**
+     * addition for bulk use.
+     * Fill the array with the 3D noise of the pos encoded by {@link LongPosHelper}.
+     * The settings of the noise are only read once
+     *
+     * @param positions the encoded pos
+     * @param out       the array to fill, the value of {@code positions[i]} being at {@code out[i]}
+     */
+    public void GetNoise3D(long[] positions, float[] out) {
+        TransformType3D transformType = mTransformType3D;
+        FractalType fractalType = mFractalType;
+        float frequency = mFrequency;
+        for (int i = 0; i < positions.length; i++) {
+            long pos = positions[i];
+            out[i] = GenNoise(transformType, fractalType, LongPosHelper.decodeX(pos) * frequency, LongPosHelper.decodeY(pos) * frequency, LongPosHelper.decodeZ(pos) * frequency);
+        }
+    }
+
     private static final float[] Gradients2D = {
             0.130526192220052f, 0.99144486137381f, 0.38268343236509f, 0.923879532511287f, 0.608761429008721f, 0.793353340291235f, 0.793353340291235f, 0.608761429008721f,
             0.923879532511287f, 0.38268343236509f, 0.99144486137381f, 0.130526192220051f, 0.99144486137381f, -0.130526192220051f, 0.923879532511287f, -0.38268343236509f,
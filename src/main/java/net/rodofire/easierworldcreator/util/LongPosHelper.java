@@ -45,6 +45,8 @@ public class LongPosHelper {
      */
     public static final int Y_MAX = (1 << (Y_BITS - 1)) - 1;
 
+    private static final ThreadLocal<BlockPos.Mutable> MUTABLE = ThreadLocal.withInitial(BlockPos.Mutable::new);
+
     /**
      * Encodes the given coordinates into a single long value.
      *
@@ -109,6 +111,28 @@ public class LongPosHelper {
         return new BlockPos(x, y, z);
     }
 
+    /**
+     * decode the pos into the mutable pos, nothing is allocated
+     *
+     * @param encoded the encoded pos
+     * @param mutable the pos that will be modified
+     * @return the mutable pos
+     */
+    public static BlockPos.Mutable decodeBlockPos(long encoded, BlockPos.Mutable mutable) {
+        return mutable.set(decodeX(encoded), decodeY(encoded), decodeZ(encoded));
+    }
+
+    /**
+     * <p>decode the pos into a mutable pos shared by every call made on the same thread, nothing is allocated.
+     * <p>The pos is only valid until the next call on the same thread, it must never be stored, use {@link BlockPos#toImmutable()} instead.
+     *
+     * @param encoded the encoded pos
+     * @return the mutable pos of the thread
+     */
+    public static BlockPos.Mutable decodeMutable(long encoded) {
+        return decodeBlockPos(encoded, MUTABLE.get());
+    }
+
     public static int[] decodeBlockPos2Array(long encoded) {
         return new int[]{
                 (int) ((encoded >> (Y_BITS + XZ_BITS)) & XZ_MASK) - (1 << (XZ_BITS - 1)),
@@ -147,6 +171,18 @@ public class LongPosHelper {
         );
     }
 
+    /**
+     * get the chunk of the pos without creating a {@link ChunkPos}
+     *
+     * @param encoded the encoded pos
+     * @return the chunk packed the same way as {@link ChunkPos#toLong()}
+     */
+    public static long getChunkLong(long encoded) {
+        int x = (int) ((encoded >> (Y_BITS + XZ_BITS)) & XZ_MASK) - (1 << (XZ_BITS - 1));
+        int z = (int) ((encoded >> Y_BITS) & XZ_MASK) - (1 << (XZ_BITS - 1));
+        return ChunkPos.toLong(ChunkSectionPos.getSectionCoord(x), ChunkSectionPos.getSectionCoord(z));
+    }
+
     public static long add(long pos, int dx, int dy, int dz) {
         long shiftedDx = (long) dx << (Y_BITS + XZ_BITS);
         long shiftedDz = (long) dz << Y_BITS;
@@ -6,15 +6,49 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.StructureWorldAccess;
 import net.minecraft.world.chunk.Chunk;
 import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
+import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 public class EwcFolderData {
+    /**
+     * true if the structures directory contains {@code chunk_x_z} directories, checked once at startup
+     */
+    private static volatile boolean legacyPieces = false;
 
     public static void initFiles() {
         createDirectories();
+        legacyPieces = hasChunkDirectories();
+    }
+
+    /**
+     * <p>method to know if pieces might be saved as files in the {@code chunk_x_z} directories,
+     * either because they were saved before the region storage existed, or because {@link EwcConfig#getReadableMultiChunkFiles()} is enabled.
+     * <p>This doesn't access the disk, so the chunk generation can skip the legacy directories without doing a stat per chunk.
+     *
+     * @return true if legacy pieces might exist
+     */
+    public static boolean hasLegacyPieces() {
+        return legacyPieces || EwcConfig.getReadableMultiChunkFiles();
+    }
+
+    private static boolean hasChunkDirectories() {
+        Path structures = getStructuresDirectory();
+        if (!Files.isDirectory(structures))
+            return false;
+        try (Stream<Path> paths = Files.list(structures)) {
+            return paths.anyMatch(path -> path.getFileName().toString().startsWith("chunk_"));
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to list the structures directory", e);
+            //we can't know, so we keep reading the directories
+            return true;
+        }
     }
 
     private static void createDirectories() {
@@ -32,6 +66,11 @@ public class EwcFolderData {
         if (!file.exists()) {
             file.mkdirs();
         }
+
+        file = getRegionDir().toFile();
+        if (!file.exists()) {
+            file.mkdirs();
+        }
     }
 
 
@@ -53,13 +92,39 @@ public class EwcFolderData {
             return path;
         }
         path.toFile().mkdirs();
+        legacyPieces = true;
         return path;
     }
 
+    /**
+     * method to get the path of a multi-chunk piece.
+     * The binary piece is used, unless only a JSON piece exists for this name.
+     *
+     * @param chunk the chunk of the piece
+     * @param name  the name of the piece
+     * @return the path of the piece
+     */
+    public static Path getPiecePath(ChunkPos chunk, String name) {
+        Path dir = getStructureDataDir(chunk);
+        Path piece = dir.resolve(name + PieceFormat.EXTENSION);
+        if (Files.exists(piece)) {
+            return piece;
+        }
+        Path json = dir.resolve(name + PieceFormat.JSON_EXTENSION);
+        return Files.exists(json) ? json : piece;
+    }
+
     public static Path getReferenceDir() {
         return getEwcDataDirectory().resolve("structure_references");
     }
 
+    /**
+     * @return the directory containing the region files used to store multi-chunk features
+     */
+    public static Path getRegionDir() {
+        return getEwcDataDirectory().resolve("regions");
+    }
+
     public static Path getStructureReference(ChunkPos chunk) {
         return getReferenceDir().resolve("chunk_" + chunk.x + "_" + chunk.z + ".json");
     }
@@ -3,6 +3,7 @@ package net.rodofire.easierworldcreator.util.file;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
 import net.rodofire.easierworldcreator.config.ewc.EwcConfig;
 
 import java.io.IOException;
@@ -13,7 +14,7 @@ import java.util.List;
 import java.util.stream.Stream;
 
 /**
- * class to load JSON files related to multi-chunk features
+ * class to load files related to multi-chunk features
  */
 public class LoadChunkShapeInfo {
 
@@ -63,7 +64,7 @@ public class LoadChunkShapeInfo {
     private static void getPathFromChunk(Path generatedPath, List<Path> pathList) {
         try (Stream<Path> paths = Files.list(generatedPath)) {
             paths.forEach(filePath -> {
-                if (filePath.toString().endsWith(".json")) {
+                if (PieceFormat.isPiece(filePath.toString())) {
                     pathList.add(filePath);
                 }
             });
@@ -0,0 +1,265 @@
+package net.rodofire.easierworldcreator.util.file.region;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.function.UnaryOperator;
+
+/**
+ * <p>Anvil-like container storing the data of 32x32 chunks inside a single file.
+ * <p>The file is divided into sectors of {@link #SECTOR_BYTES} bytes:
+ * <ul>
+ *     <li>the first sector contains the offset table: the index of the first sector of every chunk</li>
+ *     <li>the second sector contains the number of sectors used by every chunk</li>
+ *     <li>the other sectors contain the data of the chunks, prefixed by their length</li>
+ * </ul>
+ * <p>The offset table is kept in memory, meaning that knowing if a chunk has data doesn't require any I/O.
+ * Sectors freed when a chunk is removed or rewritten are reused by the next writes.
+ * <p>Data can be appended to a chunk using {@link #append(int, byte[])}, which only writes the new data
+ * in the free space of the sectors of the chunk.
+ */
+public class RegionFile implements Closeable {
+    public static final int SIZE = 32;
+    public static final int CHUNK_COUNT = SIZE * SIZE;
+    public static final int SECTOR_BYTES = 4096;
+    static final int HEADER_SECTORS = 2;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final int[] offsets = new int[CHUNK_COUNT];
+    private final int[] sectorCounts = new int[CHUNK_COUNT];
+    private final BitSet usedSectors = new BitSet();
+
+    public RegionFile(Path path) throws IOException {
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        usedSectors.set(0, HEADER_SECTORS);
+
+        if (channel.size() < (long) HEADER_SECTORS * SECTOR_BYTES) {
+            channel.write(ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES), 0);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) break;
+        }
+        header.flip();
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            offsets[i] = header.getInt(i * 4);
+            sectorCounts[i] = header.getInt(SECTOR_BYTES + i * 4);
+            if (offsets[i] != 0) {
+                usedSectors.set(offsets[i], offsets[i] + sectorCounts[i]);
+            }
+        }
+    }
+
+    /**
+     * method to get the index of a chunk inside the region
+     *
+     * @param chunkX the x coordinate of the chunk
+     * @param chunkZ the z coordinate of the chunk
+     * @return the index of the chunk
+     */
+    public static int getIndex(int chunkX, int chunkZ) {
+        return (chunkX & (SIZE - 1)) + (chunkZ & (SIZE - 1)) * SIZE;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public synchronized boolean has(int index) {
+        return offsets[index] != 0;
+    }
+
+    public synchronized boolean isEmpty() {
+        for (int offset : offsets) {
+            if (offset != 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param index the index of the chunk
+     * @return the data of the chunk, or null if no data is present
+     */
+    public synchronized byte[] read(int index) throws IOException {
+        int offset = offsets[index];
+        if (offset == 0)
+            return null;
+
+        long position = (long) offset * SECTOR_BYTES;
+        int length = readLength(index);
+        ByteBuffer data = ByteBuffer.allocate(length);
+        while (data.hasRemaining()) {
+            if (channel.read(data, position + 4 + data.position()) < 0) {
+                throw new IOException("unexpected end of region " + path);
+            }
+        }
+        return data.array();
+    }
+
+    /**
+     * write the data of a chunk. The new data is written before the header is modified and before the old sectors are freed,
+     * so that a crash during the write doesn't corrupt the previous data.
+     *
+     * @param index the index of the chunk
+     * @param data  the data to write
+     */
+    public synchronized void write(int index, byte[] data) throws IOException {
+        writeSectors(index, data, getSectors(data.length));
+    }
+
+    /**
+     * <p>Append data at the end of the data of a chunk, without reading the data already present.
+     * <p>The new data is written in the free space of the last sector of the chunk, or in the free sectors following it.
+     * When there isn't enough space, the data of the chunk is moved to twice as many sectors,
+     * meaning that appending n times only moves the data log(n) times.
+     * <p>The length of the data is only modified once the new data is written, so that a crash during the write keeps the previous data.
+     *
+     * @param index the index of the chunk
+     * @param data  the data to append
+     */
+    public synchronized void append(int index, byte[] data) throws IOException {
+        int offset = offsets[index];
+        if (offset == 0) {
+            write(index, data);
+            return;
+        }
+
+        int length = readLength(index);
+        int count = sectorCounts[index];
+        int sectors = getSectors(length + data.length);
+        if (sectors > count) {
+            int end = offset + count;
+            int nextUsed = usedSectors.nextSetBit(end);
+            if (nextUsed != -1 && nextUsed - end < sectors - count) {
+                byte[] moved = new byte[length + data.length];
+                System.arraycopy(read(index), 0, moved, 0, length);
+                System.arraycopy(data, 0, moved, length, data.length);
+                writeSectors(index, moved, Math.max(sectors, count * 2));
+                return;
+            }
+            usedSectors.set(end, offset + sectors);
+        }
+
+        long position = (long) offset * SECTOR_BYTES;
+        writeFully(ByteBuffer.wrap(data), position + 4 + length);
+        if (sectors > count) {
+            setHeader(index, offset, sectors);
+        }
+        channel.write(ByteBuffer.allocate(4).putInt(0, length + data.length), position);
+    }
+
+    /**
+     * write the data of a chunk in new sectors, then free the old ones
+     *
+     * @param sectors the number of sectors to allocate, at least enough to contain the data
+     */
+    private void writeSectors(int index, byte[] data, int sectors) throws IOException {
+        int start = allocate(sectors);
+
+        ByteBuffer buffer = ByteBuffer.allocate(getSectors(data.length) * SECTOR_BYTES);
+        buffer.putInt(data.length).put(data).rewind();
+        writeFully(buffer, (long) start * SECTOR_BYTES);
+
+        int oldOffset = offsets[index];
+        int oldCount = sectorCounts[index];
+        setHeader(index, start, sectors);
+        if (oldOffset != 0) {
+            usedSectors.clear(oldOffset, oldOffset + oldCount);
+        }
+    }
+
+    /**
+     * Atomically modify the data of a chunk.
+     *
+     * @param index    the index of the chunk
+     * @param function the function modifying the data. It receives null if no data is present and can return null to delete the data.
+     */
+    public synchronized void update(int index, UnaryOperator<byte[]> function) throws IOException {
+        byte[] data = function.apply(read(index));
+        if (data == null) {
+            delete(index);
+        } else {
+            write(index, data);
+        }
+    }
+
+    public synchronized void delete(int index) throws IOException {
+        int offset = offsets[index];
+        if (offset == 0)
+            return;
+        setHeader(index, 0, 0);
+        usedSectors.clear(offset, offset + sectorCounts[index]);
+    }
+
+    /**
+     * @return the indexes of every chunk that has data
+     */
+    public synchronized int[] getIndexes() {
+        int count = 0;
+        for (int offset : offsets) {
+            if (offset != 0) count++;
+        }
+        int[] indexes = new int[count];
+        int j = 0;
+        for (int i = 0; i < CHUNK_COUNT; i++) {
+            if (offsets[i] != 0) indexes[j++] = i;
+        }
+        return indexes;
+    }
+
+    private static int getSectors(int length) {
+        return (length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    private int readLength(int index) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+        channel.read(lengthBuffer, (long) offsets[index] * SECTOR_BYTES);
+        int length = lengthBuffer.flip().getInt();
+        if (length < 0 || length > sectorCounts[index] * SECTOR_BYTES - 4) {
+            throw new IOException("corrupted chunk " + index + " in region " + path);
+        }
+        return length;
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * find the first run of free sectors large enough, or append the sectors at the end of the file
+     */
+    private int allocate(int sectors) {
+        int start = HEADER_SECTORS;
+        while (true) {
+            start = usedSectors.nextClearBit(start);
+            int end = usedSectors.nextSetBit(start);
+            if (end == -1 || end - start >= sectors) {
+                usedSectors.set(start, start + sectors);
+                return start;
+            }
+            start = end;
+        }
+    }
+
+    private void setHeader(int index, int offset, int sectors) throws IOException {
+        offsets[index] = offset;
+        sectorCounts[index] = sectors;
+        channel.write(ByteBuffer.allocate(4).putInt(0, offset), index * 4L);
+        channel.write(ByteBuffer.allocate(4).putInt(0, sectors), SECTOR_BYTES + index * 4L);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+}
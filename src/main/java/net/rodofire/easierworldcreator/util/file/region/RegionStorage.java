@@ -0,0 +1,205 @@
+package net.rodofire.easierworldcreator.util.file.region;
+
+import net.minecraft.util.math.ChunkPos;
+import net.rodofire.easierworldcreator.Ewc;
+import net.rodofire.easierworldcreator.util.file.EwcFolderData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>Class to store data related to chunks inside {@link RegionFile}s, instead of creating one file per chunk.
+ * <p>Region files are opened lazily and kept open until {@link #closeAll()} is called.
+ * Regions that don't exist are also remembered, so that asking for a chunk without data doesn't perform any I/O.
+ */
+public class RegionStorage {
+    /**
+     * storage of the pieces of multi-chunk features
+     */
+    public static final RegionStorage PIECES = new RegionStorage("pieces");
+    /**
+     * storage of the references defining when should the pieces be placed
+     */
+    public static final RegionStorage REFERENCES = new RegionStorage("references");
+
+    private static final String EXTENSION = ".ewcr";
+    private static final Pattern REGION_PATTERN = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\" + EXTENSION + "$");
+
+    private final String name;
+    private final Map<Long, RegionFile> regions = new ConcurrentHashMap<>();
+    private final Set<Long> absentRegions = ConcurrentHashMap.newKeySet();
+
+    private RegionStorage(String name) {
+        this.name = name;
+    }
+
+    public Path getDirectory() {
+        return EwcFolderData.getRegionDir().resolve(name);
+    }
+
+    private Path getRegionPath(int regionX, int regionZ) {
+        return getDirectory().resolve("r." + regionX + "." + regionZ + EXTENSION);
+    }
+
+    /**
+     * @param chunkPos the chunk inside the region
+     * @param create   if true, the region file will be created if it doesn't exist
+     * @return the region related to the chunk, or null if it doesn't exist and {@code create} is false
+     */
+    private RegionFile getRegion(ChunkPos chunkPos, boolean create) {
+        int regionX = chunkPos.getRegionX();
+        int regionZ = chunkPos.getRegionZ();
+        long key = ChunkPos.toLong(regionX, regionZ);
+
+        RegionFile region = regions.get(key);
+        if (region != null)
+            return region;
+        if (!create && absentRegions.contains(key))
+            return null;
+
+        Path path = getRegionPath(regionX, regionZ);
+        if (!create && !Files.exists(path)) {
+            absentRegions.add(key);
+            return null;
+        }
+
+        region = regions.computeIfAbsent(key, k -> {
+            try {
+                Files.createDirectories(path.getParent());
+                return new RegionFile(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        absentRegions.remove(key);
+        return region;
+    }
+
+    public boolean has(ChunkPos chunkPos) {
+        RegionFile region = getRegion(chunkPos, false);
+        return region != null && region.has(RegionFile.getIndex(chunkPos.x, chunkPos.z));
+    }
+
+    /**
+     * @param chunkPos the chunk of the data
+     * @return the data of the chunk, or null if no data is present
+     */
+    public byte[] read(ChunkPos chunkPos) {
+        RegionFile region = getRegion(chunkPos, false);
+        if (region == null)
+            return null;
+        try {
+            return region.read(RegionFile.getIndex(chunkPos.x, chunkPos.z));
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to read chunk {} from region storage {}", chunkPos, name, e);
+            return null;
+        }
+    }
+
+    public void write(ChunkPos chunkPos, byte[] data) {
+        try {
+            getRegion(chunkPos, true).write(RegionFile.getIndex(chunkPos.x, chunkPos.z), data);
+        } catch (IOException | UncheckedIOException e) {
+            Ewc.LOGGER.error("failed to write chunk {} to region storage {}", chunkPos, name, e);
+        }
+    }
+
+    /**
+     * Atomically modify the data of a chunk
+     *
+     * @param chunkPos the chunk of the data
+     * @param function the function modifying the data. It receives null if no data is present and can return null to delete the data.
+     * @see RegionFile#update(int, UnaryOperator)
+     */
+    public void update(ChunkPos chunkPos, UnaryOperator<byte[]> function) {
+        try {
+            getRegion(chunkPos, true).update(RegionFile.getIndex(chunkPos.x, chunkPos.z), function);
+        } catch (IOException | UncheckedIOException e) {
+            Ewc.LOGGER.error("failed to update chunk {} in region storage {}", chunkPos, name, e);
+        }
+    }
+
+    /**
+     * append data to the data of a chunk, without reading it
+     *
+     * @param chunkPos the chunk of the data
+     * @param data     the data to append
+     * @see RegionFile#append(int, byte[])
+     */
+    public void append(ChunkPos chunkPos, byte[] data) {
+        try {
+            getRegion(chunkPos, true).append(RegionFile.getIndex(chunkPos.x, chunkPos.z), data);
+        } catch (IOException | UncheckedIOException e) {
+            Ewc.LOGGER.error("failed to append to chunk {} in region storage {}", chunkPos, name, e);
+        }
+    }
+
+    public void delete(ChunkPos chunkPos) {
+        RegionFile region = getRegion(chunkPos, false);
+        if (region == null)
+            return;
+        try {
+            region.delete(RegionFile.getIndex(chunkPos.x, chunkPos.z));
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to delete chunk {} from region storage {}", chunkPos, name, e);
+        }
+    }
+
+    /**
+     * This method lists the region directory and should not be used in performance critical code.
+     *
+     * @return every chunk that has data in the storage
+     */
+    public List<ChunkPos> getChunks() {
+        List<ChunkPos> chunks = new ArrayList<>();
+        if (!Files.isDirectory(getDirectory()))
+            return chunks;
+
+        try (Stream<Path> paths = Files.list(getDirectory())) {
+            paths.forEach(path -> {
+                Matcher matcher = REGION_PATTERN.matcher(path.getFileName().toString());
+                if (!matcher.matches())
+                    return;
+                int regionX = Integer.parseInt(matcher.group(1));
+                int regionZ = Integer.parseInt(matcher.group(2));
+                RegionFile region = getRegion(new ChunkPos(regionX * RegionFile.SIZE, regionZ * RegionFile.SIZE), false);
+                if (region == null)
+                    return;
+                for (int index : region.getIndexes()) {
+                    chunks.add(new ChunkPos(regionX * RegionFile.SIZE + index % RegionFile.SIZE, regionZ * RegionFile.SIZE + index / RegionFile.SIZE));
+                }
+            });
+        } catch (IOException e) {
+            Ewc.LOGGER.error("failed to list region storage {}", name, e);
+        }
+        return chunks;
+    }
+
+    public void close() {
+        for (RegionFile region : regions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                Ewc.LOGGER.error("failed to close region {}", region.getPath(), e);
+            }
+        }
+        regions.clear();
+        absentRegions.clear();
+    }
+
+    public static void closeAll() {
+        PIECES.close();
+        REFERENCES.close();
+    }
+}
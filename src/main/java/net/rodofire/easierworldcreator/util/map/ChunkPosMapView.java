@@ -0,0 +1,136 @@
+package net.rodofire.easierworldcreator.util.map;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * <p>View of a map keyed by chunks packed using {@link ChunkPos#toLong()}, as a {@code Map<ChunkPos, V>}.
+ * <p>The view doesn't copy anything: every modification of the view is applied to the backing map and vice versa.
+ * A {@link ChunkPos} is only created when a key is read.
+ *
+ * @param <V> the type of the values
+ */
+public class ChunkPosMapView<V> extends AbstractMap<ChunkPos, V> {
+    private final Long2ObjectMap<V> map;
+
+    public ChunkPosMapView(Long2ObjectMap<V> map) {
+        this.map = map;
+    }
+
+    /**
+     * @return the map backing the view
+     */
+    public Long2ObjectMap<V> getBackingMap() {
+        return map;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof ChunkPos chunkPos && map.containsKey(chunkPos.toLong());
+    }
+
+    @Override
+    public V get(Object key) {
+        return key instanceof ChunkPos chunkPos ? map.get(chunkPos.toLong()) : null;
+    }
+
+    @Override
+    public V put(ChunkPos key, V value) {
+        return map.put(key.toLong(), value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return key instanceof ChunkPos chunkPos ? map.remove(chunkPos.toLong()) : null;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Set<Entry<ChunkPos, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<ChunkPos, V>> iterator() {
+                ObjectIterator<Long2ObjectMap.Entry<V>> iterator = map.long2ObjectEntrySet().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    @Override
+                    public Entry<ChunkPos, V> next() {
+                        Long2ObjectMap.Entry<V> entry = iterator.next();
+                        return new ViewEntry<>(new ChunkPos(entry.getLongKey()), entry);
+                    }
+
+                    @Override
+                    public void remove() {
+                        iterator.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+
+    private static class ViewEntry<V> implements Map.Entry<ChunkPos, V> {
+        private final ChunkPos key;
+        private final Long2ObjectMap.Entry<V> entry;
+
+        private ViewEntry(ChunkPos key, Long2ObjectMap.Entry<V> entry) {
+            this.key = key;
+            this.entry = entry;
+        }
+
+        @Override
+        public ChunkPos getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return entry.getValue();
+        }
+
+        @Override
+        public V setValue(V value) {
+            return entry.setValue(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> other && key.equals(other.getKey()) && Objects.equals(getValue(), other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ Objects.hashCode(getValue());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package net.rodofire.easierworldcreator.world.chunk;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Striped locks keyed by chunk position.
+ * <p>Instead of creating one lock per chunk, which would require a map and keeping the locks alive,
+ * a fixed amount of locks is shared between chunks. Two chunks can share the same lock,
+ * but two threads working on the same chunk will always use the same lock.
+ * <pre>{@code
+ * ReentrantLock lock = ChunkLocks.get(chunkPos);
+ * lock.lock();
+ * try {
+ *     //modify data related to the chunk
+ * } finally {
+ *     lock.unlock();
+ * }
+ * }</pre>
+ */
+public class ChunkLocks {
+    /**
+     * number of locks, must be a power of two
+     */
+    private static final int STRIPES = 256;
+    private static final ReentrantLock[] LOCKS = new ReentrantLock[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantLock();
+        }
+    }
+
+    public static ReentrantLock get(ChunkPos chunkPos) {
+        return get(chunkPos.toLong());
+    }
+
+    /**
+     * @param chunkPos the chunkPos packed using {@link ChunkPos#toLong()}
+     * @return the lock related to the chunk
+     */
+    public static ReentrantLock get(long chunkPos) {
+        //mixing the bits to avoid neighbour chunks sharing the same lock
+        return LOCKS[(int) HashCommon.mix(chunkPos) & (STRIPES - 1)];
+    }
+}
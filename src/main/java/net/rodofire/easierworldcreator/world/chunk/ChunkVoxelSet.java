@@ -0,0 +1,289 @@
+package net.rodofire.easierworldcreator.world.chunk;
+
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * <p>Set of the pos of a single chunk stored as a bitset, one bit per block.
+ * <p>Compared to a {@link LongOpenHashSet}, a chunk section only uses 512 bytes whatever the number of blocks it contains.
+ * Empty sections are not allocated and full sections all share the same array,
+ * so dense shapes like full spheres use much less memory.
+ * <p>Inside a section, the bits of a column are contiguous, meaning that the blocks above a pos can be tested without decoding it.
+ * The pos are the same as the ones encoded by {@link LongPosHelper}.
+ */
+public class ChunkVoxelSet {
+    /**
+     * number of longs used by a section of 16x16x16 blocks
+     */
+    private static final int SECTION_LONGS = 4096 / Long.SIZE;
+    private static final int MIN_SECTION = -(1 << (LongPosHelper.Y_BITS - 5));
+    private static final int SECTIONS = 1 << (LongPosHelper.Y_BITS - 4);
+    /**
+     * shared by every full section, must never be modified
+     */
+    private static final long[] FULL = new long[SECTION_LONGS];
+
+    static {
+        Arrays.fill(FULL, -1L);
+    }
+
+    private final int chunkX;
+    private final int chunkZ;
+    private final long[][] sections = new long[SECTIONS][];
+    private final short[] counts = new short[SECTIONS];
+    private int size = 0;
+    //bounds of the allocated sections to avoid iterating on every section
+    private int minIndex = SECTIONS;
+    private int maxIndex = -1;
+
+    public ChunkVoxelSet(int chunkX, int chunkZ) {
+        this.chunkX = chunkX;
+        this.chunkZ = chunkZ;
+    }
+
+    /**
+     * @param chunk the chunk packed using {@link ChunkPos#toLong()}
+     */
+    public ChunkVoxelSet(long chunk) {
+        this(ChunkPos.getPackedX(chunk), ChunkPos.getPackedZ(chunk));
+    }
+
+    /**
+     * @param chunk     the chunk packed using {@link ChunkPos#toLong()}
+     * @param positions the pos to add, the ones outside the chunk are ignored
+     * @return the set containing the pos
+     */
+    public static ChunkVoxelSet of(long chunk, LongCollection positions) {
+        ChunkVoxelSet set = new ChunkVoxelSet(chunk);
+        LongIterator iterator = positions.iterator();
+        while (iterator.hasNext()) {
+            set.add(iterator.nextLong());
+        }
+        return set;
+    }
+
+    /**
+     * same as {@link #of(long, LongCollection)}, stopping at the first pos outside the chunk
+     *
+     * @param chunk     the chunk packed using {@link ChunkPos#toLong()}
+     * @param positions the pos to add
+     * @return the set containing the pos, or null if a pos is outside the chunk
+     */
+    public static ChunkVoxelSet ofChunk(long chunk, LongCollection positions) {
+        ChunkVoxelSet set = new ChunkVoxelSet(chunk);
+        LongIterator iterator = positions.iterator();
+        while (iterator.hasNext()) {
+            long pos = iterator.nextLong();
+            int x = LongPosHelper.decodeX(pos);
+            int y = LongPosHelper.decodeY(pos);
+            int z = LongPosHelper.decodeZ(pos);
+            if (!set.isInBounds(x, y, z))
+                return null;
+            set.add(x, y, z);
+        }
+        return set;
+    }
+
+    /**
+     * @return the chunk packed using {@link ChunkPos#toLong()}
+     */
+    public long getChunk() {
+        return ChunkPos.toLong(chunkX, chunkZ);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean add(long pos) {
+        return add(LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+    }
+
+    /**
+     * @return true if the pos was added, false if it was already present or outside the chunk
+     */
+    public boolean add(int x, int y, int z) {
+        if (!isInBounds(x, y, z))
+            return false;
+        int index = getSectionIndex(y);
+        long[] section = sections[index];
+        if (section == FULL)
+            return false;
+        if (section == null) {
+            section = new long[SECTION_LONGS];
+            sections[index] = section;
+            minIndex = Math.min(minIndex, index);
+            maxIndex = Math.max(maxIndex, index);
+        }
+        int bit = getBit(x, y, z);
+        long mask = 1L << bit;
+        if ((section[bit >>> 6] & mask) != 0)
+            return false;
+        section[bit >>> 6] |= mask;
+        size++;
+        if (++counts[index] == 4096) {
+            sections[index] = FULL;
+        }
+        return true;
+    }
+
+    public boolean remove(long pos) {
+        return remove(LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+    }
+
+    /**
+     * @return true if the pos was removed
+     */
+    public boolean remove(int x, int y, int z) {
+        if (!isInBounds(x, y, z))
+            return false;
+        int index = getSectionIndex(y);
+        long[] section = sections[index];
+        if (section == null)
+            return false;
+        if (section == FULL) {
+            section = FULL.clone();
+            sections[index] = section;
+        }
+        int bit = getBit(x, y, z);
+        long mask = 1L << bit;
+        if ((section[bit >>> 6] & mask) == 0)
+            return false;
+        section[bit >>> 6] &= ~mask;
+        size--;
+        if (--counts[index] == 0) {
+            sections[index] = null;
+        }
+        return true;
+    }
+
+    public boolean contains(long pos) {
+        return contains(LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos));
+    }
+
+    /**
+     * @return true if the pos is in the set. Pos outside the chunk are never present
+     */
+    public boolean contains(int x, int y, int z) {
+        if (!isInBounds(x, y, z))
+            return false;
+        long[] section = sections[getSectionIndex(y)];
+        if (section == null)
+            return false;
+        int bit = getBit(x, y, z);
+        return (section[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * @param pos       the encoded pos
+     * @param direction the direction of the neighbour
+     * @param distance  the distance between the pos and the neighbour
+     * @return true if the neighbour is in the set
+     */
+    public boolean contains(long pos, Direction direction, int distance) {
+        return contains(LongPosHelper.decodeX(pos) + direction.getOffsetX() * distance,
+                LongPosHelper.decodeY(pos) + direction.getOffsetY() * distance,
+                LongPosHelper.decodeZ(pos) + direction.getOffsetZ() * distance);
+    }
+
+    /**
+     * @param sectionY the y coordinate of the section, see {@link ChunkSectionPos#getSectionCoord(int)}
+     * @return true if every block of the section is in the set
+     */
+    public boolean isSectionFull(int sectionY) {
+        int index = sectionY - MIN_SECTION;
+        return index >= 0 && index < SECTIONS && sections[index] == FULL;
+    }
+
+    /**
+     * @param sectionY the y coordinate of the section, see {@link ChunkSectionPos#getSectionCoord(int)}
+     * @return true if no block of the section is in the set
+     */
+    public boolean isSectionEmpty(int sectionY) {
+        int index = sectionY - MIN_SECTION;
+        return index < 0 || index >= SECTIONS || sections[index] == null;
+    }
+
+    /**
+     * @return the y coordinate of the lowest section containing a pos. Only valid if the set isn't empty
+     */
+    public int getMinSectionY() {
+        return minIndex + MIN_SECTION;
+    }
+
+    /**
+     * @return the y coordinate of the highest section that contained a pos. Only valid if the set isn't empty
+     */
+    public int getMaxSectionY() {
+        return maxIndex + MIN_SECTION;
+    }
+
+    /**
+     * @param x        the x coordinate of the column
+     * @param z        the z coordinate of the column
+     * @param sectionY the y coordinate of the section
+     * @return the 16 blocks of the column in the section, the lowest bit being the lowest block
+     */
+    public int getColumn(int x, int z, int sectionY) {
+        int index = sectionY - MIN_SECTION;
+        if (index < 0 || index >= SECTIONS || sections[index] == null)
+            return 0;
+        int bit = getBit(x, 0, z);
+        return (int) (sections[index][bit >>> 6] >>> (bit & 63)) & 0xFFFF;
+    }
+
+    /**
+     * iterate over every encoded pos, ordered by section, then x, z and y
+     */
+    public void forEach(LongConsumer consumer) {
+        int baseX = chunkX << 4;
+        int baseZ = chunkZ << 4;
+        for (int index = minIndex; index <= maxIndex; index++) {
+            long[] section = sections[index];
+            if (section == null)
+                continue;
+            int baseY = (index + MIN_SECTION) << 4;
+            for (int word = 0; word < SECTION_LONGS; word++) {
+                long bits = section[word];
+                while (bits != 0) {
+                    int bit = (word << 6) | Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    consumer.accept(LongPosHelper.encodeBlockPos(baseX + (bit >>> 8), baseY + (bit & 15), baseZ + ((bit >>> 4) & 15)));
+                }
+            }
+        }
+    }
+
+    public LongOpenHashSet toLongSet() {
+        LongOpenHashSet set = new LongOpenHashSet(size);
+        forEach(set::add);
+        return set;
+    }
+
+    private boolean isInBounds(int x, int y, int z) {
+        return x >> 4 == chunkX && z >> 4 == chunkZ && y >= MIN_SECTION << 4 && y < (MIN_SECTION + SECTIONS) << 4;
+    }
+
+    private static int getSectionIndex(int y) {
+        return (y >> 4) - MIN_SECTION;
+    }
+
+    /**
+     * the y coordinate uses the lowest bits, so the 16 blocks of a column are in the same long
+     */
+    private static int getBit(int x, int y, int z) {
+        return ((x & 15) << 8) | ((z & 15) << 4) | (y & 15);
+    }
+}
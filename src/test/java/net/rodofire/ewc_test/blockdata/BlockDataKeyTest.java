@@ -0,0 +1,84 @@
+package net.rodofire.ewc_test.blockdata;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.rodofire.easierworldcreator.blockdata.BlockDataKey;
+import net.rodofire.easierworldcreator.blockdata.BlockDataPalette;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+public class BlockDataKeyTest {
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testInterning() {
+        Assertions.assertSame(BlockDataKey.of(Blocks.STONE.getDefaultState()), BlockDataKey.of(Blocks.STONE.getDefaultState(), null));
+        Assertions.assertNotEquals(BlockDataKey.of(Blocks.STONE.getDefaultState()), BlockDataKey.of(Blocks.DIRT.getDefaultState()));
+
+        BlockDataKey first = BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1));
+        BlockDataKey second = BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1));
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Assertions.assertNotEquals(first, BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(2)));
+        Assertions.assertNotEquals(first, BlockDataKey.of(Blocks.CHEST.getDefaultState()));
+        Assertions.assertSame(BlockDataKey.of(Blocks.CHEST.getDefaultState()), first.withTag(null));
+    }
+
+    @Test
+    public void testTagCopy() {
+        NbtCompound tag = tag(1);
+        BlockDataKey key = BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag);
+        int hash = key.hashCode();
+        tag.putInt("value", 2);
+
+        Assertions.assertEquals(hash, key.hashCode());
+        Assertions.assertEquals(BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1)), key);
+        BlockDataPalette palette = new BlockDataPalette();
+        palette.put(key);
+        Assertions.assertEquals(0, palette.getId(BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1))));
+    }
+
+    @Test
+    public void testPalette() {
+        BlockDataPalette palette = new BlockDataPalette();
+        BlockDataKey tagged = BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1));
+        Assertions.assertEquals(0, palette.put(BlockDataKey.of(Blocks.STONE.getDefaultState())));
+        Assertions.assertEquals(1, palette.put(tagged));
+        Assertions.assertEquals(0, palette.put(BlockDataKey.of(Blocks.STONE.getDefaultState())));
+        Assertions.assertEquals(1, palette.put(BlockDataKey.of(Blocks.CHEST.getDefaultState(), tag(1))));
+        Assertions.assertSame(tagged, palette.get(1));
+        Assertions.assertEquals(-1, palette.getId(BlockDataKey.of(Blocks.DIRT.getDefaultState())));
+        Assertions.assertEquals(2, palette.size());
+    }
+
+    @Test
+    public void testManager() {
+        BlockListManager manager = new BlockListManager();
+        manager.put(Blocks.STONE.getDefaultState(), LongArrayList.of(1L, 2L));
+        manager.put(Blocks.CHEST.getDefaultState(), tag(1), LongArrayList.of(3L));
+        manager.put(Blocks.STONE.getDefaultState(), LongArrayList.of(4L));
+        manager.put(Blocks.CHEST.getDefaultState(), tag(1), LongArrayList.of(5L));
+        manager.put(Blocks.CHEST.getDefaultState(), tag(2), LongArrayList.of(6L));
+
+        Assertions.assertEquals(3, manager.size());
+        Assertions.assertEquals(3, manager.stateSize());
+        Assertions.assertEquals(3, manager.getBlockList(0).size());
+        Assertions.assertEquals(2, manager.getBlockList(1).size());
+        Assertions.assertEquals(Blocks.CHEST.getDefaultState(), manager.getState(2));
+    }
+
+    private static NbtCompound tag(int value) {
+        NbtCompound tag = new NbtCompound();
+        tag.putInt("value", value);
+        return tag;
+    }
+}
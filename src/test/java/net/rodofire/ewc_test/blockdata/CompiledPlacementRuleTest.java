@@ -0,0 +1,62 @@
+package net.rodofire.ewc_test.blockdata;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.rodofire.easierworldcreator.blockdata.CompiledPlacementRule;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+/**
+ * verify that the compiled rules give the same result as the sets for every state of the registry
+ */
+public class CompiledPlacementRuleTest {
+    private static final Set<Block> BLOCKS = Set.of(Blocks.STONE, Blocks.DIRT, Blocks.OAK_STAIRS, Blocks.BEDROCK);
+
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testRuleManager() {
+        for (boolean force : new boolean[]{false, true}) {
+            StructurePlacementRuleManager ruler = new StructurePlacementRuleManager(force, BLOCKS);
+            for (BlockState state : Block.STATE_IDS) {
+                boolean expected = force ? !BLOCKS.contains(state.getBlock()) : state.isAir() || BLOCKS.contains(state.getBlock());
+                Assertions.assertEquals(expected, ruler.canPlace(state), state.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testRecompile() {
+        StructurePlacementRuleManager ruler = new StructurePlacementRuleManager();
+        Assertions.assertFalse(ruler.canPlace(Blocks.STONE.getDefaultState()));
+        ruler.addOverrideBlock(Blocks.STONE);
+        Assertions.assertTrue(ruler.canPlace(Blocks.STONE.getDefaultState()));
+        ruler.setForce(true);
+        Assertions.assertFalse(ruler.canPlace(Blocks.STONE.getDefaultState()));
+        Assertions.assertTrue(ruler.canPlace(Blocks.DIRT.getDefaultState()));
+    }
+
+    @Test
+    public void testVerification() {
+        CompiledPlacementRule forced = CompiledPlacementRule.ofVerification(true, null);
+        CompiledPlacementRule notForced = CompiledPlacementRule.ofVerification(false, BLOCKS);
+        for (BlockState state : Block.STATE_IDS) {
+            boolean breakable = state.getHardness(null, null) >= 0;
+            Assertions.assertEquals(breakable, forced.canPlace(state), state.toString());
+            Assertions.assertEquals(breakable && (state.isAir() || BLOCKS.contains(state.getBlock())), notForced.canPlace(state), state.toString());
+        }
+        Assertions.assertFalse(notForced.canPlace(Blocks.BEDROCK.getDefaultState()));
+        Assertions.assertSame(notForced, CompiledPlacementRule.ofVerification(false, Set.copyOf(BLOCKS)));
+    }
+}
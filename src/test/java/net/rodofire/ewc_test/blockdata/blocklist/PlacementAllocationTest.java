@@ -0,0 +1,121 @@
+package net.rodofire.ewc_test.blockdata.blocklist;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.OrderedBlockListManager;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import net.rodofire.ewc_test.util.FakeWorld;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * measure the number of bytes allocated for every placed block.
+ * The world is a proxy, whose own allocations are measured separately and subtracted
+ */
+public class PlacementAllocationTest {
+    private static final StructureWorldAccess WORLD = FakeWorld.create().build();
+
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testBlockList() {
+        com.sun.management.ThreadMXBean bean = getBean();
+        LongArrayList positions = getPositions();
+        BlockList blockList = new BlockList(Blocks.STONE.getDefaultState(), positions);
+
+        //warm up, so that the measured run is not polluted by class loading
+        for (int i = 0; i < 5; i++) {
+            blockList.placeAll(WORLD);
+            proxyBaseline(positions);
+        }
+
+        long start = bean.getCurrentThreadAllocatedBytes();
+        blockList.placeAll(WORLD);
+        long placement = bean.getCurrentThreadAllocatedBytes() - start;
+
+        assertAllocation("block list", bean, positions, placement);
+    }
+
+    @Test
+    public void testOrderedPlaceLastNDelete() {
+        com.sun.management.ThreadMXBean bean = getBean();
+        LongArrayList positions = getPositions();
+
+        for (int i = 0; i < 5; i++) {
+            placeLastNDelete(new BlockListManager(new BlockList(Blocks.STONE.getDefaultState(), positions)).getOrdered());
+            proxyBaseline(positions);
+        }
+
+        OrderedBlockListManager manager = new BlockListManager(new BlockList(Blocks.STONE.getDefaultState(), positions)).getOrdered();
+        long start = bean.getCurrentThreadAllocatedBytes();
+        placeLastNDelete(manager);
+        long placement = bean.getCurrentThreadAllocatedBytes() - start;
+
+        assertAllocation("ordered", bean, positions, placement);
+    }
+
+    private static void placeLastNDelete(OrderedBlockListManager manager) {
+        while (manager.posSize() > 0) {
+            manager.placeLastNDelete(WORLD);
+        }
+    }
+
+    private static void assertAllocation(String name, com.sun.management.ThreadMXBean bean, LongArrayList positions, long placement) {
+        long start = bean.getCurrentThreadAllocatedBytes();
+        proxyBaseline(positions);
+        long baseline = bean.getCurrentThreadAllocatedBytes() - start;
+
+        double perBlock = (double) (placement - baseline) / positions.size();
+        System.out.printf("%s: %d blocks, %d bytes allocated, %d bytes by the world, %.3f bytes per block%n",
+                name, positions.size(), placement, baseline, perBlock);
+        Assertions.assertTrue(perBlock < 1, name + " allocates " + perBlock + " bytes per block");
+    }
+
+    /**
+     * the calls made on the world by the placement of every pos
+     */
+    private static void proxyBaseline(LongArrayList positions) {
+        BlockPos.Mutable mutable = new BlockPos.Mutable();
+        BlockState stone = Blocks.STONE.getDefaultState();
+        for (int i = 0; i < positions.size(); i++) {
+            LongPosHelper.decodeBlockPos(positions.getLong(i), mutable);
+            WORLD.getServer();
+            WORLD.getBlockState(mutable);
+            WORLD.setBlockState(mutable, stone, 2);
+        }
+    }
+
+    private static LongArrayList getPositions() {
+        LongArrayList positions = new LongArrayList();
+        for (int x = 0; x < 50; x++) {
+            for (int z = 0; z < 50; z++) {
+                for (int y = 0; y < 40; y++) {
+                    positions.add(LongPosHelper.encodeBlockPos(x, y, z));
+                }
+            }
+        }
+        return positions;
+    }
+
+    private static com.sun.management.ThreadMXBean getBean() {
+        Assumptions.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled());
+        return bean;
+    }
+}
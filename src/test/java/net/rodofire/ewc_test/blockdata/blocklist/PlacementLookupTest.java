@@ -0,0 +1,85 @@
+package net.rodofire.ewc_test.blockdata.blocklist;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import net.rodofire.ewc_test.util.FakeWorld;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * count the number of times the state of the world is read for every placed block
+ */
+public class PlacementLookupTest {
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testSingleRead() {
+        benchmark("air only", null);
+        benchmark("ruler", new StructurePlacementRuleManager(true));
+    }
+
+    private static void benchmark(String name, StructurePlacementRuleManager ruler) {
+        CountingWorld counting = new CountingWorld();
+        LongArrayList positions = new LongArrayList();
+        for (int x = 0; x < 50; x++) {
+            for (int z = 0; z < 50; z++) {
+                for (int y = 0; y < 40; y++) {
+                    positions.add(LongPosHelper.encodeBlockPos(x, y, z));
+                }
+            }
+        }
+        //a quarter of the blocks is already occupied
+        for (int i = 0; i < positions.size(); i += 4) {
+            counting.states.put(positions.getLong(i), Blocks.DIRT.getDefaultState());
+        }
+
+        BlockList blockList = new BlockList(Blocks.STONE.getDefaultState(), positions);
+        blockList.setRuler(ruler);
+        BlockListManager manager = new BlockListManager();
+        manager.put(blockList);
+
+        long start = System.nanoTime();
+        manager.placeAll(counting.world);
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%s: %d blocks, %d placed, %d reads, %.2f reads per block, %.2f ms%n",
+                name, positions.size(), counting.writes, counting.reads, (double) counting.reads / positions.size(), time / 1_000_000.0);
+        Assertions.assertEquals(positions.size(), counting.reads);
+        Assertions.assertEquals(ruler == null ? positions.size() * 3 / 4 : positions.size(), counting.writes);
+    }
+
+    /**
+     * world only storing states, counting the reads and the writes
+     */
+    private static class CountingWorld {
+        private final Long2ObjectOpenHashMap<BlockState> states = new Long2ObjectOpenHashMap<>();
+        private int reads = 0;
+        private int writes = 0;
+        private final StructureWorldAccess world = FakeWorld.create()
+                .states(pos -> {
+                    reads++;
+                    return states.getOrDefault(LongPosHelper.encodeBlockPos(pos), Blocks.AIR.getDefaultState());
+                })
+                .writes((pos, state) -> {
+                    writes++;
+                    states.put(LongPosHelper.encodeBlockPos(pos), state);
+                    return true;
+                })
+                .build();
+    }
+}
@@ -0,0 +1,114 @@
+package net.rodofire.ewc_test.blockdata.blocklist;
+
+import com.mojang.serialization.Lifecycle;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.shorts.ShortList;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.SimpleRegistry;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.HeightLimitView;
+import net.minecraft.world.StructureWorldAccess;
+import net.minecraft.world.biome.Biome;
+import net.minecraft.world.biome.BiomeEffects;
+import net.minecraft.world.biome.BiomeKeys;
+import net.minecraft.world.biome.GenerationSettings;
+import net.minecraft.world.biome.SpawnSettings;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.chunk.UpgradeData;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import net.rodofire.ewc_test.util.FakeWorld;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * place blocks with {@link BlockListManager#placeAllFast(StructureWorldAccess)} in a proto chunk.
+ * The world behaves like a {@code ChunkRegion}, and records the pos placed using {@code setBlockState()}
+ */
+public class SectionPlacerTest {
+    private static final BlockPos STONE = new BlockPos(1, 64, 1);
+    private static final BlockPos MAGMA = new BlockPos(2, 64, 1);
+    private static final BlockPos WATER = new BlockPos(3, 64, 1);
+    private static final BlockPos LODESTONE = new BlockPos(4, 64, 1);
+
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testPlacement() {
+        ProtoChunk chunk = new ProtoChunk(ChunkPos.ORIGIN, UpgradeData.NO_UPGRADE_DATA, HeightLimitView.create(-64, 384), getBiomes(), null);
+        Set<BlockPos> worldPlaced = new HashSet<>();
+        StructureWorldAccess world = getWorld(chunk, worldPlaced);
+
+        BlockListManager manager = new BlockListManager();
+        manager.put(Blocks.STONE.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(STONE)));
+        manager.put(Blocks.MAGMA_BLOCK.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(MAGMA)));
+        manager.put(Blocks.WATER.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(WATER)));
+        manager.put(Blocks.LODESTONE.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(LODESTONE)));
+
+        Assertions.assertTrue(manager.placeAllFast(world));
+        Assertions.assertEquals(Blocks.STONE.getDefaultState(), chunk.getBlockState(STONE));
+        Assertions.assertEquals(Blocks.MAGMA_BLOCK.getDefaultState(), chunk.getBlockState(MAGMA));
+        Assertions.assertEquals(Blocks.WATER.getDefaultState(), chunk.getBlockState(WATER));
+        Assertions.assertEquals(Blocks.LODESTONE.getDefaultState(), chunk.getBlockState(LODESTONE));
+
+        //only the plain block is written in the section
+        Assertions.assertFalse(worldPlaced.contains(STONE));
+        Assertions.assertTrue(worldPlaced.contains(MAGMA), "the blocks to post-process use the world");
+        Assertions.assertTrue(worldPlaced.contains(WATER), "the fluids use the world");
+        Assertions.assertTrue(worldPlaced.contains(LODESTONE), "the points of interest use the world");
+
+        ShortList postProcessing = chunk.getPostProcessingLists()[chunk.getSectionIndex(MAGMA.getY())];
+        Assertions.assertNotNull(postProcessing);
+        Assertions.assertTrue(postProcessing.contains(ProtoChunk.getPackedSectionRelative(MAGMA)));
+
+        //placing the same blocks again is not a failure
+        worldPlaced.clear();
+        Assertions.assertTrue(manager.placeAllFast(world));
+        Assertions.assertTrue(worldPlaced.isEmpty());
+    }
+
+    private static StructureWorldAccess getWorld(ProtoChunk chunk, Set<BlockPos> worldPlaced) {
+        return FakeWorld.create()
+                .chunk(chunk)
+                .states(chunk::getBlockState)
+                .writes((mutable, state) -> {
+                    BlockPos pos = mutable.toImmutable();
+                    chunk.setBlockState(pos, state, false);
+                    worldPlaced.add(pos);
+                    if (state.shouldPostProcess(chunk, pos))
+                        chunk.markBlockForPostProcessing(pos);
+                    return true;
+                })
+                .build();
+    }
+
+    /**
+     * the sections of the chunk only need the plains biome
+     */
+    private static Registry<Biome> getBiomes() {
+        SimpleRegistry<Biome> biomes = new SimpleRegistry<>(RegistryKeys.BIOME, Lifecycle.stable());
+        Biome plains = new Biome.Builder()
+                .precipitation(false)
+                .temperature(0.5f)
+                .downfall(0.5f)
+                .effects(new BiomeEffects.Builder().fogColor(0).waterColor(0).waterFogColor(0).skyColor(0).build())
+                .spawnSettings(SpawnSettings.INSTANCE)
+                .generationSettings(GenerationSettings.INSTANCE)
+                .build();
+        Registry.register(biomes, BiomeKeys.PLAINS, plains);
+        return biomes;
+    }
+}
@@ -0,0 +1,128 @@
+package net.rodofire.ewc_test.blockdata.file;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceFormat;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceReader;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriter;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import net.rodofire.ewc_test.util.FakeWorld;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * write a piece with {@link PieceWriter} and read it back with {@link PieceReader}
+ */
+public class PieceWriterTest {
+    private static final ChunkPos CHUNK = new ChunkPos(3, -2);
+    private static final ChunkPos OFFSET = new ChunkPos(1, -1);
+
+    /**
+     * the reader only needs the world to get the blocks
+     */
+    private static final StructureWorldAccess WORLD = FakeWorld.create().build();
+
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        int minX = CHUNK.getStartX();
+        int minZ = CHUNK.getStartZ();
+
+        NbtCompound tag = new NbtCompound();
+        tag.putString("id", "minecraft:chest");
+        tag.putInt("value", 42);
+
+        BlockListManager manager = new BlockListManager();
+        //the limits of the relative coordinates, and the limits of the world height
+        manager.put(Blocks.STONE.getDefaultState(), LongArrayList.of(
+                LongPosHelper.encodeBlockPos(minX - 1024, -64, minZ - 1024),
+                LongPosHelper.encodeBlockPos(minX + 1023, 319, minZ + 1023),
+                LongPosHelper.encodeBlockPos(minX, 0, minZ),
+                LongPosHelper.encodeBlockPos(minX + 15, 70, minZ)
+        ));
+        //not sorted, to test the delta encoding
+        LongArrayList chestPos = new LongArrayList();
+        for (int i = 20; i > 0; i--) {
+            chestPos.add(LongPosHelper.encodeBlockPos(minX + i * 13 - 100, i * 7 - 30, minZ - i * 11));
+        }
+        manager.put(Blocks.CHEST.getDefaultState(), tag, chestPos);
+
+        BlockList ruled = new BlockList(Blocks.OAK_LOG.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(minX + 3, 65, minZ + 4)));
+        ruled.setRuler(new StructurePlacementRuleManager(true, Set.of(Blocks.BEDROCK, Blocks.DIRT)));
+        manager.put(ruled);
+
+        BlockList notForced = new BlockList(Blocks.GLASS.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(minX + 5, 66, minZ + 2)));
+        notForced.setRuler(new StructurePlacementRuleManager(false, Set.of(Blocks.WATER)));
+        manager.put(notForced);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (PieceWriter writer = new PieceWriter(stream, CHUNK, OFFSET)) {
+            writer.write(manager);
+        }
+
+        BlockListManager read;
+        try (PieceReader reader = new PieceReader(new ByteArrayInputStream(stream.toByteArray()), WORLD)) {
+            Assertions.assertEquals(new ChunkPos(CHUNK.x + OFFSET.x, CHUNK.z + OFFSET.z), reader.getChunkPos());
+            read = reader.readAll();
+        }
+
+        Assertions.assertEquals(manager.size(), read.size());
+        for (int i = 0; i < manager.size(); i++) {
+            BlockList expected = manager.getBlockList(i);
+            BlockList actual = read.getBlockList(i);
+            Assertions.assertEquals(expected.getState(), actual.getState());
+            Assertions.assertEquals(expected.getTag(), actual.getTag());
+            Assertions.assertEquals(expected.getRuler() == null, actual.getRuler() == null);
+            if (expected.getRuler() != null) {
+                Assertions.assertEquals(expected.getRuler().isForce(), actual.getRuler().isForce());
+                Assertions.assertEquals(expected.getRuler().getOverriddenBlocks(), actual.getRuler().getOverriddenBlocks());
+            }
+            Assertions.assertEquals(offset(expected.getPosList()), new LongOpenHashSet(actual.getPosList()), expected.getState().toString());
+        }
+    }
+
+    @Test
+    public void testVersion() throws IOException {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (PieceWriter writer = new PieceWriter(stream, CHUNK, OFFSET)) {
+            writer.write(new BlockListManager(new BlockList(Blocks.STONE.getDefaultState(), LongArrayList.of(LongPosHelper.encodeBlockPos(CHUNK.getStartX(), 64, CHUNK.getStartZ())))));
+        }
+        byte[] piece = stream.toByteArray();
+        //the version is written just after the magic number
+        for (byte version : new byte[]{0, -1, PieceFormat.VERSION + 1}) {
+            piece[4] = version;
+            Assertions.assertThrows(IOException.class, () -> new PieceReader(new ByteArrayInputStream(piece), WORLD), "version " + version);
+        }
+    }
+
+    /**
+     * the pos are read relative to the chunk of the header, meaning that they are moved by the offset
+     */
+    private static LongOpenHashSet offset(LongArrayList posList) {
+        LongOpenHashSet positions = new LongOpenHashSet();
+        for (int i = 0; i < posList.size(); i++) {
+            positions.add(LongPosHelper.add(posList.getLong(i), OFFSET.x << 4, 0, OFFSET.z << 4));
+        }
+        return positions;
+    }
+}
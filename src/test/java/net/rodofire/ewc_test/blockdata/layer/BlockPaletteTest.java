@@ -0,0 +1,65 @@
+package net.rodofire.ewc_test.blockdata.layer;
+
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockLayer;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockPalette;
+import net.rodofire.easierworldcreator.shape.block.placer.LayerPlacer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class BlockPaletteTest {
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @Test
+    public void testSameAsExpandedList() {
+        List<BlockState> states = List.of(Blocks.STONE.getDefaultState(), Blocks.DIRT.getDefaultState(), Blocks.GRAVEL.getDefaultState(), Blocks.SAND.getDefaultState());
+        Random random = new Random(42);
+        for (int test = 0; test < 50; test++) {
+            List<Short> chances = new ArrayList<>();
+            for (int i = 0; i < states.size(); i++) {
+                //big chances to use more than one state per bucket of the guide table
+                chances.add((short) random.nextInt(test % 2 == 0 ? 5 : 3000));
+            }
+            if (chances.stream().allMatch(chance -> chance == 0))
+                continue;
+
+            BlockLayer layer = new BlockLayer(new LayerPlacer(LayerPlacer.LayerPlace.RANDOM), states, chances);
+            List<BlockState> expanded = layer.getBlockStates();
+            BlockPalette palette = layer.getPalette();
+            Assertions.assertEquals(expanded.size(), palette.getTotalWeight());
+            for (int weight = 0; weight < expanded.size(); weight++) {
+                Assertions.assertSame(expanded.get(weight), palette.get(weight));
+            }
+        }
+    }
+
+    @Test
+    public void testNoise() {
+        BlockPalette palette = new BlockPalette(List.of(Blocks.STONE.getDefaultState(), Blocks.DIRT.getDefaultState()), List.of((short) 3, (short) 1));
+        Assertions.assertSame(Blocks.STONE.getDefaultState(), palette.getWithNoise(-1));
+        Assertions.assertSame(Blocks.STONE.getDefaultState(), palette.getWithNoise(0.4));
+        Assertions.assertSame(Blocks.DIRT.getDefaultState(), palette.getWithNoise(0.6));
+        Assertions.assertSame(Blocks.DIRT.getDefaultState(), palette.getWithNoise(1));
+    }
+
+    @Test
+    public void testRecompiled() {
+        BlockLayer layer = new BlockLayer(new LayerPlacer(LayerPlacer.LayerPlace.RANDOM), Blocks.STONE.getDefaultState());
+        Assertions.assertEquals(1, layer.getPalette().size());
+        layer.addBlockState(Blocks.DIRT.getDefaultState(), (short) 4);
+        Assertions.assertEquals(2, layer.getPalette().size());
+        Assertions.assertEquals(5, layer.getPalette().getTotalWeight());
+    }
+}
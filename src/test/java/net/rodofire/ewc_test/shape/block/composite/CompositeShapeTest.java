@@ -0,0 +1,60 @@
+package net.rodofire.ewc_test.shape.block.composite;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.rodofire.easierworldcreator.shape.block.composite.CompositeShape;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class CompositeShapeTest {
+    private static SphereGen first() {
+        return new SphereGen(new BlockPos(0, 64, 0), 12);
+    }
+
+    private static SphereGen second() {
+        return new SphereGen(new BlockPos(10, 60, 7), 9);
+    }
+
+    @Test
+    public void testUnion() {
+        LongOpenHashSet expected = flatten(first().getShapeCoordinatesPacked());
+        expected.addAll(flatten(second().getShapeCoordinatesPacked()));
+        Assertions.assertEquals(expected, flatten(CompositeShape.of(first()).union(second()).getShapeCoordinatesPacked()));
+    }
+
+    @Test
+    public void testSubtract() {
+        LongOpenHashSet expected = flatten(first().getShapeCoordinatesPacked());
+        expected.removeAll(flatten(second().getShapeCoordinatesPacked()));
+        Assertions.assertEquals(expected, flatten(CompositeShape.of(first()).subtract(second()).getShapeCoordinatesPacked()));
+    }
+
+    @Test
+    public void testIntersect() {
+        LongOpenHashSet expected = flatten(first().getShapeCoordinatesPacked());
+        expected.retainAll(flatten(second().getShapeCoordinatesPacked()));
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, flatten(CompositeShape.of(first()).intersect(second()).getShapeCoordinatesPacked()));
+    }
+
+    @Test
+    public void testTranslate() {
+        LongOpenHashSet expected = new LongOpenHashSet();
+        for (long pos : flatten(first().getShapeCoordinatesPacked())) {
+            expected.add(LongPosHelper.add(pos, 7, 3, -20));
+        }
+        Long2ObjectOpenHashMap<LongOpenHashSet> translated = CompositeShape.of(first()).translate(7, 3, -20).getShapeCoordinatesPacked();
+        Assertions.assertEquals(expected, flatten(translated));
+        //every pos must be in the right chunk
+        translated.forEach((chunk, set) -> set.forEach(pos -> Assertions.assertEquals((long) chunk, LongPosHelper.getChunkLong(pos))));
+    }
+
+    private static LongOpenHashSet flatten(Long2ObjectOpenHashMap<LongOpenHashSet> map) {
+        LongOpenHashSet set = new LongOpenHashSet();
+        map.values().forEach(set::addAll);
+        return set;
+    }
+}
@@ -0,0 +1,57 @@
+package net.rodofire.ewc_test.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.rodofire.easierworldcreator.shape.block.composite.CompositeShape;
+import net.rodofire.easierworldcreator.shape.block.gen.SdfGen;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
+import net.rodofire.easierworldcreator.shape.block.sdf.Sdf;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+public class ChunkStreamTest {
+    @Test
+    public void testSphere() {
+        assertSameChunks(() -> new SphereGen(new BlockPos(-5, 70, 9), 23));
+    }
+
+    @Test
+    public void testHalfSphere() {
+        assertSameChunks(() -> {
+            SphereGen sphere = new SphereGen(new BlockPos(3, 70, -30), 19);
+            sphere.setHalfSphere(SphereGen.SphereType.HALF);
+            sphere.setHalfSphereDirection(Direction.NORTH);
+            return sphere;
+        });
+    }
+
+    @Test
+    public void testSdf() {
+        assertSameChunks(() -> new SdfGen(new BlockPos(12, 64, -7), Sdf.torus(20, 5)));
+    }
+
+    @Test
+    public void testComposite() {
+        assertSameChunks(() -> CompositeShape.of(new SphereGen(new BlockPos(0, 64, 0), 15))
+                .subtract(new SphereGen(new BlockPos(8, 64, 8), 10)));
+    }
+
+    /**
+     * the streamed chunks must be the same as the chunks of the generated shape
+     */
+    private static void assertSameChunks(Supplier<AbstractBlockShape> shape) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> expected = shape.get().getShapeCoordinatesPacked();
+        Long2ObjectOpenHashMap<LongOpenHashSet> streamed = new Long2ObjectOpenHashMap<>();
+        AbstractBlockShape streamedShape = shape.get();
+        streamedShape.forEachChunk((chunk, set) -> Assertions.assertNull(streamed.put(chunk, set)));
+
+        Assertions.assertFalse(expected.isEmpty());
+        Assertions.assertEquals(expected, streamed);
+        Assertions.assertTrue(streamedShape.getChunks().containsAll(expected.keySet()));
+    }
+}
@@ -0,0 +1,71 @@
+package net.rodofire.ewc_test.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.rodofire.easierworldcreator.shape.block.gen.CylinderGen;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.shape.block.gen.TorusGen;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
+import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * test the shapes generated using {@link AbstractBlockShape#setInverseRotation(boolean)}
+ */
+public class InverseRotationTest {
+    private static final BlockPos CENTER = new BlockPos(5, 64, -12);
+
+    /**
+     * with a rotator that doesn't rotate, every block is tested at its exact local coordinates,
+     * so the shape must be the same as the shape without rotator
+     */
+    @Test
+    public void testIdentity() {
+        assertSameShape(new SphereGen(CENTER, null, 9, 6, 7, SphereGen.SphereType.DEFAULT),
+                new SphereGen(CENTER, new Rotator(CENTER, 0, 0, 0), 9, 6, 7, SphereGen.SphereType.DEFAULT));
+        assertSameShape(new CylinderGen(CENTER, null, 9, 6, 12),
+                new CylinderGen(CENTER, new Rotator(CENTER, 0, 0, 0), 9, 6, 12));
+        assertSameShape(new TorusGen(CENTER, null, 6, 14, 7, 16),
+                new TorusGen(CENTER, new Rotator(CENTER, 0, 0, 0), 6, 14, 7, 16));
+    }
+
+    /**
+     * a rotated sphere is still a sphere: every block close enough to the center must be present
+     */
+    @Test
+    public void testRotatedSphereHasNoHole() {
+        int radius = 12;
+        int[][] rotations = {{30, 45, 60}, {17, 83, 129}, {90, 90, 0}, {233, 11, 301}};
+        for (int[] rotation : rotations) {
+            SphereGen sphere = new SphereGen(CENTER, new Rotator(CENTER, rotation[0], rotation[1], rotation[2]), radius, radius, radius, SphereGen.SphereType.DEFAULT);
+            sphere.setInverseRotation(true);
+            LongOpenHashSet generated = getPositions(sphere);
+
+            for (int x = -radius; x <= radius; x++) {
+                for (int y = -radius; y <= radius; y++) {
+                    for (int z = -radius; z <= radius; z++) {
+                        if (x * x + y * y + z * z > (radius - 1) * (radius - 1))
+                            continue;
+                        long pos = LongPosHelper.encodeBlockPos(CENTER.getX() + x, CENTER.getY() + y, CENTER.getZ() + z);
+                        Assertions.assertTrue(generated.contains(pos), "hole at " + x + " " + y + " " + z + " with the rotation " + rotation[0] + " " + rotation[1] + " " + rotation[2]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void assertSameShape(AbstractBlockShape expected, AbstractBlockShape rotated) {
+        rotated.setInverseRotation(true);
+        LongOpenHashSet expectedPos = getPositions(expected);
+        Assertions.assertFalse(expectedPos.isEmpty());
+        Assertions.assertEquals(expectedPos, getPositions(rotated), rotated.getClass().getSimpleName());
+    }
+
+    private static LongOpenHashSet getPositions(AbstractBlockShape shape) {
+        LongOpenHashSet positions = new LongOpenHashSet();
+        shape.getShapeCoordinatesPacked().values().forEach(positions::addAll);
+        return positions;
+    }
+}
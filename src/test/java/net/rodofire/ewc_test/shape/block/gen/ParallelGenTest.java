@@ -0,0 +1,60 @@
+package net.rodofire.ewc_test.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.rodofire.easierworldcreator.shape.block.gen.CylinderGen;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.shape.block.gen.TorusGen;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractBlockShape;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractFillableBlockShape;
+import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Supplier;
+
+public class ParallelGenTest {
+    private static final BlockPos CENTER = new BlockPos(5, 64, -12);
+
+    @BeforeAll
+    public static void init() {
+        EwcExecutor.start(4);
+    }
+
+    @Test
+    public void testSphere() {
+        assertSameShape(() -> new SphereGen(CENTER, 40));
+        assertSameShape(() -> {
+            SphereGen gen = new SphereGen(CENTER, new Rotator(CENTER, 30, 45, 10), 20, 12, 25, SphereGen.SphereType.HALF);
+            gen.setFillingType(AbstractFillableBlockShape.Type.CUSTOM);
+            gen.setCustomFill(0.4f);
+            return gen;
+        });
+    }
+
+    @Test
+    public void testCylinder() {
+        assertSameShape(() -> new CylinderGen(CENTER, 30, 20));
+        assertSameShape(() -> new CylinderGen(CENTER, new Rotator(CENTER, 20, 60, 0), 15, 22, 30));
+    }
+
+    @Test
+    public void testTorus() {
+        assertSameShape(() -> new TorusGen(CENTER, 10, 30));
+        assertSameShape(() -> new TorusGen(CENTER, new Rotator(CENTER, 45, 30, 15), 8, 20, 10, 25));
+    }
+
+    private static void assertSameShape(Supplier<AbstractBlockShape> shape) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> sequential = shape.get().getShapeCoordinatesPacked();
+
+        AbstractBlockShape parallelShape = shape.get();
+        parallelShape.setParallel(true);
+        Long2ObjectOpenHashMap<LongOpenHashSet> parallel = parallelShape.getShapeCoordinatesPacked();
+
+        Assertions.assertFalse(sequential.isEmpty());
+        Assertions.assertEquals(sequential, parallel);
+    }
+}
@@ -0,0 +1,50 @@
+package net.rodofire.ewc_test.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Box;
+import net.rodofire.easierworldcreator.shape.block.gen.SdfGen;
+import net.rodofire.easierworldcreator.shape.block.sdf.Sdf;
+import net.rodofire.easierworldcreator.util.FastNoiseLite;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SdfGenTest {
+    private static final BlockPos CENTER = new BlockPos(-40, 80, 13);
+
+    @Test
+    public void testCulling() {
+        FastNoiseLite noise = new FastNoiseLite(42);
+        noise.SetFrequency(0.08f);
+        Sdf sdf = Sdf.sphere(14)
+                .smoothUnion(Sdf.torus(18, 4).translate(0, 6, 0), 5)
+                .subtract(Sdf.capsule(8, 5))
+                .union(Sdf.box(4, 20, 4))
+                .displace(noise, 3);
+
+        LongOpenHashSet generated = new LongOpenHashSet();
+        new SdfGen(CENTER, sdf).getShapeCoordinatesPacked().values().forEach(generated::addAll);
+
+        Assertions.assertFalse(generated.isEmpty());
+        Assertions.assertEquals(bruteForce(sdf), generated);
+    }
+
+    /**
+     * reference implementation evaluating the field on every block of the bounds
+     */
+    private static LongOpenHashSet bruteForce(Sdf sdf) {
+        LongOpenHashSet set = new LongOpenHashSet();
+        Box bounds = sdf.getBounds();
+        for (int x = (int) Math.floor(bounds.minX); x <= (int) Math.ceil(bounds.maxX); x++) {
+            for (int y = (int) Math.floor(bounds.minY); y <= (int) Math.ceil(bounds.maxY); y++) {
+                for (int z = (int) Math.floor(bounds.minZ); z <= (int) Math.ceil(bounds.maxZ); z++) {
+                    if (sdf.distance(x, y, z) <= 0) {
+                        set.add(LongPosHelper.encodeBlockPos(CENTER.getX() + x, CENTER.getY() + y, CENTER.getZ() + z));
+                    }
+                }
+            }
+        }
+        return set;
+    }
+}
@@ -0,0 +1,68 @@
+package net.rodofire.ewc_test.shape.block.gen;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.shape.block.instanciator.AbstractFillableBlockShape;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class SpanFillTest {
+    private static final BlockPos CENTER = new BlockPos(-3, 70, 21);
+
+    @Test
+    public void testEllipsoid() {
+        for (float fill : new float[]{1f, 0.6f, 0.2f}) {
+            SphereGen gen = new SphereGen(CENTER, null, 13, 9, 17, SphereGen.SphereType.DEFAULT);
+            gen.setFillingType(AbstractFillableBlockShape.Type.CUSTOM);
+            gen.setCustomFill(fill);
+            Assertions.assertEquals(voxelEllipsoid(13, 9, 17, fill, -13, 13, -9, 9, -17, 17), collect(gen));
+        }
+    }
+
+    @Test
+    public void testHalfEllipsoid() {
+        SphereGen gen = new SphereGen(CENTER, null, 11, 14, 8, SphereGen.SphereType.HALF);
+        gen.setHalfSphereDirection(Direction.SOUTH);
+        Assertions.assertEquals(voxelEllipsoid(11, 14, 8, 1f, -11, 11, -14, 14, 0, 8), collect(gen));
+    }
+
+    private static LongOpenHashSet collect(SphereGen gen) {
+        LongOpenHashSet set = new LongOpenHashSet();
+        gen.getShapeCoordinatesPacked().values().forEach(set::addAll);
+        return set;
+    }
+
+    /**
+     * reference implementation testing every voxel of the bounding box
+     */
+    private static LongOpenHashSet voxelEllipsoid(int radiusX, int radiusY, int radiusZ, float fill, int minX, int maxX, int minY, int maxY, int minZ, int maxZ) {
+        LongOpenHashSet set = new LongOpenHashSet();
+        int largeXSquared = radiusX * radiusX;
+        int largeYSquared = radiusY * radiusY;
+        int largeZSquared = radiusZ * radiusZ;
+        float innerRadiusXSquared = (1 - fill) * (1 - fill) * largeXSquared;
+        float innerRadiusYSquared = (1 - fill) * (1 - fill) * largeYSquared;
+        float innerRadiusZSquared = (1 - fill) * (1 - fill) * largeZSquared;
+
+        for (float x = minX; x <= maxX; x++) {
+            float xx = x * x;
+            float xs = xx / largeXSquared;
+            for (float y = minY; y <= maxY; y++) {
+                float yy = y * y;
+                float ys = yy / largeYSquared + xs;
+                for (float z = minZ; z <= maxZ; z++) {
+                    float zz = z * z;
+                    if (ys + zz / largeZSquared <= 1) {
+                        if (innerRadiusXSquared != 0 && xx / innerRadiusXSquared + zz / innerRadiusZSquared + yy / innerRadiusYSquared <= 1f)
+                            continue;
+                        set.add(LongPosHelper.encodeBlockPos((int) (CENTER.getX() + x), (int) (CENTER.getY() + y), (int) (CENTER.getZ() + z)));
+                    }
+                }
+            }
+        }
+        return set;
+    }
+}
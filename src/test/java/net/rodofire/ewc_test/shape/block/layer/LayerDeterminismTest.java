@@ -0,0 +1,185 @@
+package net.rodofire.ewc_test.shape.block.layer;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.Vec3i;
+import net.minecraft.world.StructureWorldAccess;
+import net.rodofire.easierworldcreator.blockdata.StructurePlacementRuleManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockList;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.DividedBlockListManager;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockLayer;
+import net.rodofire.easierworldcreator.blockdata.layer.BlockLayerManager;
+import net.rodofire.easierworldcreator.shape.block.gen.SphereGen;
+import net.rodofire.easierworldcreator.shape.block.layer.LayerManager;
+import net.rodofire.easierworldcreator.shape.block.placer.LayerPlacer;
+import net.rodofire.easierworldcreator.util.EwcExecutor;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.Supplier;
+
+/**
+ * every layer must give the same result whatever the number of threads and the scheduling of the tasks
+ */
+public class LayerDeterminismTest {
+    private static final int RUNS = 5;
+    /**
+     * world of the verified methods, see {@link #isAir(long)}
+     */
+    private static final StructureWorldAccess WORLD = FakeWorld.create()
+            .states(pos -> isAir(LongPosHelper.encodeBlockPos(pos)) ? Blocks.AIR.getDefaultState() : Blocks.STONE.getDefaultState())
+            .build();
+
+    @BeforeAll
+    public static void init() {
+        SharedConstants.createGameVersion();
+        Bootstrap.initialize();
+    }
+
+    @AfterAll
+    public static void stop() {
+        EwcExecutor.shutdown();
+    }
+
+    @Test
+    public void testLayers() {
+        Map<ChunkPos, LongOpenHashSet> posMap = new SphereGen(new BlockPos(5, 70, -3), 26).getShapeCoordinates();
+        int size = posMap.values().stream().mapToInt(LongOpenHashSet::size).sum();
+
+        for (LayerManager.Type type : LayerManager.Type.values()) {
+            assertDeterministic(posMap, size, () -> manager(type, new LayerPlacer(LayerPlacer.LayerPlace.RANDOM), false), type.name());
+            //several states per layer, only deterministic using a seeded placer
+            assertDeterministic(posMap, size, () -> manager(type, new LayerPlacer(LayerPlacer.LayerPlace.HASH, 12345L), true), type.name() + " hash");
+        }
+    }
+
+    /**
+     * the verified methods must give the result of the non-verified ones, without the pos where the world doesn't let the block be placed
+     */
+    @Test
+    public void testVerifiedLayers() {
+        Map<ChunkPos, LongOpenHashSet> posMap = new SphereGen(new BlockPos(5, 70, -3), 26).getShapeCoordinates();
+
+        for (LayerManager.Type type : LayerManager.Type.values()) {
+            Supplier<LayerManager> manager = () -> manager(type, new LayerPlacer(LayerPlacer.LayerPlace.HASH, 12345L), true, new StructurePlacementRuleManager());
+            EwcExecutor.shutdown();
+            EwcExecutor.start(1);
+            List<String> expected = describe(manager.get().get(posMap), LayerDeterminismTest::isAir);
+            List<String> expectedDivided = describe(manager.get().getDivided(posMap), LayerDeterminismTest::isAir);
+            Assertions.assertTrue(expected.size() > 1, type.name());
+
+            EwcExecutor.shutdown();
+            EwcExecutor.start(4);
+            for (int i = 0; i < RUNS; i++) {
+                Assertions.assertEquals(expected, describe(manager.get().getVerified(WORLD, posMap), pos -> true), type.name());
+                Assertions.assertEquals(expectedDivided, describe(manager.get().getVerifiedDivided(WORLD, posMap), pos -> true), type.name());
+            }
+        }
+    }
+
+    @Test
+    public void testHashSeed() {
+        List<BlockState> states = List.of(Blocks.STONE.getDefaultState(), Blocks.DIRT.getDefaultState(), Blocks.ANDESITE.getDefaultState());
+        LayerPlacer first = new LayerPlacer(LayerPlacer.LayerPlace.HASH, 1L);
+        LayerPlacer second = new LayerPlacer(LayerPlacer.LayerPlace.HASH, 2L);
+        int different = 0;
+        for (int i = 0; i < 1000; i++) {
+            BlockPos pos = new BlockPos(i, i % 50, -i * 3);
+            Assertions.assertEquals(first.get(states, pos), first.get(states, LongPosHelper.encodeBlockPos(pos)));
+            if (first.get(states, pos) != second.get(states, pos))
+                different++;
+        }
+        Assertions.assertTrue(different > 0);
+    }
+
+    private static void assertDeterministic(Map<ChunkPos, LongOpenHashSet> posMap, int size, Supplier<LayerManager> manager, String name) {
+        EwcExecutor.shutdown();
+        EwcExecutor.start(1);
+        List<String> expected = describe(manager.get().get(posMap));
+        List<String> expectedDivided = describe(manager.get().getDivided(posMap));
+        Assertions.assertEquals(size, countPos(manager.get().get(posMap)), name);
+
+        EwcExecutor.shutdown();
+        EwcExecutor.start(4);
+        for (int i = 0; i < RUNS; i++) {
+            Assertions.assertEquals(expected, describe(manager.get().get(posMap)), name);
+            Assertions.assertEquals(expectedDivided, describe(manager.get().getDivided(posMap)), name);
+        }
+    }
+
+    private static LayerManager manager(LayerManager.Type type, LayerPlacer placer, boolean mixed) {
+        return manager(type, placer, mixed, null);
+    }
+
+    private static LayerManager manager(LayerManager.Type type, LayerPlacer placer, boolean mixed, StructurePlacementRuleManager ruler) {
+        BlockLayerManager layers = new BlockLayerManager(List.of(
+                new BlockLayer(placer, mixed ? List.of(Blocks.GRASS_BLOCK.getDefaultState(), Blocks.MOSS_BLOCK.getDefaultState()) : List.of(Blocks.GRASS_BLOCK.getDefaultState()), 2, ruler),
+                new BlockLayer(placer, mixed ? List.of(Blocks.DIRT.getDefaultState(), Blocks.COARSE_DIRT.getDefaultState(), Blocks.GRAVEL.getDefaultState()) : List.of(Blocks.DIRT.getDefaultState()), 4, ruler),
+                new BlockLayer(placer, List.of(Blocks.STONE.getDefaultState()), 1000, ruler)
+        ));
+        return new LayerManager(type, layers, new Vec3d(5, 70, -3), new Vec3i(1, 2, 0));
+    }
+
+    private static int countPos(BlockListManager manager) {
+        int count = 0;
+        for (BlockList blockList : manager.getAllBlockList()) {
+            count += blockList.size();
+        }
+        return count;
+    }
+
+    private static List<String> describe(BlockListManager manager) {
+        return describe(manager, pos -> true);
+    }
+
+    /**
+     * @param filter the pos to keep, the lists without any pos left are skipped
+     */
+    private static List<String> describe(BlockListManager manager, LongPredicate filter) {
+        List<String> description = new ArrayList<>();
+        for (BlockList blockList : manager.getAllBlockList()) {
+            LongArrayList positions = new LongArrayList();
+            blockList.getPosList().forEach(pos -> {
+                if (filter.test(pos))
+                    positions.add(pos);
+            });
+            if (!positions.isEmpty())
+                description.add(blockList.getState() + " " + positions);
+        }
+        return description;
+    }
+
+    private static List<String> describe(DividedBlockListManager manager) {
+        return describe(manager, pos -> true);
+    }
+
+    private static List<String> describe(DividedBlockListManager manager, LongPredicate filter) {
+        List<String> description = new ArrayList<>();
+        manager.getChunkPos().stream()
+                .sorted((a, b) -> Long.compare(a.toLong(), b.toLong()))
+                .forEach(chunk -> description.add(chunk + " " + describe(manager.getManager(chunk), filter)));
+        return description;
+    }
+
+    /**
+     * @return true if the pos is air in {@link #WORLD}, one block out of five being stone
+     */
+    private static boolean isAir(long pos) {
+        return Math.floorMod(LongPosHelper.decodeX(pos) * 7 + LongPosHelper.decodeY(pos) * 3 + LongPosHelper.decodeZ(pos), 5) != 0;
+    }
+}
@@ -0,0 +1,138 @@
+package net.rodofire.ewc_test.shape.block.placer;
+
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.GenerationStep;
+import net.rodofire.easierworldcreator.blockdata.blocklist.BlockListManager;
+import net.rodofire.easierworldcreator.blockdata.blocklist.piece.PieceWriteExecutor;
+import net.rodofire.easierworldcreator.shape.block.placer.WGShapeData;
+import net.rodofire.easierworldcreator.shape.block.placer.WGShapeHandler;
+import net.rodofire.easierworldcreator.world.chunk.ChunkLocks;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class WGShapeHandlerConcurrencyTest {
+    private static final int THREADS = 16;
+    private static final int FEATURES_PER_THREAD = 300;
+    /**
+     * every feature covers 3x3 chunks inside a 8x8 area, meaning that features heavily overlap
+     */
+    private static final int AREA = 8;
+
+    /**
+     * pieces written by the executor, by chunk and by name, replacing the region storage
+     */
+    private static final Map<Long, Set<String>> STORED = new ConcurrentHashMap<>();
+
+    /**
+     * <p>Many threads encode overlapping multi-chunk pieces through {@link WGShapeHandler#encodePiece} while other threads generate the chunks,
+     * doing the same as the end of the chunk generation: lock the chunk, await the pieces being written, take them and remove the references.
+     * <p>Every submitted piece must either be taken by a generated chunk or still be stored at the end.
+     * A piece still stored must still be referenced, otherwise it would never be placed.
+     */
+    @Test
+    public void testOverlappingPieces() throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger submitted = new AtomicInteger();
+        AtomicInteger taken = new AtomicInteger();
+        AtomicInteger unreferenced = new AtomicInteger();
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                await(start);
+                for (int i = 0; i < FEATURES_PER_THREAD; i++) {
+                    int baseX = Math.floorMod(thread * 31 + i * 7, AREA);
+                    int baseZ = Math.floorMod(thread * 17 + i * 13, AREA);
+                    WGShapeData data = WGShapeData.ofStep(GenerationStep.Feature.VEGETAL_DECORATION, "feature_" + thread + "_" + i);
+                    for (int x = 0; x < 3; x++) {
+                        for (int z = 0; z < 3; z++) {
+                            WGShapeHandler.encodePiece(StoredPiece::new, new ChunkPos(baseX + x, baseZ + z), new ChunkPos(0, 0), data);
+                            submitted.incrementAndGet();
+                        }
+                    }
+                }
+            });
+        }
+
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            pool.execute(() -> {
+                await(start);
+                for (int i = 0; i < FEATURES_PER_THREAD; i++) {
+                    ChunkPos chunk = new ChunkPos(Math.floorMod(thread + i, AREA + 2), Math.floorMod(thread * 3 + i, AREA + 2));
+                    ReentrantLock lock = ChunkLocks.get(chunk);
+                    lock.lock();
+                    try {
+                        PieceWriteExecutor.awaitAll(chunk);
+                        Set<String> pieces = STORED.remove(chunk.toLong());
+                        Set<String> references = new HashSet<>();
+                        WGShapeHandler.removeInformation(chunk).forEach(data -> references.add(data.getName()));
+                        if (pieces != null) {
+                            taken.addAndGet(pieces.size());
+                            references.removeAll(pieces);
+                        }
+                        //the references without piece are the pieces that will be written after the chunk was generated
+                        unreferenced.addAndGet(references.size());
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        pool.shutdown();
+        Assertions.assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES));
+        PieceWriteExecutor.flush();
+
+        int stored = 0;
+        for (int x = 0; x < AREA + 2; x++) {
+            for (int z = 0; z < AREA + 2; z++) {
+                ChunkPos chunk = new ChunkPos(x, z);
+                Set<String> pieces = STORED.getOrDefault(chunk.toLong(), Set.of());
+                Set<String> references = new HashSet<>();
+                WGShapeHandler.removeInformation(chunk).forEach(data -> references.add(data.getName()));
+                Assertions.assertEquals(references, pieces, "pieces stored without reference in chunk " + chunk);
+                stored += pieces.size();
+            }
+        }
+
+        System.out.println("submitted: " + submitted.get() + ", taken: " + taken.get() + ", stored: " + stored);
+        Assertions.assertEquals(THREADS * FEATURES_PER_THREAD * 9, submitted.get());
+        Assertions.assertEquals(submitted.get(), taken.get() + stored);
+        Assertions.assertEquals(0, unreferenced.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * piece recording its name instead of writing a region file. The write takes a random time to let the generation overtake it
+     */
+    private static class StoredPiece extends BlockListManager {
+        @Override
+        public void placePiece(ChunkPos chunkPos, ChunkPos offset, String name) {
+            LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(50_000));
+            STORED.computeIfAbsent(new ChunkPos(chunkPos.x + offset.x, chunkPos.z + offset.z).toLong(), k -> ConcurrentHashMap.newKeySet()).add(name);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package net.rodofire.ewc_test.shape.block.rotations;
+
+import net.minecraft.util.math.BlockPos;
+import net.rodofire.easierworldcreator.shape.block.rotations.Rotator;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * compare the rotations using the combined matrix with the sequential rotation of {@link Rotator#get(long)}
+ */
+public class RotatorTest {
+    private static final BlockPos CENTER = new BlockPos(-30, 70, 112);
+    private static final int[][] ROTATIONS = {{0, 0, 0}, {90, 0, 0}, {30, 45, 60}, {17, 83, 129}, {180, 90, 270}, {233, 11, 301}};
+
+    @Test
+    public void testMatrix() {
+        long[] positions = getPositions();
+        for (int[] rotation : ROTATIONS) {
+            Rotator rotator = new Rotator(CENTER, rotation[0], rotation[1], rotation[2]);
+            long[] rotated = positions.clone();
+            rotator.rotate(rotated, 0, rotated.length);
+
+            for (int i = 0; i < positions.length; i++) {
+                //the rotations are combined in a single matrix, the result can differ by one block
+                assertClose(rotator.get(positions[i]), rotated[i], rotation);
+            }
+        }
+    }
+
+    @Test
+    public void testStructureOfArrays() {
+        long[] positions = getPositions();
+        int[] x = new int[positions.length];
+        int[] y = new int[positions.length];
+        int[] z = new int[positions.length];
+        for (int[] rotation : ROTATIONS) {
+            Rotator rotator = new Rotator(CENTER, rotation[0], rotation[1], rotation[2]);
+            long[] rotated = positions.clone();
+            rotator.rotate(rotated, 0, rotated.length);
+            for (int i = 0; i < positions.length; i++) {
+                x[i] = LongPosHelper.decodeX(positions[i]);
+                y[i] = LongPosHelper.decodeY(positions[i]);
+                z[i] = LongPosHelper.decodeZ(positions[i]);
+            }
+            rotator.rotate(x, y, z, positions.length);
+
+            for (int i = 0; i < positions.length; i++) {
+                assertClose(rotated[i], LongPosHelper.encodeBlockPos(x[i], y[i], z[i]), rotation);
+            }
+        }
+    }
+
+    private static void assertClose(long expected, long actual, int[] rotation) {
+        String message = "rotation " + rotation[0] + " " + rotation[1] + " " + rotation[2] + ": expected " + LongPosHelper.decodeBlockPos(expected) + " got " + LongPosHelper.decodeBlockPos(actual);
+        Assertions.assertTrue(Math.abs(LongPosHelper.decodeX(expected) - LongPosHelper.decodeX(actual)) <= 1, message);
+        Assertions.assertTrue(Math.abs(LongPosHelper.decodeY(expected) - LongPosHelper.decodeY(actual)) <= 1, message);
+        Assertions.assertTrue(Math.abs(LongPosHelper.decodeZ(expected) - LongPosHelper.decodeZ(actual)) <= 1, message);
+    }
+
+    /**
+     * local pos, relative to the center of the rotator
+     */
+    private static long[] getPositions() {
+        Random random = new Random(42);
+        long[] positions = new long[5000];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = LongPosHelper.encodeBlockPos(random.nextInt(121) - 60, random.nextInt(121) - 60, random.nextInt(121) - 60);
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,77 @@
+package net.rodofire.ewc_test.util;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.StructureWorldAccess;
+import net.minecraft.world.chunk.Chunk;
+
+import java.lang.reflect.Proxy;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+/**
+ * <p>Fake {@link StructureWorldAccess} used by the tests, only implementing what the placement and the pieces need.
+ * <p>By default, every state is air and every write succeeds. The other methods return null.
+ * <pre>{@code
+ * StructureWorldAccess world = FakeWorld.create()
+ *         .states(pos -> Blocks.STONE.getDefaultState())
+ *         .build();
+ * }</pre>
+ */
+public class FakeWorld {
+    private Function<BlockPos, BlockState> states = pos -> Blocks.AIR.getDefaultState();
+    private BiPredicate<BlockPos, BlockState> writes = (pos, state) -> true;
+    private Chunk chunk;
+
+    private FakeWorld() {
+    }
+
+    public static FakeWorld create() {
+        return new FakeWorld();
+    }
+
+    /**
+     * @param states the state returned by {@code getBlockState()}
+     */
+    public FakeWorld states(Function<BlockPos, BlockState> states) {
+        this.states = states;
+        return this;
+    }
+
+    /**
+     * @param writes called by {@code setBlockState()}, the pos can be mutable. Returns if the block was placed
+     */
+    public FakeWorld writes(BiPredicate<BlockPos, BlockState> writes) {
+        this.writes = writes;
+        return this;
+    }
+
+    /**
+     * @param chunk the chunk returned by {@code getChunk()}. Every chunk is then loaded and can be modified,
+     *              like the center of a {@code ChunkRegion}
+     */
+    public FakeWorld chunk(Chunk chunk) {
+        this.chunk = chunk;
+        return this;
+    }
+
+    public StructureWorldAccess build() {
+        Function<BlockPos, BlockState> states = this.states;
+        BiPredicate<BlockPos, BlockState> writes = this.writes;
+        Chunk chunk = this.chunk;
+        return (StructureWorldAccess) Proxy.newProxyInstance(
+                StructureWorldAccess.class.getClassLoader(),
+                new Class<?>[]{StructureWorldAccess.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getBlockState" -> states.apply((BlockPos) args[0]);
+                    case "setBlockState" -> writes.test((BlockPos) args[0], (BlockState) args[1]);
+                    case "getChunk" -> chunk;
+                    case "isChunkLoaded", "isValidForSetBlock" -> chunk != null;
+                    case "isClient" -> false;
+                    case "createCommandRegistryWrapper" -> Registries.BLOCK.getReadOnlyWrapper();
+                    default -> null;
+                });
+    }
+}
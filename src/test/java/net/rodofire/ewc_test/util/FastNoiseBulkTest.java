@@ -0,0 +1,38 @@
+package net.rodofire.ewc_test.util;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.rodofire.easierworldcreator.util.FastNoiseLite;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class FastNoiseBulkTest {
+    @Test
+    public void testSameAsSingle() {
+        FastNoiseLite noise = new FastNoiseLite(1234);
+        noise.SetFrequency(0.07f);
+        noise.SetFractalType(FastNoiseLite.FractalType.FBm);
+
+        LongArrayList list = new LongArrayList();
+        for (int x = -3; x < 5; x++) {
+            for (int z = 10; z < 14; z++) {
+                for (int y = 60; y < 66; y++) {
+                    list.add(LongPosHelper.encodeBlockPos(x, y, z));
+                }
+            }
+        }
+        //same column again, far from the previous one in the array
+        list.add(LongPosHelper.encodeBlockPos(-3, 100, 10));
+        long[] positions = list.toLongArray();
+
+        float[] values2D = new float[positions.length];
+        float[] values3D = new float[positions.length];
+        noise.GetNoise2D(positions, values2D);
+        noise.GetNoise3D(positions, values3D);
+        for (int i = 0; i < positions.length; i++) {
+            long pos = positions[i];
+            Assertions.assertEquals(noise.GetNoise(LongPosHelper.decodeX(pos), LongPosHelper.decodeZ(pos)), values2D[i]);
+            Assertions.assertEquals(noise.GetNoise(LongPosHelper.decodeX(pos), LongPosHelper.decodeY(pos), LongPosHelper.decodeZ(pos)), values3D[i]);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package net.rodofire.ewc_test.util.file;
+
+import net.rodofire.easierworldcreator.util.file.region.RegionFile;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * append data to the chunks of a region, with another chunk written after, so that the appended chunk has to be moved
+ */
+public class RegionFileTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testAppend() throws IOException {
+        Path path = directory.resolve("r.0.0.ewcr");
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        try (RegionFile region = new RegionFile(path)) {
+            for (int i = 0; i < 200; i++) {
+                //records of different sizes, some crossing the end of a sector
+                byte[] data = new byte[37 * i % 5000 + 1];
+                Arrays.fill(data, (byte) i);
+                region.append(0, data);
+                first.write(data);
+                if (i % 20 == 0) {
+                    region.append(1, data);
+                    second.write(data);
+                }
+            }
+            Assertions.assertArrayEquals(first.toByteArray(), region.read(0));
+            Assertions.assertArrayEquals(second.toByteArray(), region.read(1));
+        }
+
+        //the header and the length are saved
+        try (RegionFile region = new RegionFile(path)) {
+            Assertions.assertArrayEquals(first.toByteArray(), region.read(0));
+            Assertions.assertArrayEquals(second.toByteArray(), region.read(1));
+
+            region.delete(1);
+            byte[] data = new byte[10_000];
+            Arrays.fill(data, (byte) 7);
+            region.append(0, data);
+            first.write(data);
+            Assertions.assertArrayEquals(first.toByteArray(), region.read(0));
+        }
+    }
+}
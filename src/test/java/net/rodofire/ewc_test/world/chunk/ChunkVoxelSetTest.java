@@ -0,0 +1,58 @@
+package net.rodofire.ewc_test.world.chunk;
+
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.rodofire.easierworldcreator.util.LongPosHelper;
+import net.rodofire.easierworldcreator.world.chunk.ChunkVoxelSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+public class ChunkVoxelSetTest {
+    @Test
+    public void testSameAsHashSet() {
+        Random random = new Random(7);
+        ChunkVoxelSet voxels = new ChunkVoxelSet(-3, 5);
+        LongOpenHashSet expected = new LongOpenHashSet();
+        for (int i = 0; i < 20000; i++) {
+            long pos = LongPosHelper.encodeBlockPos(-48 + random.nextInt(16), -64 + random.nextInt(384), 80 + random.nextInt(16));
+            if (random.nextInt(4) == 0) {
+                Assertions.assertEquals(expected.remove(pos), voxels.remove(pos));
+            } else {
+                Assertions.assertEquals(expected.add(pos), voxels.add(pos));
+            }
+        }
+        Assertions.assertEquals(expected.size(), voxels.size());
+        Assertions.assertEquals(expected, voxels.toLongSet());
+        Assertions.assertEquals(ChunkPos.toLong(-3, 5), voxels.getChunk());
+        //pos outside the chunk are ignored
+        Assertions.assertFalse(voxels.add(LongPosHelper.encodeBlockPos(0, 0, 0)));
+
+        Assertions.assertEquals(expected, ChunkVoxelSet.ofChunk(voxels.getChunk(), expected).toLongSet());
+        expected.add(LongPosHelper.encodeBlockPos(0, 0, 0));
+        Assertions.assertNull(ChunkVoxelSet.ofChunk(voxels.getChunk(), expected));
+    }
+
+    @Test
+    public void testFullSection() {
+        ChunkVoxelSet voxels = new ChunkVoxelSet(0, 0);
+        for (int x = 0; x < 16; x++) {
+            for (int z = 0; z < 16; z++) {
+                for (int y = 32; y < 48; y++) {
+                    voxels.add(x, y, z);
+                }
+            }
+        }
+        Assertions.assertTrue(voxels.isSectionFull(2));
+        Assertions.assertTrue(voxels.isSectionEmpty(3));
+        Assertions.assertTrue(voxels.contains(LongPosHelper.encodeBlockPos(4, 40, 4), Direction.UP, 7));
+        Assertions.assertFalse(voxels.contains(LongPosHelper.encodeBlockPos(4, 40, 4), Direction.UP, 8));
+
+        Assertions.assertTrue(voxels.remove(3, 33, 9));
+        Assertions.assertFalse(voxels.isSectionFull(2));
+        Assertions.assertFalse(voxels.contains(3, 33, 9));
+        Assertions.assertEquals(4095, voxels.size());
+    }
+}